@@ -0,0 +1,138 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.Grammar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.python.PythonAstScanner;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.checks.CheckList;
+import org.sonar.squidbridge.AstScanner;
+import org.sonar.squidbridge.SquidAstVisitor;
+import org.sonar.squidbridge.api.SourceCodeSearchEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same as {@link MetricsBenchmark}, with one check: the difference between the two scores is the cost of the check.
+ * Checks run with their default parameters, so that XPathCheck and CommentRegularExpressionCheck do nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CheckBenchmark {
+
+  /**
+   * Simple names of the classes of {@link CheckList#getChecks()}.
+   */
+  @Param({
+    "ParsingErrorCheck",
+    "CommentRegularExpressionCheck",
+    "LineLengthCheck",
+    "FunctionComplexityCheck",
+    "ClassComplexityCheck",
+    "FileComplexityCheck",
+    "OneStatementPerLineCheck",
+    "BackticksUsageCheck",
+    "InequalityUsageCheck",
+    "LongIntegerWithLowercaseSuffixUsageCheck",
+    "ExecStatementUsageCheck",
+    "PrintStatementUsageCheck",
+    "PreIncrementDecrementCheck",
+    "XPathCheck",
+    "TooManyLinesInFileCheck",
+    "ClassNameCheck",
+    "MissingDocstringCheck",
+    "FunctionNameCheck",
+    "MethodNameCheck",
+    "NewStyleClassCheck",
+    "UselessParenthesisAfterKeywordCheck",
+    "TooManyParametersCheck",
+    "NestedControlFlowDepthCheck",
+    "CollapsibleIfStatementsCheck",
+    "TrailingCommentCheck",
+    "BackslashInStringCheck",
+    "EmptyNestedBlockCheck",
+    "FixmeCommentCheck",
+    "SameConditionCheck",
+    "HardcodedIPCheck",
+    "NoPersonReferenceInTodoCheck",
+    "SameBranchCheck",
+    "BreakContinueOutsideLoopCheck",
+    "CommentedCodeCheck",
+    "ReturnYieldOutsideFunctionCheck",
+    "TrailingWhitespaceCheck",
+    "MissingNewlineAtEndOfFileCheck",
+    "LocalVariableAndParameterNameConventionCheck",
+    "InitReturnsValueCheck",
+    "ExitHasBadArgumentsCheck",
+    "ReturnAndYieldInOneFunctionCheck",
+    "ModuleNameCheck",
+    "FieldNameCheck",
+    "FieldDuplicatesClassNameCheck",
+    "UselessParenthesisCheck",
+    "DuplicatedMethodFieldNamesCheck",
+    "TooManyReturnsCheck",
+    "NeedlessPassCheck",
+    "AfterJumpStatementCheck",
+    "MethodShouldBeStaticCheck"})
+  public String check;
+
+  @Param({Corpus.ITS, Corpus.SYNTHETIC})
+  public String corpus;
+
+  private List<File> files;
+  private PythonConfiguration conf;
+  private Class<?> checkClass;
+
+  @Setup
+  public void setUp() throws IOException, ClassNotFoundException {
+    files = Corpus.files(corpus);
+    conf = new PythonConfiguration(Charsets.UTF_8);
+    checkClass = Class.forName(CheckList.class.getPackage().getName() + "." + check);
+  }
+
+  @Benchmark
+  public SourceCodeSearchEngine scan() throws ReflectiveOperationException {
+    // checks are not meant to be reused from one scan to the next
+    SquidAstVisitor<Grammar> visitor = (SquidAstVisitor<Grammar>) checkClass.newInstance();
+    AstScanner<Grammar> scanner = PythonAstScanner.create(conf, visitor);
+    scanner.scanFiles(files);
+    return scanner.getIndex();
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Python files the benchmarks run on.
+ */
+final class Corpus {
+
+  /**
+   * Real-world code: the sources of the ruling integration tests, or the directory given by the
+   * <code>python.benchmarks.sources</code> system property.
+   */
+  static final String ITS = "its";
+
+  /**
+   * One generated file of about 20,000 lines, as big files are where analysis time goes.
+   */
+  static final String SYNTHETIC = "synthetic";
+
+  private static final String SOURCES_PROPERTY = "python.benchmarks.sources";
+  private static final int SYNTHETIC_CLASSES = 1000;
+
+  private Corpus() {
+  }
+
+  static List<File> files(String corpus) throws IOException {
+    if (ITS.equals(corpus)) {
+      File sources = new File(System.getProperty(SOURCES_PROPERTY, "../its/sources"));
+      if (!sources.isDirectory()) {
+        throw new IllegalStateException("Directory '" + sources.getAbsolutePath() + "' not found: fetch the sources of the ruling "
+          + "integration tests, or set the " + SOURCES_PROPERTY + " system property");
+      }
+      List<File> files = new ArrayList<>();
+      addPythonFiles(sources, files);
+      Collections.sort(files);
+      return files;
+    } else if (SYNTHETIC.equals(corpus)) {
+      File file = File.createTempFile("synthetic", ".py");
+      file.deleteOnExit();
+      Files.write(generate(SYNTHETIC_CLASSES), file, Charsets.UTF_8);
+      return ImmutableList.of(file);
+    }
+    throw new IllegalArgumentException("Unknown corpus: " + corpus);
+  }
+
+  private static void addPythonFiles(File dir, List<File> files) {
+    File[] children = dir.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (File child : children) {
+      if (child.isDirectory()) {
+        addPythonFiles(child, files);
+      } else if (child.getName().endsWith(".py")) {
+        files.add(child);
+      }
+    }
+  }
+
+  static List<String> contents(List<File> files) throws IOException {
+    List<String> contents = new ArrayList<>(files.size());
+    for (File file : files) {
+      contents.add(Files.toString(file, Charsets.UTF_8));
+    }
+    return contents;
+  }
+
+  /**
+   * Classes mixing the constructs which the lexer, the parser and the checks spend time on.
+   */
+  static String generate(int classes) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("# -*- coding: utf-8 -*-\n");
+    sb.append("import os, sys\n");
+    sb.append("from collections import defaultdict\n\n");
+    for (int i = 0; i < classes; i++) {
+      sb.append("class Class").append(i).append("(object):\n");
+      sb.append("    \"\"\"Docstring of the class ").append(i).append(".\"\"\"\n\n");
+      sb.append("    field_").append(i).append(" = {'key': [1, 2.5, 0x1F, 10L], \"other\": (None,)}\n\n");
+      sb.append("    def method_").append(i).append("(self, value, *args, **kwargs):\n");
+      sb.append("        # a comment, and some commented code: result = value * 2\n");
+      sb.append("        result = [x * 2 for x in range(value) if x % 3 == 0]\n");
+      sb.append("        if value > ").append(i).append(" and not kwargs:\n");
+      sb.append("            self.field_").append(i).append(" = value + 1.5e3\n");
+      sb.append("        elif value in (1, 2, 3):\n");
+      sb.append("            return 'string %d' % (value)\n");
+      sb.append("        else:\n");
+      sb.append("            for key, item in kwargs.items():\n");
+      sb.append("                try:\n");
+      sb.append("                    result.append(item(key) << 2 | value ^ 0777)\n");
+      sb.append("                except (ValueError, TypeError) as e:\n");
+      sb.append("                    raise RuntimeError(\"error: \" + str(e))\n");
+      sb.append("        while result:\n");
+      sb.append("            result.pop()\n");
+      sb.append("        return lambda y, z=").append(i).append(": y if y else z\n\n");
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.Grammar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.python.PythonAstScanner;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.squidbridge.AstScanner;
+import org.sonar.squidbridge.api.SourceCodeSearchEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans all the files of the corpus with the visitors which {@link PythonAstScanner} always has (metrics, classes,
+ * functions, comments) and no check: this is the cost of an analysis without any rule, reading and parsing included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MetricsBenchmark {
+
+  @Param({Corpus.ITS, Corpus.SYNTHETIC})
+  public String corpus;
+
+  private List<File> files;
+  private PythonConfiguration conf;
+
+  @Setup
+  public void setUp() throws IOException {
+    files = Corpus.files(corpus);
+    conf = new PythonConfiguration(Charsets.UTF_8);
+  }
+
+  @Benchmark
+  public SourceCodeSearchEngine scan() {
+    AstScanner<Grammar> scanner = PythonAstScanner.create(conf);
+    scanner.scanFiles(files);
+    return scanner.getIndex();
+  }
+
+}
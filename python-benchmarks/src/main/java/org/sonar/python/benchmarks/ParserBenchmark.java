@@ -0,0 +1,89 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.impl.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.parser.PythonParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses all the files of the corpus, which are read beforehand. Files which do not parse are left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParserBenchmark {
+
+  @Param({Corpus.ITS, Corpus.SYNTHETIC})
+  public String corpus;
+
+  @Param({"false", "true"})
+  public boolean compactTree;
+
+  private List<String> contents;
+  private Parser<Grammar> parser;
+
+  @Setup
+  public void setUp() throws IOException {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setCompactTree(compactTree);
+    parser = PythonParser.create(conf);
+    contents = new ArrayList<>();
+    for (String content : Corpus.contents(Corpus.files(corpus))) {
+      try {
+        parser.parse(content);
+        contents.add(content);
+      } catch (RecognitionException e) {
+        // not what is measured
+      }
+    }
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    for (String content : contents) {
+      blackhole.consume(parser.parse(content));
+    }
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.impl.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.lexer.PythonLexer;
+import org.sonar.python.parser.PythonParser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates a parser and parses a small file with it, which is the startup cost paid by each module and each thread.
+ * The shared grammar is compared with a grammar built and compiled for the parser only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParserStartupBenchmark {
+
+  private static final String SOURCE = "def f(x):\n  return x + 1\n";
+
+  private final PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+
+  @Benchmark
+  public AstNode sharedGrammar() {
+    return PythonParser.create(conf).parse(SOURCE);
+  }
+
+  @Benchmark
+  public AstNode ownGrammar() {
+    return Parser.builder(PythonGrammar.create(conf.getCompactTree()).build())
+      .withLexer(PythonLexer.create(conf)).build()
+      .parse(SOURCE);
+  }
+
+}
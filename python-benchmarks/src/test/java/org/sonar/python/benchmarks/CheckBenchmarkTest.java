@@ -0,0 +1,47 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.benchmarks;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Param;
+import org.sonar.python.checks.CheckList;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CheckBenchmarkTest {
+
+  /**
+   * Enforces that each check is benchmarked.
+   */
+  @Test
+  public void each_check_is_benchmarked() throws Exception {
+    List<String> checks = Lists.newArrayList();
+    for (Class checkClass : CheckList.getChecks()) {
+      checks.add(checkClass.getSimpleName());
+    }
+    String[] benchmarked = CheckBenchmark.class.getField("check").getAnnotation(Param.class).value();
+    assertThat(Arrays.asList(benchmarked)).isEqualTo(checks);
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.benchmarks;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.parser.PythonParser;
+
+import java.io.File;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CorpusTest {
+
+  @Test
+  public void synthetic_file_parses() throws Exception {
+    List<File> files = Corpus.files(Corpus.SYNTHETIC);
+    assertThat(files).hasSize(1);
+    String content = Corpus.contents(files).get(0);
+    assertThat(content.split("\n").length).isGreaterThan(20000);
+    assertThat(PythonParser.create(new PythonConfiguration(Charsets.UTF_8)).parse(content).is(PythonGrammar.FILE_INPUT)).isTrue();
+  }
+
+  @Test
+  public void its_sources_can_be_replaced() throws Exception {
+    System.setProperty("python.benchmarks.sources", "../python-checks/src/test/resources/checks");
+    try {
+      assertThat(Corpus.files(Corpus.ITS)).isNotEmpty();
+    } finally {
+      System.clearProperty("python.benchmarks.sources");
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void missing_its_sources() throws Exception {
+    System.setProperty("python.benchmarks.sources", "unknown");
+    try {
+      Corpus.files(Corpus.ITS);
+    } finally {
+      System.clearProperty("python.benchmarks.sources");
+    }
+  }
+
+}
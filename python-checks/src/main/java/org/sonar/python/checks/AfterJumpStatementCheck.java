@@ -24,6 +24,7 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -57,23 +58,25 @@ public class AfterJumpStatementCheck extends SquidCheck<Grammar> {
 
   @Override
   public void visitNode(AstNode node) {
-    AstNode simpleStatement = node.getParent();
+    AstNode simpleStatement = node.getParent().is(PythonGrammar.SIMPLE_STMT) ? node.getParent() : node;
+    AstNode stmtList = simpleStatement.getParent().is(PythonGrammar.STMT_LIST) ? simpleStatement.getParent() : simpleStatement;
 
-    AstNode nextSibling = simpleStatement.getNextSibling();
-    if (nextSibling != null && nextSibling.getNextSibling() != null) {
+    if (stmtList.is(PythonGrammar.STMT_LIST) && isFollowedByStatement(simpleStatement)) {
       raiseIssue(node);
       return;
     }
 
-    AstNode stmtList = simpleStatement.getParent();
-    if (stmtList.getParent().is(PythonGrammar.STATEMENT)){
-      nextSibling = stmtList.getParent().getNextSibling();
-      if (nextSibling != null && nextSibling.getNextSibling() != null){
-        raiseIssue(node);
-      }
+    AstNode statement = stmtList.getParent().is(PythonGrammar.STATEMENT) ? stmtList.getParent() : stmtList;
+    if (PythonAstNodes.standsFor(statement, PythonGrammar.STATEMENT) && isFollowedByStatement(statement)) {
+      raiseIssue(node);
     }
   }
 
+  private static boolean isFollowedByStatement(AstNode node) {
+    AstNode nextSibling = node.getNextSibling();
+    return nextSibling != null && nextSibling.getNextSibling() != null;
+  }
+
   private void raiseIssue(AstNode node) {
     getContext().createLineViolation(this, String.format(MESSAGE, node.getTokenValue()), node);
   }
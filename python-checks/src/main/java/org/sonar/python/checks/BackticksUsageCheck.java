@@ -19,17 +19,22 @@
  */
 package org.sonar.python.checks;
 
+import com.sonar.sslr.api.AstAndTokenVisitor;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.TokenVisitor;
 import org.sonar.python.api.PythonPunctuator;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
 
+import javax.annotation.Nullable;
+
 @Rule(
     key = BackticksUsageCheck.CHECK_KEY,
     priority = Priority.MAJOR,
@@ -38,20 +43,20 @@ import org.sonar.squidbridge.checks.SquidCheck;
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.LANGUAGE_RELATED_PORTABILITY)
 @SqaleConstantRemediation("5min")
 @ActivatedByDefault
-public class BackticksUsageCheck extends SquidCheck<Grammar> {
+public class BackticksUsageCheck extends SquidCheck<Grammar> implements AstAndTokenVisitor, TokenVisitor {
   public static final String CHECK_KEY = "BackticksUsage";
-  private int prevLine = -1;
+  private int prevLine;
 
   @Override
-  public void init() {
-    subscribeTo(PythonPunctuator.BACKTICK);
+  public void visitFile(@Nullable AstNode astNode) {
+    prevLine = -1;
   }
 
   @Override
-  public void visitNode(AstNode astNode) {
-    if (prevLine != astNode.getTokenLine()) {
-      prevLine = astNode.getTokenLine();
-      getContext().createLineViolation(this, "Use \"repr\" instead.", astNode);
+  public void visitToken(Token token) {
+    if (token.getType() == PythonPunctuator.BACKTICK && prevLine != token.getLine()) {
+      prevLine = token.getLine();
+      getContext().createLineViolation(this, "Use \"repr\" instead.", token);
     }
   }
 
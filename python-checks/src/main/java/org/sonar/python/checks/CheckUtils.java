@@ -20,11 +20,12 @@
 package org.sonar.python.checks;
 
 import com.sonar.sslr.api.AstNode;
-import com.sonar.sslr.api.Token;
+import org.sonar.python.api.NodeTypeIndex;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
-import org.sonar.python.api.PythonPunctuator;
 import org.sonar.python.api.PythonTokenType;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class CheckUtils {
@@ -35,12 +36,10 @@ public class CheckUtils {
 
   public static boolean isMethodDefinition(AstNode node) {
     AstNode parent = node.getParent();
-    for (int i = 0; i < 3; i++) {
-      if (parent != null) {
-        parent = parent.getParent();
-      }
+    while (parent.is(PythonGrammar.COMPOUND_STMT, PythonGrammar.STATEMENT)) {
+      parent = parent.getParent();
     }
-    return parent != null && parent.is(PythonGrammar.CLASSDEF);
+    return parent.is(PythonGrammar.SUITE) && parent.getParent().is(PythonGrammar.CLASSDEF);
   }
 
   public static boolean equalNodes(AstNode node1, AstNode node2){
@@ -62,8 +61,11 @@ public class CheckUtils {
     return true;
   }
 
-  public static boolean insideFunction(AstNode astNode, AstNode funcDef) {
-    return astNode.getFirstAncestor(PythonGrammar.FUNCDEF).equals(funcDef);
+  /**
+   * Descendants of the given types of a <code>FUNCDEF</code>, except those of the nested functions, in the order of the code.
+   */
+  public static List<AstNode> functionDescendants(AstNode funcDef, PythonGrammar... types) {
+    return NodeTypeIndex.of(funcDef).descendantsOutside(funcDef, PythonGrammar.FUNCDEF, types);
   }
 
   public static boolean classHasNoInheritance(AstNode classDef) {
@@ -76,22 +78,31 @@ public class CheckUtils {
     }
   }
 
-  public static boolean isAssignmentExpression(AstNode expression) {
-    int numberOfChildren = expression.getNumberOfChildren();
-    int numberOfAssign = expression.getChildren(PythonPunctuator.ASSIGN).size();
-    if (numberOfChildren == 3 && numberOfAssign == 1){
-      return true;
+  /**
+   * Nodes standing for the <code>TEST</code> nodes between the parentheses of the given <code>ATOM</code>.
+   */
+  public static List<AstNode> testsInParenthesis(AstNode atom) {
+    List<AstNode> tests = new ArrayList<>();
+    for (AstNode child : atom.getChildren()) {
+      tests.addAll(PythonAstNodes.childrenOf(child, PythonGrammar.TESTLIST_COMP, PythonGrammar.TEST));
     }
-    // a = b = c = 1
-    return numberOfAssign > 0 && numberOfChildren % 2 != 0 && numberOfAssign * 2 + 1 == numberOfChildren;
+    return tests;
   }
 
-  public static boolean containsValue(List<Token> list, String value) {
-    for (Token currentToken : list) {
-      if (currentToken.getValue().equals(value)) {
-        return true;
+  /**
+   * Children of type <code>ATOM</code> or <code>COMPARISON</code> of the <code>TEST</code> node which the given node stands for.
+   */
+  public static List<AstNode> atomsAndComparisons(AstNode test) {
+    List<AstNode> result = new ArrayList<>();
+    if (test.is(PythonGrammar.TEST)) {
+      for (AstNode child : test.getChildren(PythonGrammar.ATOM, PythonGrammar.COMPARISON)) {
+        if (!PythonAstNodes.standsFor(child, PythonGrammar.TEST)) {
+          result.add(child);
+        }
       }
+    } else if (test.is(PythonGrammar.ATOM, PythonGrammar.COMPARISON)) {
+      result.add(test);
     }
-    return false;
+    return result;
   }
 }
@@ -24,13 +24,13 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonKeyword;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
-import org.sonar.sslr.ast.AstSelect;
 
 import java.util.List;
 
@@ -68,13 +68,11 @@ public class CollapsibleIfStatementsCheck extends SquidCheck<Grammar> {
   }
 
   private AstNode singleIfChild(AstNode suite) {
-    List<AstNode> statements = suite.getChildren(PythonGrammar.STATEMENT);
+    List<AstNode> statements = PythonAstNodes.statements(suite);
     if (statements.size() == 1) {
-      AstSelect nestedIf = statements.get(0).select()
-        .children(PythonGrammar.COMPOUND_STMT)
-        .children(PythonGrammar.IF_STMT);
-      if (nestedIf.size() == 1) {
-        return nestedIf.get(0);
+      AstNode nestedIf = PythonAstNodes.compoundStatement(statements.get(0));
+      if (nestedIf != null && nestedIf.is(PythonGrammar.IF_STMT)) {
+        return nestedIf;
       }
     }
     return null;
@@ -23,6 +23,7 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
+import org.sonar.python.TokenVisitor;
 import org.sonar.squidbridge.annotations.NoSqale;
 import org.sonar.squidbridge.annotations.RuleTemplate;
 import org.sonar.squidbridge.checks.AbstractCommentRegularExpressionCheck;
@@ -34,7 +35,7 @@ import org.sonar.squidbridge.checks.AbstractCommentRegularExpressionCheck;
 )
 @NoSqale
 @RuleTemplate
-public class CommentRegularExpressionCheck extends AbstractCommentRegularExpressionCheck<Grammar> {
+public class CommentRegularExpressionCheck extends AbstractCommentRegularExpressionCheck<Grammar> implements TokenVisitor {
   public static final String CHECK_KEY = "CommentRegularExpression";
   private static final String DEFAULT_REGULAR_EXPRESSION = "";
   private static final String DEFAULT_MESSAGE = "The regular expression matches this comment";
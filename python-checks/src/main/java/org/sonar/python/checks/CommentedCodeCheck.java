@@ -20,18 +20,26 @@
 package org.sonar.python.checks;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
 import com.sonar.sslr.api.AstAndTokenVisitor;
 import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
 import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
 import com.sonar.sslr.impl.Parser;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.api.PythonKeyword;
+import org.sonar.python.api.PythonPunctuator;
 import org.sonar.python.api.PythonTokenType;
+import org.sonar.python.lexer.PythonLexer;
 import org.sonar.python.parser.PythonParser;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -39,8 +47,11 @@ import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
 
 import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Rule(
     key = CommentedCodeCheck.CHECK_KEY,
@@ -54,7 +65,15 @@ import java.util.List;
 public class CommentedCodeCheck extends SquidCheck<Grammar> implements AstAndTokenVisitor {
   public static final String CHECK_KEY = "S125";
   public static final String MESSAGE = "Remove this commented out code.";
-  private static final Parser<Grammar> parser = PythonParser.create(new PythonConfiguration(Charsets.UTF_8));
+  private static final int MAX_CACHED_VERDICTS = 1000;
+  private static final Set<String> PUNCTUATORS_STARTING_STATEMENT = ImmutableSet.of("(", "[", "{", "`", "+", "-", "~", "*", "@", ".");
+  private static final Set<String> KEYWORDS_NOT_STARTING_STATEMENT = ImmutableSet.of("and", "as", "elif", "else", "except", "finally", "in", "is", "or");
+  private static final Set<String> NAMES_FOLLOWED_BY_NAME = ImmutableSet.of("print", "exec");
+
+  private final PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+  private final Lexer lexer = PythonLexer.create(conf);
+  private final Parser<Grammar> parser = PythonParser.create(conf);
+  private final Map<String, Boolean> verdicts = new VerdictCache();
 
   @Override
   public void init() {
@@ -138,9 +157,31 @@ public class CommentedCodeCheck extends SquidCheck<Grammar> implements AstAndTok
     return text.matches("\\s*");
   }
 
+  /**
+   * Verdicts are cached for the whole analysis, so that the comments repeated across files, like licence headers,
+   * are parsed only once.
+   */
   private boolean isTextParsedAsCode(String text) {
+    Boolean verdict = verdicts.get(text);
+    if (verdict == null) {
+      verdict = parsesAsCode(text);
+      verdicts.put(text, verdict);
+    }
+    return verdict;
+  }
+
+  private boolean parsesAsCode(String text) {
+    List<Token> tokens;
+    try {
+      tokens = lexer.lex(text);
+    } catch (Exception e) {
+      return false;
+    }
+    if (isProse(tokens)) {
+      return false;
+    }
     try {
-      AstNode astNode = parser.parse(text);
+      AstNode astNode = parser.parse(tokens);
       List<AstNode> expressions = astNode.getDescendants(PythonGrammar.EXPRESSION_STMT);
       return astNode.getNumberOfChildren() > 1 && !isSimpleExpression(expressions);
     } catch (Exception e) {
@@ -148,8 +189,40 @@ public class CommentedCodeCheck extends SquidCheck<Grammar> implements AstAndTok
     }
   }
 
+  /**
+   * Rejects without parsing the tokens which cannot be parsed anyway: those which cannot start a statement, and two
+   * names in a row, as in most sentences.
+   */
+  private static boolean isProse(List<Token> tokens) {
+    Token first = null;
+    for (Token token : tokens) {
+      if (token.getType() != PythonTokenType.NEWLINE) {
+        first = token;
+        break;
+      }
+    }
+    if (first == null || cannotStartStatement(first)) {
+      return first != null;
+    }
+    for (int i = 1; i < tokens.size(); i++) {
+      Token previous = tokens.get(i - 1);
+      if (previous.getType() == GenericTokenType.IDENTIFIER && tokens.get(i).getType() == GenericTokenType.IDENTIFIER
+        && !NAMES_FOLLOWED_BY_NAME.contains(previous.getValue())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean cannotStartStatement(Token token) {
+    TokenType type = token.getType();
+    return (type instanceof PythonPunctuator && !PUNCTUATORS_STARTING_STATEMENT.contains(token.getValue()))
+      || (type instanceof PythonKeyword && KEYWORDS_NOT_STARTING_STATEMENT.contains(token.getValue()));
+  }
+
   private boolean isSimpleExpression(List<AstNode> expressions) {
-    return expressions.size() == 1 && expressions.get(0).getNumberOfChildren() == 1 && expressions.get(0).getFirstChild().is(PythonGrammar.TESTLIST_STAR_EXPR);
+    return expressions.size() == 1 && expressions.get(0).getNumberOfChildren() == 1
+      && PythonAstNodes.standsFor(expressions.get(0).getFirstChild(), PythonGrammar.TESTLIST_STAR_EXPR);
   }
 
   private List<List<Trivia>> groupTrivias(Token token) {
@@ -178,4 +251,20 @@ public class CommentedCodeCheck extends SquidCheck<Grammar> implements AstAndTok
     }
     return newTriviaGroup;
   }
+
+  private static class VerdictCache extends LinkedHashMap<String, Boolean> {
+
+    private static final long serialVersionUID = 1L;
+
+    VerdictCache() {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > MAX_CACHED_VERDICTS;
+    }
+
+  }
+
 }
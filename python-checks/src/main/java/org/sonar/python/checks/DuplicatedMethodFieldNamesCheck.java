@@ -26,17 +26,21 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.semantic.Scope;
+import org.sonar.python.semantic.SymbolTable;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
-import org.sonar.sslr.ast.AstSelect;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Rule(
     key = DuplicatedMethodFieldNamesCheck.CHECK_KEY,
@@ -88,45 +92,52 @@ public class DuplicatedMethodFieldNamesCheck extends SquidCheck<Grammar> {
 
   @Override
   public void visitNode(AstNode astNode) {
-    List<Token> fieldNames = new NewSymbolsAnalyzer().getClassFields(astNode);
-    List<Token> methodNames = getFieldNameTokens(astNode);
-    lookForDuplications(fieldNames, methodNames);
+    Scope classScope = SymbolTable.of(astNode).getScope(astNode);
+    lookForDuplications(classScope.getFields().values(), classScope.getMethodNames());
   }
 
-  private List<Token> getFieldNameTokens(AstNode astNode) {
-    List<Token> methodNames = new LinkedList<>();
-    AstSelect funcDefSelect = astNode.select()
-        .children(PythonGrammar.SUITE)
-        .children(PythonGrammar.STATEMENT)
-        .children(PythonGrammar.COMPOUND_STMT)
-        .children(PythonGrammar.FUNCDEF);
-    for (AstNode node : funcDefSelect) {
-      methodNames.add(node.getFirstChild(PythonGrammar.FUNCNAME).getToken());
-    }
-    return methodNames;
-  }
-
-  private void lookForDuplications(List<Token> fieldNames, List<Token> methodNames) {
+  /**
+   * Names are compared with the previous names which are the same ignoring case only.
+   */
+  private void lookForDuplications(Collection<Token> fieldNames, List<Token> methodNames) {
     List<TokenWithTypeInfo> allTokensWithInfo = mergeLists(fieldNames, methodNames);
     Collections.sort(allTokensWithInfo, new LineComparator());
-    for (int i = 1; i < allTokensWithInfo.size(); i++){
-      for (int j = i-1; j >= 0; j--){
-        TokenWithTypeInfo token1 = allTokensWithInfo.get(j);
-        TokenWithTypeInfo token2 = allTokensWithInfo.get(i);
-        if (differOnlyByCapitalization(token1.getValue(), token2.getValue())){
-          getContext().createLineViolation(this, getMessage(token1, token2), token2.getLine());
+    Map<String, List<TokenWithTypeInfo>> previousTokens = new HashMap<>();
+    for (TokenWithTypeInfo token : allTokensWithInfo) {
+      String key = caseInsensitiveKey(token.getValue());
+      List<TokenWithTypeInfo> sameNames = previousTokens.get(key);
+      if (sameNames == null) {
+        sameNames = new ArrayList<>();
+        previousTokens.put(key, sameNames);
+      }
+      for (int j = sameNames.size() - 1; j >= 0; j--) {
+        TokenWithTypeInfo previous = sameNames.get(j);
+        if (differOnlyByCapitalization(previous.getValue(), token.getValue())) {
+          getContext().createLineViolation(this, getMessage(previous, token), token.getLine());
           break;
         }
       }
+      sameNames.add(token);
+    }
+  }
+
+  /**
+   * Same key for the names which are equal ignoring case, as defined by {@link String#equalsIgnoreCase(String)}.
+   */
+  private static String caseInsensitiveKey(String name) {
+    char[] chars = name.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
     }
+    return new String(chars);
   }
 
   private boolean differOnlyByCapitalization(String name1, String name2) {
     return name1.equalsIgnoreCase(name2) && !name1.equals(name2);
   }
 
-  private List<TokenWithTypeInfo> mergeLists(List<Token> fieldNames, List<Token> methodNames) {
-    List<TokenWithTypeInfo> allTokensWithInfo = new LinkedList<>();
+  private List<TokenWithTypeInfo> mergeLists(Collection<Token> fieldNames, List<Token> methodNames) {
+    List<TokenWithTypeInfo> allTokensWithInfo = new ArrayList<>();
     for (Token token : fieldNames){
       allTokensWithInfo.add(new TokenWithTypeInfo(token, "field"));
     }
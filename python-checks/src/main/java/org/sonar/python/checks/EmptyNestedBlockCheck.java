@@ -20,6 +20,7 @@
 package org.sonar.python.checks;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.api.Token;
@@ -27,12 +28,15 @@ import com.sonar.sslr.api.Trivia;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
-import org.sonar.sslr.ast.AstSelect;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Rule(
     key = EmptyNestedBlockCheck.CHECK_KEY,
@@ -59,22 +63,24 @@ public class EmptyNestedBlockCheck extends SquidCheck<Grammar> {
       return;
     }
 
-    AstSelect suite = suiteNode.select();
-    AstSelect stmtLists = suite.children(PythonGrammar.STMT_LIST);
-    if (stmtLists.isEmpty()) {
-      AstSelect statementSelect = suite.children(PythonGrammar.STATEMENT);
-      if (statementSelect.children(PythonGrammar.COMPOUND_STMT).isNotEmpty()) {
-        return;
+    List<AstNode> statements = PythonAstNodes.statements(suiteNode);
+    List<AstNode> simpleStatements = new ArrayList<>();
+    AstNode firstStatement;
+    if (statements.isEmpty()) {
+      simpleStatements.addAll(PythonAstNodes.simpleStatements(suiteNode));
+      firstStatement = suiteNode.getFirstChild();
+    } else {
+      for (AstNode statement : statements) {
+        if (PythonAstNodes.compoundStatement(statement) != null) {
+          return;
+        }
+        simpleStatements.addAll(PythonAstNodes.simpleStatements(statement));
       }
-      stmtLists = statementSelect.children(PythonGrammar.STMT_LIST);
+      firstStatement = statements.get(0);
     }
 
-    AstSelect nonPassSimpleStatements = stmtLists
-      .children(PythonGrammar.SIMPLE_STMT)
-      .children()
-      .filter(NOT_PASS_PREDICATE);
-    if (nonPassSimpleStatements.isEmpty() && !containsComment(suiteNode)) {
-      getContext().createLineViolation(this, MESSAGE, stmtLists.get(0));
+    if (!Iterables.any(simpleStatements, NOT_PASS_PREDICATE) && !containsComment(suiteNode)) {
+      getContext().createLineViolation(this, MESSAGE, firstStatement);
     }
   }
 
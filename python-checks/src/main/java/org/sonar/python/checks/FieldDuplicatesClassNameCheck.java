@@ -26,12 +26,13 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.semantic.SymbolTable;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
 
-import java.util.List;
+import java.util.Collection;
 
 @Rule(
     key = FieldDuplicatesClassNameCheck.CHECK_KEY,
@@ -56,7 +57,7 @@ public class FieldDuplicatesClassNameCheck extends SquidCheck<Grammar> {
   @Override
   public void visitNode(AstNode astNode) {
     if (CheckUtils.classHasNoInheritance(astNode)) {
-      List<Token> allFields = new NewSymbolsAnalyzer().getClassFields(astNode);
+      Collection<Token> allFields = SymbolTable.of(astNode).getScope(astNode).getFields().values();
       String className = astNode.getFirstChild(PythonGrammar.CLASSNAME).getTokenValue();
 
       for (Token name : allFields) {
@@ -27,12 +27,13 @@ import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.semantic.SymbolTable;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
 
-import java.util.List;
+import java.util.Collection;
 import java.util.regex.Pattern;
 
 @Rule(
@@ -69,12 +70,12 @@ public class FieldNameCheck extends SquidCheck<Grammar> {
   @Override
   public void visitNode(AstNode astNode) {
     if (CheckUtils.classHasNoInheritance(astNode)) {
-      List<Token> allFields = new NewSymbolsAnalyzer().getClassFields(astNode);
+      Collection<Token> allFields = SymbolTable.of(astNode).getScope(astNode).getFields().values();
       checkNames(allFields);
     }
   }
 
-  private void checkNames(List<Token> varNames) {
+  private void checkNames(Collection<Token> varNames) {
     for (Token name : varNames) {
       if (!constantPattern.matcher(name.getValue()).matches()) {
         checkName(name);
@@ -27,6 +27,7 @@ import com.sonar.sslr.api.Trivia;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.TokenVisitor;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
@@ -42,7 +43,7 @@ import java.util.regex.Pattern;
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.INSTRUCTION_RELIABILITY)
 @SqaleConstantRemediation("20min")
 @ActivatedByDefault
-public class FixmeCommentCheck extends SquidCheck<Grammar> implements AstAndTokenVisitor {
+public class FixmeCommentCheck extends SquidCheck<Grammar> implements AstAndTokenVisitor, TokenVisitor {
   public static final String CHECK_KEY = "S1134";
 
   private static final String FIXME_COMMENT_PATTERN = "^#[ ]*fixme.*";
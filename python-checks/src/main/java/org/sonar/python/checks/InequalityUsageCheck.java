@@ -19,11 +19,13 @@
  */
 package org.sonar.python.checks;
 
-import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstAndTokenVisitor;
 import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.TokenVisitor;
 import org.sonar.python.api.PythonPunctuator;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -39,18 +41,15 @@ import org.sonar.squidbridge.checks.SquidCheck;
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.LANGUAGE_RELATED_PORTABILITY)
 @SqaleConstantRemediation("5min")
 @ActivatedByDefault
-public class InequalityUsageCheck extends SquidCheck<Grammar> {
+public class InequalityUsageCheck extends SquidCheck<Grammar> implements AstAndTokenVisitor, TokenVisitor {
 
   public static final String CHECK_KEY = "InequalityUsage";
 
   @Override
-  public void init() {
-    subscribeTo(PythonPunctuator.NOT_EQU2);
-  }
-
-  @Override
-  public void visitNode(AstNode astNode) {
-    getContext().createLineViolation(this, "Replace \"<>\" by \"!=\".", astNode);
+  public void visitToken(Token token) {
+    if (token.getType() == PythonPunctuator.NOT_EQU2) {
+      getContext().createLineViolation(this, "Replace \"<>\" by \"!=\".", token);
+    }
   }
 
 }
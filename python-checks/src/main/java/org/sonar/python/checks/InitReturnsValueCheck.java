@@ -24,6 +24,7 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonKeyword;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
@@ -59,18 +60,20 @@ public class InitReturnsValueCheck extends SquidCheck<Grammar> {
     if (!"__init__".equals(node.getFirstChild(PythonGrammar.FUNCNAME).getTokenValue())){
       return;
     }
-    List<AstNode> returnYieldStatements = node.getDescendants(PythonGrammar.YIELD_STMT, PythonGrammar.RETURN_STMT);
+    List<AstNode> returnYieldStatements = CheckUtils.functionDescendants(node, PythonGrammar.YIELD_STMT, PythonGrammar.RETURN_STMT);
     for (AstNode returnYieldStatement : returnYieldStatements){
-      if (CheckUtils.insideFunction(returnYieldStatement, node) && !returnReturnNone(returnYieldStatement)){
+      if (!returnReturnNone(returnYieldStatement)){
         raiseIssue(returnYieldStatement);
       }
     }
   }
 
   private boolean returnReturnNone(AstNode stmt) {
-    return stmt.is(PythonGrammar.RETURN_STMT)
-        && (stmt.getFirstChild(PythonGrammar.TESTLIST) == null
-        || stmt.getFirstChild(PythonGrammar.TESTLIST).getToken().getValue().equals(PythonKeyword.NONE.getValue()));
+    if (!stmt.is(PythonGrammar.RETURN_STMT)) {
+      return false;
+    }
+    AstNode returnValue = PythonAstNodes.firstChild(stmt, PythonGrammar.TESTLIST);
+    return returnValue == null || returnValue.getToken().getValue().equals(PythonKeyword.NONE.getValue());
   }
 
   private void raiseIssue(AstNode node) {
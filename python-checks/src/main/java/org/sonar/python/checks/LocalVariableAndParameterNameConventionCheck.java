@@ -20,7 +20,6 @@
 package org.sonar.python.checks;
 
 import com.sonar.sslr.api.AstNode;
-import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.api.Token;
 import org.sonar.api.server.rule.RulesDefinition;
@@ -28,13 +27,15 @@ import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.semantic.Scope;
+import org.sonar.python.semantic.SymbolTable;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 @Rule(
@@ -72,76 +73,32 @@ public class LocalVariableAndParameterNameConventionCheck extends SquidCheck<Gra
 
   @Override
   public void visitNode(AstNode astNode) {
-    List<Token> parameters = visitParameters(astNode);
-    visitLocalVariables(astNode, parameters);
-  }
-
-  private void visitLocalVariables(AstNode funcDef, List<Token> parameters) {
-    AstNode suite = funcDef.getFirstChild(PythonGrammar.SUITE);
-    if (suite != null) {
-      List<AstNode> expressions = suite.getDescendants(PythonGrammar.EXPRESSION_STMT);
-      List<Token> varNames = new LinkedList<>();
-      List<Token> forCounterNames = getForCounterNames(suite);
-      for (AstNode expression : expressions) {
-        if (CheckUtils.isAssignmentExpression(expression) && CheckUtils.insideFunction(expression, funcDef)) {
-          varNames = new NewSymbolsAnalyzer().getVariablesFromLongAssignmentExpression(varNames, expression);
-        }
-      }
-      for (int i = 0; i < varNames.size(); i++){
-        if (CheckUtils.containsValue(parameters, varNames.get(i).getValue())||CheckUtils.containsValue(forCounterNames, varNames.get(i).getValue())){
-          varNames.remove(i);
-        }
-      }
-      checkNames(varNames, forCounterNames);
+    Scope functionScope = SymbolTable.of(astNode).getScope(astNode);
+    Set<String> parametersAndCounters = new HashSet<>();
+    for (Token parameter : functionScope.getParameters()) {
+      parametersAndCounters.add(parameter.getValue());
+      checkName(parameter, PARAMETER);
     }
+    for (Token counter : functionScope.getForLoopCounters()) {
+      parametersAndCounters.add(counter.getValue());
+    }
+    checkLocalVariables(functionScope, parametersAndCounters);
   }
 
-  private void checkNames(List<Token> varNames, List<Token> forCounterNames) {
-    for (Token name : varNames) {
-      if (!constantPattern.matcher(name.getValue()).matches()) {
+  private void checkLocalVariables(Scope functionScope, Set<String> parametersAndCounters) {
+    for (Token name : functionScope.getAssignedNames().values()) {
+      if (!parametersAndCounters.contains(name.getValue()) && !constantPattern.matcher(name.getValue()).matches()) {
         checkName(name, LOCAL_VAR);
       }
     }
 
-    for (Token name : forCounterNames) {
+    for (Token name : functionScope.getForLoopCounters()) {
       if (name.getValue().length() > 1) {
         checkName(name, LOCAL_VAR);
       }
     }
   }
 
-  private List<Token> getForCounterNames(AstNode suite) {
-    List<AstNode> forStatements = suite.getDescendants(PythonGrammar.FOR_STMT);
-    List<Token> result = new LinkedList<>();
-    for (AstNode forStatement : forStatements){
-      AstNode counters = forStatement.getFirstChild(PythonGrammar.EXPRLIST);
-      for (AstNode name : counters.getDescendants(PythonGrammar.NAME)){
-        Token token = name.getToken();
-        if (token.getType().equals(GenericTokenType.IDENTIFIER)){
-          result.add(token);
-        }
-      }
-    }
-    return result;
-  }
-
-  private List<Token> visitParameters(AstNode astNode) {
-    List<Token> parameterTokens = new LinkedList<>();
-    AstNode varArgList = astNode.getFirstChild(PythonGrammar.TYPEDARGSLIST);
-    if (varArgList != null) {
-      List<AstNode> funcParameters = varArgList.getDescendants(PythonGrammar.TFPDEF);
-      funcParameters.addAll(varArgList.getChildren(PythonGrammar.NAME));
-      for (AstNode parameter : funcParameters) {
-        Token token = parameter.getToken();
-        if (token.getType().equals(GenericTokenType.IDENTIFIER)) {
-          parameterTokens.add(token);
-          checkName(token, PARAMETER);
-        }
-      }
-    }
-    return parameterTokens;
-  }
-
   private void checkName(Token token, String type) {
     String name = token.getValue();
     if (!pattern.matcher(name).matches()) {
@@ -19,11 +19,13 @@
  */
 package org.sonar.python.checks;
 
-import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstAndTokenVisitor;
 import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.TokenVisitor;
 import org.sonar.python.api.PythonTokenType;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -39,20 +41,17 @@ import org.sonar.squidbridge.checks.SquidCheck;
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.READABILITY)
 @SqaleConstantRemediation("2min")
 @ActivatedByDefault
-public class LongIntegerWithLowercaseSuffixUsageCheck extends SquidCheck<Grammar> {
+public class LongIntegerWithLowercaseSuffixUsageCheck extends SquidCheck<Grammar> implements AstAndTokenVisitor, TokenVisitor {
 
   public static final String CHECK_KEY = "LongIntegerWithLowercaseSuffixUsage";
 
   @Override
-  public void init() {
-    subscribeTo(PythonTokenType.NUMBER);
-  }
-
-  @Override
-  public void visitNode(AstNode astNode) {
-    String value = astNode.getTokenValue();
-    if (value.charAt(value.length() - 1) == 'l') {
-      getContext().createLineViolation(this, "Replace suffix in long integers from lower case \"l\" to upper case \"L\".", astNode);
+  public void visitToken(Token token) {
+    if (token.getType() == PythonTokenType.NUMBER) {
+      String value = token.getValue();
+      if (value.charAt(value.length() - 1) == 'l') {
+        getContext().createLineViolation(this, "Replace suffix in long integers from lower case \"l\" to upper case \"L\".", token);
+      }
     }
   }
 
@@ -24,8 +24,10 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonTokenType;
+import org.sonar.python.semantic.SymbolTable;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
@@ -57,19 +59,20 @@ public class MethodShouldBeStaticCheck extends SquidCheck<Grammar> {
   public void visitNode(AstNode node) {
     if (CheckUtils.isMethodDefinition(node) && !alreadyStaticMethod(node) && hasValuableCode(node)){
       String self = getFirstArgument(node);
-      if (self != null && !isUsed(node, self)){
+      if (self != null && !SymbolTable.of(node).getScope(node).usesName(self)){
         getContext().createLineViolation(this, MESSAGE, node.getFirstChild(PythonGrammar.FUNCNAME));
       }
     }
   }
 
   private boolean hasValuableCode(AstNode funcDef) {
-    AstNode statementList = funcDef.getFirstChild(PythonGrammar.SUITE).getFirstChild(PythonGrammar.STMT_LIST);
-    if (statementList != null && statementList.getChildren(PythonGrammar.SIMPLE_STMT).size() == 1) {
-      return !statementList.getFirstChild(PythonGrammar.SIMPLE_STMT).getFirstChild().is(PythonGrammar.PASS_STMT);
+    AstNode suite = funcDef.getFirstChild(PythonGrammar.SUITE);
+    List<AstNode> simpleStatements = PythonAstNodes.simpleStatements(suite);
+    if (simpleStatements.size() == 1) {
+      return !simpleStatements.get(0).is(PythonGrammar.PASS_STMT);
     }
 
-    List<AstNode> statements = funcDef.getFirstChild(PythonGrammar.SUITE).getChildren(PythonGrammar.STATEMENT);
+    List<AstNode> statements = PythonAstNodes.statements(suite);
     if (statements.size() == 1) {
       return !isDocstringOrPass(statements.get(0));
     }
@@ -79,21 +82,15 @@ public class MethodShouldBeStaticCheck extends SquidCheck<Grammar> {
   }
 
   private boolean isDocstringOrPass(AstNode statement) {
-    return statement.getFirstDescendant(PythonGrammar.PASS_STMT) != null || statement.getToken().getType().equals(PythonTokenType.STRING);
+    return containsPass(statement) || statement.getToken().getType().equals(PythonTokenType.STRING);
   }
 
   private boolean isDocstringAndPass(AstNode statement1, AstNode statement2) {
-    return statement1.getToken().getType().equals(PythonTokenType.STRING) && statement2.getFirstDescendant(PythonGrammar.PASS_STMT) != null;
+    return statement1.getToken().getType().equals(PythonTokenType.STRING) && containsPass(statement2);
   }
 
-  private boolean isUsed(AstNode funcDef, String self) {
-    List<AstNode> names = funcDef.getFirstChild(PythonGrammar.SUITE).getDescendants(PythonGrammar.NAME);
-    for (AstNode name : names){
-      if (name.getTokenValue().equals(self)){
-        return true;
-      }
-    }
-    return false;
+  private static boolean containsPass(AstNode statement) {
+    return statement.is(PythonGrammar.PASS_STMT) || statement.getFirstDescendant(PythonGrammar.PASS_STMT) != null;
   }
 
   private String getFirstArgument(AstNode funcDef) {
@@ -25,6 +25,7 @@ import com.sonar.sslr.api.Token;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonTokenType;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -32,6 +33,7 @@ import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
 
 import javax.annotation.Nullable;
+import java.util.List;
 import java.util.regex.Pattern;
 
 @Rule(
@@ -68,7 +70,7 @@ public class MissingDocstringCheck extends SquidCheck<Grammar> {
   }
 
   private void visitModule(AstNode astNode) {
-    AstNode firstStatement = astNode.getFirstChild(PythonGrammar.STATEMENT);
+    AstNode firstStatement = PythonAstNodes.firstChild(astNode, PythonGrammar.STATEMENT);
     AstNode firstSimpleStmt = null;
     if (firstStatement != null) {
       firstSimpleStmt = firstSimpleStmt(firstStatement);
@@ -91,12 +93,10 @@ public class MissingDocstringCheck extends SquidCheck<Grammar> {
 
   private void checkFirstSuite(AstNode astNode, String typeName) {
     AstNode suite = astNode.getFirstChild(PythonGrammar.SUITE);
-    AstNode firstStatement = suite.getFirstChild(PythonGrammar.STATEMENT);
+    AstNode firstStatement = PythonAstNodes.firstChild(suite, PythonGrammar.STATEMENT);
     AstNode firstSimpleStmt;
     if (firstStatement == null) {
-      firstSimpleStmt = suite
-        .getFirstChild(PythonGrammar.STMT_LIST)
-        .getFirstChild(PythonGrammar.SIMPLE_STMT);
+      firstSimpleStmt = firstSimpleStmt(suite);
     } else {
       firstSimpleStmt = firstSimpleStmt(firstStatement);
     }
@@ -128,12 +128,10 @@ public class MissingDocstringCheck extends SquidCheck<Grammar> {
     }
   }
 
-  private AstNode firstSimpleStmt(AstNode statement) {
-    AstNode stmtList = statement.getFirstChild(PythonGrammar.STMT_LIST);
-    if (stmtList != null) {
-      return stmtList.getFirstChild(PythonGrammar.SIMPLE_STMT);
-    }
-    return null;
+  @Nullable
+  private static AstNode firstSimpleStmt(AstNode statementOrSuite) {
+    List<AstNode> simpleStatements = PythonAstNodes.simpleStatements(statementOrSuite);
+    return simpleStatements.isEmpty() ? null : simpleStatements.get(0);
   }
 
 }
@@ -19,21 +19,17 @@
  */
 package org.sonar.python.checks;
 
-import com.google.common.io.Files;
-import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
-import org.sonar.python.CharsetAwareVisitor;
+import org.sonar.python.LineVisitor;
+import org.sonar.python.SourceText;
+import org.sonar.python.TokenVisitor;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
 
-import javax.annotation.Nullable;
-import java.io.IOException;
-import java.nio.charset.Charset;
-
 @Rule(
     key = MissingNewlineAtEndOfFileCheck.CHECK_KEY,
     priority = Priority.MINOR,
@@ -42,25 +38,16 @@ import java.nio.charset.Charset;
 )
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.READABILITY)
 @SqaleConstantRemediation("1min")
-public class MissingNewlineAtEndOfFileCheck extends SquidCheck<Grammar> implements CharsetAwareVisitor {
+public class MissingNewlineAtEndOfFileCheck extends SquidCheck<Grammar> implements LineVisitor, TokenVisitor {
   public static final String CHECK_KEY = "S113";
   public static final String MESSAGE = "Add a new line at the end of this file \"%s\".";
-  private Charset charset;
 
+  /**
+   * The last line is empty when the file ends with a line terminator, or when the file is empty.
+   */
   @Override
-  public void setCharset(Charset charset) {
-    this.charset = charset;
-  }
-
-  @Override
-  public void visitFile(@Nullable AstNode astNode) {
-    String fileContent;
-    try {
-      fileContent = Files.toString(getContext().getFile(), charset);
-    } catch (IOException e) {
-      throw new IllegalStateException("Could not read " + getContext().getFile(), e);
-    }
-    if (!fileContent.endsWith("\n") && !fileContent.endsWith("\r")){
+  public void visitLine(SourceText sourceText, int line) {
+    if (line == sourceText.getNumberOfLines() && (sourceText.lineLength(line) > 0 || sourceText.getText().isEmpty())) {
       getContext().createFileViolation(this, String.format(MESSAGE, getContext().getFile().getName()));
     }
   }
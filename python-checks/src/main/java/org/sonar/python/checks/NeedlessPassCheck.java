@@ -24,13 +24,13 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonTokenType;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
-import org.sonar.sslr.ast.AstSelect;
 
 import java.util.List;
 
@@ -57,13 +57,13 @@ public class NeedlessPassCheck extends SquidCheck<Grammar> {
   @Override
   public void visitNode(AstNode node) {
     AstNode suite = node.getFirstAncestor(PythonGrammar.SUITE);
-    List<AstNode> statements = suite.getChildren(PythonGrammar.STATEMENT);
+    List<AstNode> statements = PythonAstNodes.statements(suite);
     if (statements.size() > 1) {
       if (!docstringException(statements)) {
         raiseIssue(node);
       }
     } else {
-      visitOneOrZeroStatement(node, suite, statements.size());
+      visitOneOrZeroStatement(node, suite, statements);
     }
   }
 
@@ -71,17 +71,12 @@ public class NeedlessPassCheck extends SquidCheck<Grammar> {
     return statements.size() == 2 && statements.get(0).getToken().getType().equals(PythonTokenType.STRING);
   }
 
-  private void visitOneOrZeroStatement(AstNode node, AstNode suite, int statementNumber) {
-    AstSelect simpleStatements;
-    if (statementNumber == 1) {
-      simpleStatements = suite.select()
-          .children(PythonGrammar.STATEMENT)
-          .children(PythonGrammar.STMT_LIST)
-          .children(PythonGrammar.SIMPLE_STMT);
+  private void visitOneOrZeroStatement(AstNode node, AstNode suite, List<AstNode> statements) {
+    List<AstNode> simpleStatements;
+    if (statements.size() == 1) {
+      simpleStatements = PythonAstNodes.simpleStatements(statements.get(0));
     } else {
-      simpleStatements = suite.select()
-          .children(PythonGrammar.STMT_LIST)
-          .children(PythonGrammar.SIMPLE_STMT);
+      simpleStatements = PythonAstNodes.simpleStatements(suite);
     }
     if (simpleStatements.size() > 1) {
       raiseIssue(node);
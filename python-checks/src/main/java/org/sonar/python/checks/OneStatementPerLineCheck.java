@@ -25,6 +25,7 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -51,7 +52,8 @@ public class OneStatementPerLineCheck extends SquidCheck<Grammar> {
 
   @Override
   public void init() {
-    subscribeTo(PythonGrammar.SIMPLE_STMT, PythonGrammar.SUITE);
+    subscribeTo(PythonAstNodes.simpleStatementTypes());
+    subscribeTo(PythonGrammar.SUITE);
   }
 
   @Override
@@ -24,6 +24,7 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -54,13 +55,11 @@ public class ReturnAndYieldInOneFunctionCheck extends SquidCheck<Grammar> {
 
   @Override
   public void visitNode(AstNode node) {
-    List<AstNode> returnStatements = node.getDescendants(PythonGrammar.RETURN_STMT);
-    List<AstNode> yieldStatements = node.getDescendants(PythonGrammar.YIELD_STMT);
-    if (yieldStatements.isEmpty() || allInNestedFunction(yieldStatements, node)){
+    if (CheckUtils.functionDescendants(node, PythonGrammar.YIELD_STMT).isEmpty()){
       return;
     }
-    for (AstNode returnStatement : returnStatements){
-      if (returnHasArgument(returnStatement) && CheckUtils.insideFunction(returnStatement, node)){
+    for (AstNode returnStatement : CheckUtils.functionDescendants(node, PythonGrammar.RETURN_STMT)){
+      if (returnHasArgument(returnStatement)){
         getContext().createLineViolation(this, MESSAGE, node);
         return;
       }
@@ -68,16 +67,7 @@ public class ReturnAndYieldInOneFunctionCheck extends SquidCheck<Grammar> {
   }
 
   private boolean returnHasArgument(AstNode returnStatement) {
-    return returnStatement.getFirstChild(PythonGrammar.TESTLIST) != null;
-  }
-
-  private boolean allInNestedFunction(List<AstNode> statements, AstNode func) {
-    for (AstNode statement : statements){
-      if (CheckUtils.insideFunction(statement, func)){
-        return false;
-      }
-    }
-    return true;
+    return PythonAstNodes.firstChild(returnStatement, PythonGrammar.TESTLIST) != null;
   }
 }
 
@@ -19,22 +19,24 @@
  */
 package org.sonar.python.checks;
 
+import com.google.common.collect.Sets;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonKeyword;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
-import org.sonar.sslr.ast.AstSelect;
 
 import javax.annotation.Nullable;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Rule(
     key = SameBranchCheck.CHECK_KEY,
@@ -49,7 +51,8 @@ public class SameBranchCheck extends SquidCheck<Grammar> {
   public static final String CHECK_KEY = "S1871";
   public static final String MESSAGE = "Either merge this branch with the identical one on line \"%s\" or change one of the implementations.";
 
-  private List<AstNode> ignoreList;
+  private Set<AstNode> ignored;
+  private SubtreeHashes subtreeHashes;
 
   @Override
   public void init() {
@@ -58,12 +61,13 @@ public class SameBranchCheck extends SquidCheck<Grammar> {
 
   @Override
   public void visitFile(@Nullable AstNode astNode) {
-    ignoreList = new LinkedList<>();
+    ignored = Sets.newIdentityHashSet();
+    subtreeHashes = new SubtreeHashes();
   }
 
   @Override
   public void visitNode(AstNode node) {
-    if (ignoreList.contains(node)) {
+    if (ignored.contains(node)) {
       return;
     }
     List<AstNode> branches = getBranchesToCompare(node);
@@ -83,35 +87,24 @@ public class SameBranchCheck extends SquidCheck<Grammar> {
   private void lookForElseIfs(List<AstNode> branches, AstNode suite) {
     AstNode singleIfChild = singleIfChild(suite);
     if (singleIfChild != null) {
-      ignoreList.add(singleIfChild);
+      ignored.add(singleIfChild);
       branches.addAll(getBranchesToCompare(singleIfChild));
     }
   }
 
   private void findSameBranches(List<AstNode> branches) {
-    for (int i = 1; i < branches.size(); i++) {
-      checkBranch(branches, i);
-    }
-  }
-
-  private void checkBranch(List<AstNode> branches, int index) {
-    for (int j = 0; j < index; j++) {
-      if (CheckUtils.equalNodes(branches.get(j), branches.get(index))) {
-        String message = String.format(MESSAGE, branches.get(j).getToken().getLine() + 1);
-        getContext().createLineViolation(this, message, branches.get(index).getToken().getLine() + 1);
-        return;
-      }
+    for (Map.Entry<AstNode, AstNode> duplicate : subtreeHashes.duplicates(branches).entrySet()) {
+      String message = String.format(MESSAGE, duplicate.getValue().getToken().getLine() + 1);
+      getContext().createLineViolation(this, message, duplicate.getKey().getToken().getLine() + 1);
     }
   }
 
   private AstNode singleIfChild(AstNode suite) {
-    List<AstNode> statements = suite.getChildren(PythonGrammar.STATEMENT);
+    List<AstNode> statements = PythonAstNodes.statements(suite);
     if (statements.size() == 1) {
-      AstSelect nestedIf = statements.get(0).select()
-          .children(PythonGrammar.COMPOUND_STMT)
-          .children(PythonGrammar.IF_STMT);
-      if (nestedIf.size() == 1) {
-        return nestedIf.get(0);
+      AstNode nestedIf = PythonAstNodes.compoundStatement(statements.get(0));
+      if (nestedIf != null && nestedIf.is(PythonGrammar.IF_STMT)) {
+        return nestedIf;
       }
     }
     return null;
@@ -19,22 +19,24 @@
  */
 package org.sonar.python.checks;
 
+import com.google.common.collect.Sets;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonKeyword;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
-import org.sonar.sslr.ast.AstSelect;
 
 import javax.annotation.Nullable;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Rule(
     key = SameConditionCheck.CHECK_KEY,
@@ -48,7 +50,8 @@ import java.util.List;
 public class SameConditionCheck extends SquidCheck<Grammar> {
   public static final String CHECK_KEY = "S1862";
 
-  private List<AstNode> ignoreList;
+  private Set<AstNode> ignored;
+  private SubtreeHashes subtreeHashes;
 
   @Override
   public void init() {
@@ -57,12 +60,13 @@ public class SameConditionCheck extends SquidCheck<Grammar> {
 
   @Override
   public void visitFile(@Nullable AstNode astNode) {
-    ignoreList = new LinkedList<>();
+    ignored = Sets.newIdentityHashSet();
+    subtreeHashes = new SubtreeHashes();
   }
 
   @Override
   public void visitNode(AstNode node) {
-    if (ignoreList.contains(node)) {
+    if (ignored.contains(node)) {
       return;
     }
     List<AstNode> conditions = getConditionsToCompare(node);
@@ -70,7 +74,7 @@ public class SameConditionCheck extends SquidCheck<Grammar> {
   }
 
   private List<AstNode> getConditionsToCompare(AstNode ifStmt) {
-    List<AstNode> conditions = ifStmt.getChildren(PythonGrammar.TEST);
+    List<AstNode> conditions = PythonAstNodes.children(ifStmt, PythonGrammar.TEST);
     AstNode elseNode = ifStmt.getFirstChild(PythonKeyword.ELSE);
     if (conditions.size() == 1 && elseNode != null) {
       AstNode suite = elseNode.getNextSibling().getNextSibling();
@@ -82,35 +86,24 @@ public class SameConditionCheck extends SquidCheck<Grammar> {
   private void lookForElseIfs(List<AstNode> conditions, AstNode suite) {
     AstNode singleIfChild = singleIfChild(suite);
     if (singleIfChild != null) {
-      ignoreList.add(singleIfChild);
+      ignored.add(singleIfChild);
       conditions.addAll(getConditionsToCompare(singleIfChild));
     }
   }
 
   private void findSameConditions(List<AstNode> conditions) {
-    for (int i = 1; i < conditions.size(); i++) {
-      checkCondition(conditions, i);
-    }
-  }
-
-  private void checkCondition(List<AstNode> conditions, int index) {
-    for (int j = 0; j < index; j++) {
-      if (CheckUtils.equalNodes(conditions.get(j), conditions.get(index))) {
-        String message = String.format("This branch duplicates the one on line %s.", conditions.get(j).getToken().getLine());
-        getContext().createLineViolation(this, message, conditions.get(index).getToken().getLine());
-        return;
-      }
+    for (Map.Entry<AstNode, AstNode> duplicate : subtreeHashes.duplicates(conditions).entrySet()) {
+      String message = String.format("This branch duplicates the one on line %s.", duplicate.getValue().getToken().getLine());
+      getContext().createLineViolation(this, message, duplicate.getKey().getToken().getLine());
     }
   }
 
   private AstNode singleIfChild(AstNode suite) {
-    List<AstNode> statements = suite.getChildren(PythonGrammar.STATEMENT);
+    List<AstNode> statements = PythonAstNodes.statements(suite);
     if (statements.size() == 1) {
-      AstSelect nestedIf = statements.get(0).select()
-          .children(PythonGrammar.COMPOUND_STMT)
-          .children(PythonGrammar.IF_STMT);
-      if (nestedIf.size() == 1) {
-        return nestedIf.get(0);
+      AstNode nestedIf = PythonAstNodes.compoundStatement(statements.get(0));
+      if (nestedIf != null && nestedIf.is(PythonGrammar.IF_STMT)) {
+        return nestedIf;
       }
     }
     return null;
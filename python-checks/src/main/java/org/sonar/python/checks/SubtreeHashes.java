@@ -0,0 +1,92 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.checks;
+
+import com.sonar.sslr.api.AstNode;
+import org.sonar.python.api.PythonTokenType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural hashes of syntax trees, consistent with {@link CheckUtils#equalNodes(AstNode, AstNode)}: equal nodes have
+ * the same hash. Each node is hashed once, so the same instance should be used until the file is left.
+ */
+public class SubtreeHashes {
+
+  private final Map<AstNode, Integer> hashes = new IdentityHashMap<>();
+
+  public int hash(AstNode node) {
+    Integer hash = hashes.get(node);
+    if (hash == null) {
+      hash = computeHash(node);
+      hashes.put(node, hash);
+    }
+    return hash;
+  }
+
+  private int computeHash(AstNode node) {
+    int hash = node.getType().hashCode();
+    if (!node.hasChildren()) {
+      return node.is(PythonTokenType.INDENT, PythonTokenType.DEDENT) ? hash : (31 * hash + node.getTokenValue().hashCode());
+    }
+    for (AstNode child : node.getChildren()) {
+      hash = 31 * hash + hash(child);
+    }
+    return hash;
+  }
+
+  /**
+   * Nodes which are equal to a node before them in the given list, each mapped to the first of these nodes, in the order of the list.
+   * Only the nodes with the same hash are compared.
+   */
+  public Map<AstNode, AstNode> duplicates(List<AstNode> nodes) {
+    Map<AstNode, AstNode> duplicates = new LinkedHashMap<>();
+    Map<Integer, List<AstNode>> buckets = new HashMap<>();
+    for (AstNode node : nodes) {
+      int hash = hash(node);
+      List<AstNode> bucket = buckets.get(hash);
+      if (bucket == null) {
+        bucket = new ArrayList<>();
+        buckets.put(hash, bucket);
+      }
+      AstNode original = firstEqualNode(bucket, node);
+      if (original != null) {
+        duplicates.put(node, original);
+      }
+      bucket.add(node);
+    }
+    return duplicates;
+  }
+
+  private static AstNode firstEqualNode(List<AstNode> bucket, AstNode node) {
+    for (AstNode candidate : bucket) {
+      if (CheckUtils.equalNodes(candidate, node)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+}
@@ -29,7 +29,6 @@ import org.sonar.python.api.PythonGrammar;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
-import org.sonar.sslr.ast.AstSelect;
 
 @Rule(
     key = TooManyReturnsCheck.CHECK_KEY,
@@ -55,13 +54,7 @@ public class TooManyReturnsCheck extends SquidCheck<Grammar> {
 
   @Override
   public void visitNode(AstNode node) {
-    AstSelect returnStatements = node.select().descendants(PythonGrammar.RETURN_STMT, PythonGrammar.YIELD_STMT);
-    int returnCount = 0;
-    for (AstNode returnStatement : returnStatements){
-      if (CheckUtils.insideFunction(returnStatement, node)){
-        returnCount++;
-      }
-    }
+    int returnCount = CheckUtils.functionDescendants(node, PythonGrammar.RETURN_STMT, PythonGrammar.YIELD_STMT).size();
     if (returnCount > max) {
       getContext().createLineViolation(this, String.format(MESSAGE, returnCount, max), node.getFirstChild(PythonGrammar.FUNCNAME));
     }
@@ -19,22 +19,17 @@
  */
 package org.sonar.python.checks;
 
-import com.google.common.io.Files;
-import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
-import org.sonar.python.CharsetAwareVisitor;
+import org.sonar.python.LineVisitor;
+import org.sonar.python.SourceText;
+import org.sonar.python.TokenVisitor;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
 
-import javax.annotation.Nullable;
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.List;
-
 @Rule(
     key = TrailingWhitespaceCheck.CHECK_KEY,
     priority = Priority.MINOR,
@@ -43,29 +38,23 @@ import java.util.List;
 )
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.READABILITY)
 @SqaleConstantRemediation("1min")
-public class TrailingWhitespaceCheck extends SquidCheck<Grammar> implements CharsetAwareVisitor {
+public class TrailingWhitespaceCheck extends SquidCheck<Grammar> implements LineVisitor, TokenVisitor {
   public static final String CHECK_KEY = "S1131";
   public static final String MESSAGE = "Remove the useless trailing whitespaces at the end of this line.";
-  private Charset charset;
 
   @Override
-  public void setCharset(Charset charset) {
-    this.charset = charset;
+  public void visitLine(SourceText sourceText, int line) {
+    int end = sourceText.lineEnd(line);
+    if (end > sourceText.lineStart(line) && isWhitespace(sourceText.charAt(end - 1))) {
+      getContext().createLineViolation(this, MESSAGE, line);
+    }
   }
 
-  @Override
-  public void visitFile(@Nullable AstNode astNode) {
-    List<String> lines;
-    try {
-      lines = Files.readLines(getContext().getFile(), charset);
-    } catch (IOException e) {
-      throw new IllegalStateException("Could not read " + getContext().getFile(), e);
-    }
-    for (int i = 0; i < lines.size(); i++) {
-      if (lines.get(i).matches(".*\\s$")) {
-        getContext().createLineViolation(this, MESSAGE, i + 1);
-      }
-    }
+  /**
+   * Same characters as <code>\s</code> in regular expressions, except line terminators, which end the lines.
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\u000B' || c == '\f';
   }
 
 }
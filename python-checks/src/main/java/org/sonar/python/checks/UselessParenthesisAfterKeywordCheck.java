@@ -25,6 +25,7 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonPunctuator;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -69,22 +70,22 @@ public class UselessParenthesisAfterKeywordCheck extends SquidCheck<Grammar> {
   public void visitNode(AstNode node) {
     String keyword = KEYWORDS_FOLLOWED_BY_TEST.get(node.getType());
     if (keyword != null) {
-      checkParenthesis(node.getFirstChild(PythonGrammar.TEST), keyword, node);
+      checkParenthesis(PythonAstNodes.firstChild(node, PythonGrammar.TEST), keyword, node);
     } else if (node.is(PythonGrammar.DEL_STMT)) {
-      checkParenthesis(node.getFirstChild(PythonGrammar.EXPRLIST), "del", node);
+      checkParenthesis(PythonAstNodes.firstChild(node, PythonGrammar.EXPRLIST), "del", node);
     } else if (node.is(PythonGrammar.IF_STMT)) {
-      List<AstNode> testNodes = node.getChildren(PythonGrammar.TEST);
+      List<AstNode> testNodes = PythonAstNodes.children(node, PythonGrammar.TEST);
       checkParenthesis(testNodes.get(0), "if", node);
       if (testNodes.size() > 1) {
         checkParenthesis(testNodes.get(1), "elif", testNodes.get(1));
       }
     } else if (node.is(PythonGrammar.FOR_STMT)) {
-      checkParenthesis(node.getFirstChild(PythonGrammar.EXPRLIST), "for", node);
-      checkParenthesis(node.getFirstChild(PythonGrammar.TESTLIST), "in", node);
+      checkParenthesis(PythonAstNodes.firstChild(node, PythonGrammar.EXPRLIST), "for", node);
+      checkParenthesis(PythonAstNodes.firstChild(node, PythonGrammar.TESTLIST), "in", node);
     } else if (node.is(PythonGrammar.RETURN_STMT)) {
-      checkParenthesis(node.getFirstChild(PythonGrammar.TESTLIST), "return", node);
+      checkParenthesis(PythonAstNodes.firstChild(node, PythonGrammar.TESTLIST), "return", node);
     } else if (node.is(PythonGrammar.YIELD_EXPR)) {
-      checkParenthesis(node.getFirstChild(PythonGrammar.TESTLIST), "yield", node);
+      checkParenthesis(PythonAstNodes.firstChild(node, PythonGrammar.TESTLIST), "yield", node);
     } else if (node.is(PythonGrammar.EXCEPT_CLAUSE)) {
       visitExceptClause(node);
     } else if (node.is(PythonGrammar.NOT_TEST)) {
@@ -93,26 +94,28 @@ public class UselessParenthesisAfterKeywordCheck extends SquidCheck<Grammar> {
   }
 
   private void visitNotTest(AstNode node) {
-    boolean hasUselessParenthesis = node.select()
-      .children(PythonGrammar.ATOM)
-      .children(PythonGrammar.TESTLIST_COMP)
-      .children(PythonGrammar.TEST)
-      .children(PythonGrammar.ATOM, PythonGrammar.COMPARISON)
-      .isNotEmpty();
+    boolean hasUselessParenthesis = false;
+    for (AstNode atom : node.getChildren(PythonGrammar.ATOM)) {
+      for (AstNode test : CheckUtils.testsInParenthesis(atom)) {
+        hasUselessParenthesis |= !CheckUtils.atomsAndComparisons(test).isEmpty();
+      }
+    }
     if (hasUselessParenthesis) {
       checkParenthesis(node.getFirstChild().getNextSibling(), "not", node);
     }
   }
 
   private void visitExceptClause(AstNode node) {
-    int nbTests = node.select()
-      .children(PythonGrammar.TEST)
-      .children(PythonGrammar.ATOM)
-      .children(PythonGrammar.TESTLIST_COMP)
-      .children(PythonGrammar.TEST)
-      .size();
+    int nbTests = 0;
+    for (AstNode test : PythonAstNodes.children(node, PythonGrammar.TEST)) {
+      for (AstNode atom : CheckUtils.atomsAndComparisons(test)) {
+        if (atom.is(PythonGrammar.ATOM)) {
+          nbTests += CheckUtils.testsInParenthesis(atom).size();
+        }
+      }
+    }
     if (nbTests == 1) {
-      checkParenthesis(node.getFirstChild(PythonGrammar.TEST), "except", node);
+      checkParenthesis(PythonAstNodes.firstChild(node, PythonGrammar.TEST), "except", node);
     }
   }
 
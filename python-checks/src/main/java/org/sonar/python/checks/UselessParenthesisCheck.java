@@ -24,13 +24,13 @@ import com.sonar.sslr.api.Grammar;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.python.api.PythonAstNodes;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.api.PythonPunctuator;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 import org.sonar.squidbridge.checks.SquidCheck;
-import org.sonar.sslr.ast.AstSelect;
 
 import java.util.List;
 
@@ -51,7 +51,8 @@ public class UselessParenthesisCheck extends SquidCheck<Grammar> {
     subscribeTo(
         PythonGrammar.TEST,
         PythonGrammar.EXPR,
-        PythonGrammar.NOT_TEST
+        PythonGrammar.NOT_TEST,
+        PythonGrammar.ATOM
     );
   }
 
@@ -59,27 +60,38 @@ public class UselessParenthesisCheck extends SquidCheck<Grammar> {
   public void visitNode(AstNode node) {
     if (node.is(PythonGrammar.NOT_TEST)) {
       visitNotTest(node);
+    } else if (node.is(PythonGrammar.ATOM)) {
+      // compact tree: the atom takes the place of the TEST or EXPR node
+      if (PythonAstNodes.standsFor(node, PythonGrammar.TEST) || PythonAstNodes.standsFor(node, PythonGrammar.EXPR)) {
+        checkAtom(node, isKeywordException(node));
+      }
     } else if (node.getNumberOfChildren() == 1 && node.getFirstChild().is(PythonGrammar.ATOM)) {
-
       AstNode atom = node.getFirstChild();
-      AstSelect selectedParent = atom.select().parent().parent().parent();
-      if (selectedParent.size() == 1) {
-        AstNode parent = selectedParent.get(0);
-        if (isKeywordException(parent)) {
-          checkAtom(atom, true);
-          return;
-        }
-      }
-
-      checkAtom(atom, false);
+      checkAtom(atom, isKeywordException(node));
     }
   }
 
-  private boolean isKeywordException(AstNode parent) {
-    if ((parent.is(PythonGrammar.RETURN_STMT) || parent.is(PythonGrammar.YIELD_EXPR)) && parent.getFirstChild(PythonGrammar.TESTLIST).getNumberOfChildren() == 1) {
-      return true;
+  /**
+   * @param element <code>TEST</code> or <code>EXPR</code> node, or the atom standing for it
+   */
+  private static boolean isKeywordException(AstNode element) {
+    AstNode list;
+    if (element.getParent().is(PythonGrammar.TESTLIST, PythonGrammar.EXPRLIST)) {
+      list = element.getParent();
+    } else if (PythonAstNodes.standsFor(element, PythonGrammar.TESTLIST) || PythonAstNodes.standsFor(element, PythonGrammar.EXPRLIST)) {
+      list = element;
+    } else {
+      return false;
     }
-    return parent.is(PythonGrammar.FOR_STMT) && parent.getFirstChild(PythonGrammar.EXPRLIST).getChildren(PythonGrammar.EXPR).size() == 1;
+    AstNode parent = list.getParent();
+    if (parent.is(PythonGrammar.RETURN_STMT, PythonGrammar.YIELD_EXPR)) {
+      return !list.is(PythonGrammar.TESTLIST) || list.getNumberOfChildren() == 1;
+    }
+    if (parent.is(PythonGrammar.FOR_STMT)) {
+      AstNode counters = PythonAstNodes.firstChild(parent, PythonGrammar.EXPRLIST);
+      return PythonAstNodes.childrenOf(counters, PythonGrammar.EXPRLIST, PythonGrammar.EXPR).size() == 1;
+    }
+    return false;
   }
 
   private void checkAtom(AstNode atom, boolean ignoreTestNumber) {
@@ -92,18 +104,20 @@ public class UselessParenthesisCheck extends SquidCheck<Grammar> {
     List<AstNode> children = atom.getChildren();
     boolean result = children.size() == 3 && children.get(0).is(PythonPunctuator.LPARENTHESIS) && children.get(2).is(PythonPunctuator.RPARENTHESIS) && isOnASingleLine(atom);
     if (result && !ignoreTestNumber) {
-      result = children.get(1).getChildren(PythonGrammar.TEST).size() == 1 && children.get(1).getFirstChild(PythonPunctuator.COMMA) == null;
+      AstNode content = children.get(1);
+      result = PythonAstNodes.childrenOf(content, PythonGrammar.TESTLIST_COMP, PythonGrammar.TEST).size() == 1
+        && !(content.is(PythonGrammar.TESTLIST_COMP) && content.getFirstChild(PythonPunctuator.COMMA) != null);
     }
     return result;
   }
 
   private void visitNotTest(AstNode node) {
-    boolean hasUselessParenthesis = node.select()
-        .children(PythonGrammar.ATOM)
-        .children(PythonGrammar.TESTLIST_COMP)
-        .children(PythonGrammar.TEST)
-        .children(PythonGrammar.ATOM, PythonGrammar.COMPARISON)
-        .isNotEmpty();
+    boolean hasUselessParenthesis = false;
+    for (AstNode atom : node.getChildren(PythonGrammar.ATOM)) {
+      for (AstNode test : CheckUtils.testsInParenthesis(atom)) {
+        hasUselessParenthesis |= !CheckUtils.atomsAndComparisons(test).isEmpty();
+      }
+    }
     if (hasUselessParenthesis) {
       checkAtom(node.getFirstChild().getNextSibling(), false);
     }
@@ -39,6 +39,8 @@ public class CommentedCodeCheckTest {
         .next().atLine(60).withMessage(CommentedCodeCheck.MESSAGE)
         .next().atLine(62).withMessage(CommentedCodeCheck.MESSAGE)
         .next().atLine(66).withMessage(CommentedCodeCheck.MESSAGE)
+        .next().atLine(82).withMessage(CommentedCodeCheck.MESSAGE)
+        .next().atLine(89).withMessage(CommentedCodeCheck.MESSAGE)
         .noMore();
   }
 
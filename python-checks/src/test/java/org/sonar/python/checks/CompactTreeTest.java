@@ -0,0 +1,83 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.checks;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.sonar.sslr.api.Grammar;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.python.PythonAstScanner;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonMetric;
+import org.sonar.squidbridge.AstScanner;
+import org.sonar.squidbridge.SquidAstVisitor;
+import org.sonar.squidbridge.api.CheckMessage;
+import org.sonar.squidbridge.api.SourceCode;
+import org.sonar.squidbridge.api.SourceFile;
+import org.sonar.squidbridge.indexer.QueryByType;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Enforces that the checks and the metrics give the same results whether or not the syntax tree is compact.
+ */
+public class CompactTreeTest {
+
+  @Test
+  public void same_results_with_compact_tree() throws Exception {
+    Collection<File> files = FileUtils.listFiles(new File("src/test/resources/checks"), new String[] {"py"}, true);
+    assertThat(files).isNotEmpty();
+
+    List<String> results = scan(files, false);
+    assertThat(results).isNotEmpty();
+    assertThat(scan(files, true)).isEqualTo(results);
+  }
+
+  private static List<String> scan(Collection<File> files, boolean compactTree) throws Exception {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setCompactTree(compactTree);
+    List<SquidAstVisitor<Grammar>> checks = Lists.newArrayList();
+    for (Class<?> checkClass : CheckList.getChecks()) {
+      checks.add((SquidAstVisitor<Grammar>) checkClass.newInstance());
+    }
+    AstScanner<Grammar> scanner = PythonAstScanner.create(conf, checks.toArray(new SquidAstVisitor[checks.size()]));
+    scanner.scanFiles(files);
+
+    List<String> results = Lists.newArrayList();
+    for (SourceCode sourceCode : scanner.getIndex().search(new QueryByType(SourceFile.class))) {
+      for (PythonMetric metric : PythonMetric.values()) {
+        results.add(sourceCode.getKey() + " " + metric + " " + sourceCode.getDouble(metric));
+      }
+      for (CheckMessage message : sourceCode.getCheckMessages()) {
+        results.add(sourceCode.getKey() + ":" + message.getLine() + " " + message.getCheck().getClass().getSimpleName() + " " + message.getText(Locale.ENGLISH));
+      }
+    }
+    Collections.sort(results);
+    return results;
+  }
+
+}
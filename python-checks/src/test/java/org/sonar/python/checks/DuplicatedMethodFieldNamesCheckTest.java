@@ -36,6 +36,7 @@ public class DuplicatedMethodFieldNamesCheckTest {
     CheckMessagesVerifier.verify(file.getCheckMessages())
       .next().atLine(5).withMessage(String.format(message, "method", "GO_UP", "method","go_up", "2"))
       .next().atLine(8).withMessage(String.format(message, "method", "GO_DOWN", "field","go_down", "6"))
+      .next().atLine(29).withMessage(String.format(message, "method", "RUN", "method","run", "20"))
       .noMore();
   }
 
@@ -48,6 +48,11 @@ public class FieldNameCheckTest {
         .next().atLine(28).withMessage(String.format(message, "Field4", check.format))
         .next().atLine(28).withMessage(String.format(message, "Field5", check.format))
         .next().atLine(31).withMessage(String.format(message, "myField", check.format))
+        .next().atLine(37).withMessage(String.format(message, "outerField", check.format))
+        .next().atLine(40).withMessage(String.format(message, "innerField", check.format))
+        .next().atLine(43).withMessage(String.format(message, "methodField", check.format))
+        .next().atLine(45).withMessage(String.format(message, "helperField", check.format))
+        .next().atLine(48).withMessage(String.format(message, "localField", check.format))
         .noMore();
   }
 
@@ -62,6 +62,13 @@ public class LocalVariableAndParameterNameConventionCheckTest {
 
         .next().atLine(49).withMessage(String.format(LocalVariableAndParameterNameConventionCheck.MESSAGE, "local variable", "a", check.format))
         .next().atLine(49).withMessage(String.format(LocalVariableAndParameterNameConventionCheck.MESSAGE, "local variable", "b", check.format))
+
+        .next().atLine(52).withMessage(String.format(LocalVariableAndParameterNameConventionCheck.MESSAGE, "parameter", "outerParam", check.format))
+        .next().atLine(53).withMessage(String.format(LocalVariableAndParameterNameConventionCheck.MESSAGE, "local variable", "outerVar", check.format))
+        .next().atLine(54).withMessage(String.format(LocalVariableAndParameterNameConventionCheck.MESSAGE, "parameter", "innerParam", check.format))
+        .next().atLine(55).withMessage(String.format(LocalVariableAndParameterNameConventionCheck.MESSAGE, "local variable", "innerVar", check.format))
+        .next().atLine(56).withMessage(String.format(LocalVariableAndParameterNameConventionCheck.MESSAGE, "local variable", "innerCounter", check.format))
+        .next().atLine(60).withMessage(String.format(LocalVariableAndParameterNameConventionCheck.MESSAGE, "local variable", "outerCounter", check.format))
         .noMore();
   }
 
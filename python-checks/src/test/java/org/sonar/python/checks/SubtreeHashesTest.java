@@ -0,0 +1,75 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.checks;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.impl.Parser;
+import org.junit.Test;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.api.PythonTokenType;
+import org.sonar.python.parser.PythonParser;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SubtreeHashesTest {
+
+  private final Parser<Grammar> parser = PythonParser.create(new PythonConfiguration(Charsets.UTF_8));
+  private final SubtreeHashes subtreeHashes = new SubtreeHashes();
+
+  @Test
+  public void indent_and_dedent_are_ignored() {
+    List<AstNode> suites = parser.parse("if a:\n  x = 1\nif b:\n        x = 1\n").getDescendants(PythonGrammar.SUITE);
+    AstNode indent1 = suites.get(0).getFirstChild(PythonTokenType.INDENT);
+    AstNode indent2 = suites.get(1).getFirstChild(PythonTokenType.INDENT);
+    assertThat(indent1.getTokenValue()).isNotEqualTo(indent2.getTokenValue());
+
+    assertThat(CheckUtils.equalNodes(suites.get(0), suites.get(1))).isTrue();
+    assertThat(subtreeHashes.hash(suites.get(0))).isEqualTo(subtreeHashes.hash(suites.get(1)));
+  }
+
+  @Test
+  public void equal_subtrees_from_different_parents_are_duplicates() {
+    List<AstNode> statements = parser.parse("if a:\n  x = f(1)\nelse:\n  y = 2\nwhile b:\n  x = f(1)\n").getDescendants(PythonGrammar.EXPRESSION_STMT);
+    assertThat(statements.get(0).getParent()).isNotSameAs(statements.get(2).getParent());
+
+    Map<AstNode, AstNode> duplicates = subtreeHashes.duplicates(statements);
+    assertThat(duplicates).hasSize(1);
+    assertThat(duplicates.get(statements.get(2))).isSameAs(statements.get(0));
+  }
+
+  @Test
+  public void colliding_hashes_are_compared() {
+    // "Aa" and "BB" have the same String hash code
+    List<AstNode> statements = parser.parse("Aa = 1\nBB = 1\nAa = 1\n").getDescendants(PythonGrammar.EXPRESSION_STMT);
+    assertThat(subtreeHashes.hash(statements.get(0))).isEqualTo(subtreeHashes.hash(statements.get(1)));
+    assertThat(CheckUtils.equalNodes(statements.get(0), statements.get(1))).isFalse();
+
+    Map<AstNode, AstNode> duplicates = subtreeHashes.duplicates(statements);
+    assertThat(duplicates).hasSize(1);
+    assertThat(duplicates.get(statements.get(2))).isSameAs(statements.get(0));
+  }
+
+}
@@ -77,4 +77,13 @@ return a
 
 '''
 # comment
-'''
\ No newline at end of file
+'''
+
+# x += 1
+
+# , which is not code
+
+# - first item
+# - second item
+
+# print x
@@ -15,3 +15,16 @@ class A:
 
     def NAME(self):
         pass
+
+class B:
+    def run(self):
+        def Run():
+            pass
+        self.value = 1
+
+    class Inner:
+        def VALUE(self):
+            self.Run = 2
+
+    def RUN(self):
+        pass
@@ -31,4 +31,18 @@ class MyClass3(object):
   myField = 4
 
 class MyClass4(MyClass3):
-  myField = 4
\ No newline at end of file
+  myField = 4
+
+class Outer:
+    outerField = 1
+
+    class Meta:
+        innerField = 2
+
+    def method(self):
+        self.methodField = 3
+        def helper():
+            self.helperField = 4
+        class Local:
+            def __init__(self):
+                self.localField = 5
@@ -48,3 +48,14 @@ def fun9():
 def fun10():
     a = b = 1
     name = d.e = 1
+
+def fun11(outerParam):
+    outerVar = 1
+    def inner(innerParam):
+        innerVar = 2
+        for innerCounter in range(2):
+            pass
+    class Local:
+        classVar = 3
+    for outerCounter in range(2):
+        pass
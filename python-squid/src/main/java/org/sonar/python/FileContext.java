@@ -0,0 +1,120 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import org.sonar.python.api.NodeTypeIndex;
+import org.sonar.python.semantic.SymbolTable;
+import org.sonar.squidbridge.SquidAstVisitor;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Holds what the checks share about the file being visited: its {@link NodeTypeIndex} and its {@link SymbolTable},
+ * each only built if a check asks for it, and released when the file is left. The scanner visits each file with this
+ * visitor before the other ones, and leaves it after them.
+ * <p>
+ * The index and the table of another tree, such as a tree parsed by a check, are kept too, for the last such tree only.
+ */
+public class FileContext extends SquidAstVisitor<Grammar> implements TokenVisitor {
+
+  private static final ThreadLocal<FileContext> CURRENT = new ThreadLocal<>();
+
+  private Tree file;
+  private Tree otherTree;
+
+  /**
+   * Context of the file visited by the current thread, if any.
+   */
+  @CheckForNull
+  public static FileContext current() {
+    return CURRENT.get();
+  }
+
+  @Override
+  public void visitFile(@Nullable AstNode astNode) {
+    if (astNode != null) {
+      file = new Tree(astNode);
+      CURRENT.set(this);
+    }
+  }
+
+  @Override
+  public void leaveFile(@Nullable AstNode astNode) {
+    file = null;
+    otherTree = null;
+    CURRENT.remove();
+  }
+
+  /**
+   * In case the scan of the last file failed before it was left.
+   */
+  @Override
+  public void destroy() {
+    leaveFile(null);
+  }
+
+  /**
+   * @param root the root of the visited file, or of another tree
+   */
+  public NodeTypeIndex getNodeTypeIndex(AstNode root) {
+    Tree tree = tree(root);
+    if (tree.nodeTypeIndex == null) {
+      tree.nodeTypeIndex = NodeTypeIndex.build(root);
+    }
+    return tree.nodeTypeIndex;
+  }
+
+  /**
+   * @param root the root of the visited file, or of another tree
+   */
+  public SymbolTable getSymbolTable(AstNode root) {
+    Tree tree = tree(root);
+    if (tree.symbolTable == null) {
+      tree.symbolTable = SymbolTable.build(root);
+    }
+    return tree.symbolTable;
+  }
+
+  private Tree tree(AstNode root) {
+    if (file != null && file.root == root) {
+      return file;
+    }
+    if (otherTree == null || otherTree.root != root) {
+      otherTree = new Tree(root);
+    }
+    return otherTree;
+  }
+
+  private static class Tree {
+
+    private final AstNode root;
+    private NodeTypeIndex nodeTypeIndex;
+    private SymbolTable symbolTable;
+
+    Tree(AstNode root) {
+      this.root = root;
+    }
+
+  }
+
+}
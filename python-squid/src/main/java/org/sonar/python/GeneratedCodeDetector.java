@@ -0,0 +1,128 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Tells generated files apart from their text, before lexing them: a file is generated when one of its first lines
+ * contains a marker, such as the comment added by the protocol buffer compiler, or, if a maximum line length is given,
+ * when one of its lines is longer than what anyone would write, such as the serialized descriptors of protocol buffers.
+ * <p>
+ * Only the lines of a generated file are measured, and no rule is checked on it. The detector may be shared by
+ * several scanners, which count the generated files together.
+ */
+public class GeneratedCodeDetector {
+
+  /**
+   * The exact header comments written by some well-known generators, so that hand-written files are not caught.
+   */
+  public static final List<String> DEFAULT_PATTERNS = ImmutableList.of(
+    "^# Generated by the protocol buffer compiler\\.  DO NOT EDIT!",
+    "^# Generated by the gRPC Python protocol compiler plugin\\. DO NOT EDIT!",
+    "^# Generated by Django \\d+\\.\\d+",
+    "^# This file was automatically generated by SWIG");
+
+  public static final int NO_LIMIT = 0;
+
+  private static final int HEADER_LINES = 20;
+  private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+  private final List<Pattern> patterns = Lists.newArrayList();
+  private final int maxLineLength;
+  private final AtomicInteger generatedFiles = new AtomicInteger();
+
+  /**
+   * @param patterns regular expressions, any of which is found in a line of the header of generated files
+   * @param maxLineLength length above which a line is deemed generated, or {@link #NO_LIMIT}
+   */
+  public GeneratedCodeDetector(List<String> patterns, int maxLineLength) {
+    this.maxLineLength = maxLineLength;
+    for (String pattern : patterns) {
+      this.patterns.add(Pattern.compile(pattern));
+    }
+  }
+
+  /**
+   * @param sourceText the text of the file, which the scanner reads anyway
+   */
+  public boolean isGenerated(SourceText sourceText) {
+    boolean generated = hasMarker(sourceText) || hasLongLine(sourceText);
+    if (generated) {
+      generatedFiles.incrementAndGet();
+    }
+    return generated;
+  }
+
+  private boolean hasMarker(SourceText sourceText) {
+    int headerLines = Math.min(HEADER_LINES, sourceText.getNumberOfLines());
+    for (int line = 1; line <= headerLines; line++) {
+      int start = sourceText.lineStart(line);
+      int end = sourceText.lineEnd(line);
+      if (line == 1 && end > start && sourceText.charAt(start) == BYTE_ORDER_MARK) {
+        // so that the patterns can be anchored at the beginning of the first line
+        start++;
+      }
+      if (matchesPattern(sourceText.getText().subSequence(start, end))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean hasLongLine(SourceText sourceText) {
+    if (maxLineLength == NO_LIMIT) {
+      return false;
+    }
+    for (int line = 1; line <= sourceText.getNumberOfLines(); line++) {
+      if (sourceText.lineLength(line) > maxLineLength) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean matchesPattern(CharSequence line) {
+    for (Pattern pattern : patterns) {
+      if (pattern.matcher(line).find()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Number of files detected as generated.
+   */
+  public int getGeneratedFiles() {
+    return generatedFiles.get();
+  }
+
+  @Override
+  public String toString() {
+    return patterns + ";" + maxLineLength;
+  }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+/**
+ * Visitor of the lines of the files. The scanner reads and decodes each file once for the lexer and all of its line
+ * visitors, and visits the lines once all the visitors have visited the file, before its nodes and tokens. Such a
+ * visitor, when it also implements {@link TokenVisitor}, is also run on the files which cannot be parsed.
+ */
+public interface LineVisitor {
+
+  /**
+   * @param line starting at 1
+   */
+  void visitLine(SourceText sourceText, int line);
+
+}
@@ -0,0 +1,116 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits above which a file is not parsed, so that a single huge or pathological file cannot stall the analysis
+ * or exhaust the memory. Such a file is degraded: it is only lexed, so that only its lines are measured and only
+ * the {@link TokenVisitor}s are run on it.
+ * <p>
+ * The limits may be shared by several scanners, which count the degraded files together.
+ */
+public class ParseLimits {
+
+  public static final long NO_LIMIT = 0;
+
+  /**
+   * An abandoned parsing cannot be stopped: it keeps its thread, CPU and memory until it ends. Once that many are still
+   * running, the files which would be parsed with a timeout are degraded without being parsed, until one of them ends.
+   */
+  public static final int MAX_ABANDONED_PARSES = 2;
+
+  private final long maxFileSize;
+  private final long maxLines;
+  private final long parseTimeoutMillis;
+  private final AtomicInteger degradedFiles = new AtomicInteger();
+  private final AtomicInteger abandonedParses = new AtomicInteger();
+
+  /**
+   * @param maxFileSize in bytes, or {@link #NO_LIMIT}
+   * @param maxLines or {@link #NO_LIMIT}
+   * @param parseTimeoutMillis or {@link #NO_LIMIT}
+   */
+  public ParseLimits(long maxFileSize, long maxLines, long parseTimeoutMillis) {
+    this.maxFileSize = maxFileSize;
+    this.maxLines = maxLines;
+    this.parseTimeoutMillis = parseTimeoutMillis;
+  }
+
+  public static ParseLimits none() {
+    return new ParseLimits(NO_LIMIT, NO_LIMIT, NO_LIMIT);
+  }
+
+  public long getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  public long getMaxLines() {
+    return maxLines;
+  }
+
+  public long getParseTimeoutMillis() {
+    return parseTimeoutMillis;
+  }
+
+  boolean exceedsFileSize(long fileSize) {
+    return maxFileSize != NO_LIMIT && fileSize > maxFileSize;
+  }
+
+  boolean exceedsLines(int lines) {
+    return maxLines != NO_LIMIT && lines > maxLines;
+  }
+
+  boolean hasParseTimeout() {
+    return parseTimeoutMillis != NO_LIMIT;
+  }
+
+  boolean tooManyAbandonedParses() {
+    return abandonedParses.get() >= MAX_ABANDONED_PARSES;
+  }
+
+  void parseAbandoned() {
+    abandonedParses.incrementAndGet();
+  }
+
+  void abandonedParseEnded() {
+    abandonedParses.decrementAndGet();
+  }
+
+  /**
+   * Number of parsings abandoned on timeout which are still running.
+   */
+  public int getAbandonedParses() {
+    return abandonedParses.get();
+  }
+
+  void fileDegraded() {
+    degradedFiles.incrementAndGet();
+  }
+
+  /**
+   * Number of files which were only lexed because of these limits.
+   */
+  public int getDegradedFiles() {
+    return degradedFiles.get();
+  }
+
+}
@@ -20,14 +20,16 @@
 package org.sonar.python;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
 import com.sonar.sslr.api.AstNode;
-import com.sonar.sslr.api.AstNodeType;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.impl.Parser;
 import org.sonar.python.api.PythonGrammar;
-import org.sonar.python.api.PythonKeyword;
 import org.sonar.python.api.PythonMetric;
+import org.sonar.python.lexer.PythonLexer;
+import org.sonar.python.metrics.MetricsVisitor;
 import org.sonar.python.parser.PythonParser;
+import org.sonar.python.profiling.ScanProfiler;
 import org.sonar.squidbridge.AstScanner;
 import org.sonar.squidbridge.CommentAnalyser;
 import org.sonar.squidbridge.SourceCodeBuilderCallback;
@@ -40,13 +42,10 @@ import org.sonar.squidbridge.api.SourceFile;
 import org.sonar.squidbridge.api.SourceFunction;
 import org.sonar.squidbridge.api.SourceProject;
 import org.sonar.squidbridge.indexer.QueryByType;
-import org.sonar.squidbridge.metrics.CommentsVisitor;
-import org.sonar.squidbridge.metrics.ComplexityVisitor;
-import org.sonar.squidbridge.metrics.CounterVisitor;
-import org.sonar.squidbridge.metrics.LinesVisitor;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.List;
 
 public final class PythonAstScanner {
 
@@ -70,6 +69,14 @@ public final class PythonAstScanner {
   }
 
   public static AstScanner<Grammar> create(PythonConfiguration conf, SquidAstVisitor<Grammar>... visitors) {
+    List<SquidAstVisitor<Grammar>> allVisitors = Lists.newArrayList();
+    allVisitors.add(classesAnalyser());
+    allVisitors.add(methodAnalyser());
+    allVisitors.add(new MetricsVisitor(conf.getIgnoreHeaderComments()));
+    return build(conf, allVisitors, visitors);
+  }
+
+  private static AstScanner<Grammar> build(PythonConfiguration conf, List<SquidAstVisitor<Grammar>> allVisitors, SquidAstVisitor<Grammar>... visitors) {
     final SquidAstVisitorContextImpl<Grammar> context = new SquidAstVisitorContextImpl<Grammar>(new SourceProject("Python Project"));
     final Parser<Grammar> parser = PythonParser.create(conf);
 
@@ -81,60 +88,33 @@ public final class PythonAstScanner {
 
     setCommentAnalyser(builder);
 
-    setClassesAnalyser(builder);
-
-    setMethodAnalyser(builder);
-
-    setMetrics(conf, builder);
-
     /* External visitors (typically Check ones) */
     for (SquidAstVisitor<Grammar> visitor : visitors) {
       if (visitor instanceof CharsetAwareVisitor) {
         ((CharsetAwareVisitor) visitor).setCharset(conf.getCharset());
       }
-      builder.withSquidAstVisitor(visitor);
+      allVisitors.add(visitor);
     }
 
-    return builder.build();
-  }
+    ScanProfiler profiler = conf.getProfiler();
+    if (profiler != null) {
+      for (int i = 0; i < allVisitors.size(); i++) {
+        allVisitors.set(i, profiler.wrap(allVisitors.get(i)));
+      }
+    }
+
+    // Visit each file before the other visitors, and leave it after them
+    allVisitors.add(0, new FileContext());
 
-  private static void setMetrics(PythonConfiguration conf, AstScanner.Builder<Grammar> builder) {
-    builder.withSquidAstVisitor(new LinesVisitor<Grammar>(PythonMetric.LINES));
-    builder.withSquidAstVisitor(new PythonLinesOfCodeVisitor<Grammar>(PythonMetric.LINES_OF_CODE));
-    AstNodeType[] complexityAstNodeType = new AstNodeType[]{
-      // Entry points
-      PythonGrammar.FUNCDEF,
-
-      // Branching nodes
-      // Note that IF_STMT covered by PythonKeyword.IF below
-      PythonGrammar.WHILE_STMT,
-      PythonGrammar.FOR_STMT,
-      PythonGrammar.RETURN_STMT,
-      PythonGrammar.RAISE_STMT,
-      PythonGrammar.EXCEPT_CLAUSE,
-
-      // Expressions
-      PythonKeyword.IF,
-      PythonKeyword.AND,
-      PythonKeyword.OR
-    };
-    builder.withSquidAstVisitor(ComplexityVisitor.<Grammar>builder()
-      .setMetricDef(PythonMetric.COMPLEXITY)
-      .subscribeTo(complexityAstNodeType)
-      .build());
-
-    builder.withSquidAstVisitor(CommentsVisitor.<Grammar>builder().withCommentMetric(PythonMetric.COMMENT_LINES)
-      .withNoSonar(true)
-      .withIgnoreHeaderComment(conf.getIgnoreHeaderComments())
-      .build());
-    builder.withSquidAstVisitor(CounterVisitor.<Grammar>builder()
-      .setMetricDef(PythonMetric.STATEMENTS)
-      .subscribeTo(PythonGrammar.STATEMENT)
-      .build());
+    for (SquidAstVisitor<Grammar> visitor : allVisitors) {
+      builder.withSquidAstVisitor(visitor);
+    }
+
+    return new PythonScanner(builder, context, conf, parser, PythonLexer.create(conf), allVisitors);
   }
 
-  private static void setMethodAnalyser(AstScanner.Builder<Grammar> builder) {
-    builder.withSquidAstVisitor(new SourceCodeBuilderVisitor<Grammar>(new SourceCodeBuilderCallback() {
+  private static SquidAstVisitor<Grammar> methodAnalyser() {
+    return new SourceCodeBuilderVisitor<Grammar>(new SourceCodeBuilderCallback() {
       @Override
       public SourceCode createSourceCode(SourceCode parentSourceCode, AstNode astNode) {
         String functionName = astNode.getFirstChild(PythonGrammar.FUNCNAME).getFirstChild().getTokenValue();
@@ -142,16 +122,11 @@ public final class PythonAstScanner {
         function.setStartAtLine(astNode.getTokenLine());
         return function;
       }
-    }, PythonGrammar.FUNCDEF));
-
-    builder.withSquidAstVisitor(CounterVisitor.<Grammar>builder()
-      .setMetricDef(PythonMetric.FUNCTIONS)
-      .subscribeTo(PythonGrammar.FUNCDEF)
-      .build());
+    }, PythonGrammar.FUNCDEF);
   }
 
-  private static void setClassesAnalyser(AstScanner.Builder<Grammar> builder) {
-    builder.withSquidAstVisitor(new SourceCodeBuilderVisitor<Grammar>(new SourceCodeBuilderCallback() {
+  private static SquidAstVisitor<Grammar> classesAnalyser() {
+    return new SourceCodeBuilderVisitor<Grammar>(new SourceCodeBuilderCallback() {
       @Override
       public SourceCode createSourceCode(SourceCode parentSourceCode, AstNode astNode) {
         String functionName = astNode.getFirstChild(PythonGrammar.CLASSNAME).getFirstChild().getTokenValue();
@@ -159,12 +134,7 @@ public final class PythonAstScanner {
         function.setStartAtLine(astNode.getTokenLine());
         return function;
       }
-    }, PythonGrammar.CLASSDEF));
-
-    builder.withSquidAstVisitor(CounterVisitor.<Grammar>builder()
-      .setMetricDef(PythonMetric.CLASSES)
-      .subscribeTo(PythonGrammar.CLASSDEF)
-      .build());
+    }, PythonGrammar.CLASSDEF);
   }
 
   private static void setCommentAnalyser(AstScanner.Builder<Grammar> builder) {
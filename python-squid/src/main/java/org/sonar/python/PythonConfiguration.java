@@ -19,13 +19,22 @@
  */
 package org.sonar.python;
 
+import org.sonar.python.profiling.ScanProfiler;
 import org.sonar.squidbridge.api.SquidConfiguration;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 import java.nio.charset.Charset;
 
 public class PythonConfiguration extends SquidConfiguration {
 
   private boolean ignoreHeaderComments;
+  private boolean compactTree;
+  private ScanProfiler profiler;
+  private ParseLimits parseLimits = ParseLimits.none();
+  private GeneratedCodeDetector generatedCodeDetector;
+  private ScannedFileListener scannedFileListener;
 
   public PythonConfiguration(Charset charset) {
     super(charset);
@@ -39,4 +48,59 @@ public class PythonConfiguration extends SquidConfiguration {
     return ignoreHeaderComments;
   }
 
+  /**
+   * @see org.sonar.python.api.PythonGrammar#create(boolean)
+   */
+  public void setCompactTree(boolean compactTree) {
+    this.compactTree = compactTree;
+  }
+
+  public boolean getCompactTree() {
+    return compactTree;
+  }
+
+  /**
+   * When set, the visitors and the files are timed by the given profiler.
+   */
+  public void setProfiler(@Nullable ScanProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  @CheckForNull
+  public ScanProfiler getProfiler() {
+    return profiler;
+  }
+
+  public void setParseLimits(ParseLimits parseLimits) {
+    this.parseLimits = parseLimits;
+  }
+
+  public ParseLimits getParseLimits() {
+    return parseLimits;
+  }
+
+  /**
+   * When set, generated files are not checked, and only their lines are measured.
+   */
+  public void setGeneratedCodeDetector(@Nullable GeneratedCodeDetector generatedCodeDetector) {
+    this.generatedCodeDetector = generatedCodeDetector;
+  }
+
+  @CheckForNull
+  public GeneratedCodeDetector getGeneratedCodeDetector() {
+    return generatedCodeDetector;
+  }
+
+  /**
+   * When set, the squid tree of each file is handed over to the given listener, and is then released by the scanner.
+   */
+  public void setScannedFileListener(@Nullable ScannedFileListener scannedFileListener) {
+    this.scannedFileListener = scannedFileListener;
+  }
+
+  @CheckForNull
+  public ScannedFileListener getScannedFileListener() {
+    return scannedFileListener;
+  }
+
 }
@@ -0,0 +1,438 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import com.google.common.collect.Lists;
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import com.sonar.sslr.impl.LexerException;
+import com.sonar.sslr.impl.Parser;
+import com.sonar.sslr.impl.ast.AstWalker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.python.api.PythonMetric;
+import org.sonar.python.parser.PythonParser;
+import org.sonar.python.profiling.ScanProfiler;
+import org.sonar.squidbridge.AstScanner;
+import org.sonar.squidbridge.AstScannerExceptionHandler;
+import org.sonar.squidbridge.SquidAstVisitor;
+import org.sonar.squidbridge.SquidAstVisitorContextImpl;
+import org.sonar.squidbridge.api.AnalysisException;
+import org.sonar.squidbridge.api.SourceCode;
+import org.sonar.squidbridge.api.SourceCodeIndexer;
+import org.sonar.squidbridge.api.SourceFile;
+import org.sonar.squidbridge.api.SourceProject;
+import org.sonar.squidbridge.checks.SquidCheck;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scans files like {@link AstScanner}, except that each file is lexed before being parsed:
+ * <ul>
+ *   <li>the {@link TokenVisitor}s are still given the tokens of a file which cannot be parsed,</li>
+ *   <li>files exceeding the {@link ParseLimits} are not parsed either, and are visited as files which cannot be parsed,
+ *   though without a parse error,</li>
+ *   <li>generated files, as told by the {@link GeneratedCodeDetector}, are not parsed, and only visited by the visitors
+ *   which are not checks.</li>
+ * </ul>
+ * The time spent on each file is given to the {@link ScanProfiler}, if any, and the squid tree of each file to the
+ * {@link ScannedFileListener}, if any.
+ */
+class PythonScanner extends AstScanner<Grammar> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PythonScanner.class);
+
+  private final SquidAstVisitorContextImpl<Grammar> context;
+  private final PythonConfiguration conf;
+  private final ParseLimits parseLimits;
+  private Parser<Grammar> parser;
+  private final Lexer lexer;
+  private final List<SquidAstVisitor<Grammar>> visitors;
+  private final List<AstAndTokenVisitor> tokenVisitors = Lists.newArrayList();
+  private final List<SquidAstVisitor<Grammar>> metricsVisitors = Lists.newArrayList();
+  private final List<AstAndTokenVisitor> metricsTokenVisitors = Lists.newArrayList();
+  private final List<LineVisitor> lineVisitors = Lists.newArrayList();
+  private final ScanProfiler profiler;
+  private final GeneratedCodeDetector generatedCodeDetector;
+  private final ScannedFileListener scannedFileListener;
+  private ExecutorService parseExecutor;
+  private SourceText sourceText;
+  private IOException readFailure;
+  private boolean degraded;
+
+  PythonScanner(AstScanner.Builder<Grammar> builder, SquidAstVisitorContextImpl<Grammar> context, PythonConfiguration conf, Parser<Grammar> parser,
+    Lexer lexer, List<SquidAstVisitor<Grammar>> visitors) {
+    super(builder);
+    this.context = context;
+    this.conf = conf;
+    this.parseLimits = conf.getParseLimits();
+    this.profiler = conf.getProfiler();
+    this.generatedCodeDetector = conf.getGeneratedCodeDetector();
+    this.scannedFileListener = conf.getScannedFileListener();
+    if (scannedFileListener != null) {
+      context.getProject().setSourceCodeIndexer(new SourceCodeIndexer() {
+        @Override
+        public void index(SourceCode sourceCode) {
+          // the squid trees are released once handed over to the listener
+        }
+      });
+    }
+    this.parser = parser;
+    this.lexer = lexer;
+    this.visitors = Lists.newArrayList(visitors);
+    for (SquidAstVisitor<Grammar> visitor : visitors) {
+      SquidAstVisitor<Grammar> unwrapped = ScanProfiler.unwrap(visitor);
+      boolean check = unwrapped instanceof SquidCheck;
+      if (unwrapped instanceof LineVisitor) {
+        // the profiled wrapper, which forwards the lines
+        lineVisitors.add((LineVisitor) visitor);
+      }
+      if (!check) {
+        metricsVisitors.add(visitor);
+      }
+      if (visitor instanceof TokenVisitor && visitor instanceof AstAndTokenVisitor) {
+        tokenVisitors.add((AstAndTokenVisitor) visitor);
+        if (!check) {
+          metricsTokenVisitors.add((AstAndTokenVisitor) visitor);
+        }
+      }
+    }
+    if (!lineVisitors.isEmpty()) {
+      this.visitors.add(new LinesVisitor());
+    }
+  }
+
+  @Override
+  public void scanFiles(Collection<File> files) {
+    for (SquidAstVisitor<Grammar> visitor : visitors) {
+      visitor.init();
+    }
+    AstWalker astWalker = new AstWalker(visitors);
+    for (File file : files) {
+      long start = System.nanoTime();
+      scanFile(file, astWalker);
+      if (profiler != null) {
+        profiler.fileScanned(file, System.nanoTime() - start);
+      }
+      if (scannedFileListener != null) {
+        handOver(file);
+      }
+    }
+    if (parseExecutor != null) {
+      parseExecutor.shutdown();
+      parseExecutor = null;
+    }
+    for (SquidAstVisitor<Grammar> visitor : visitors) {
+      visitor.destroy();
+    }
+    decorateSquidTree();
+  }
+
+  /**
+   * The project only has the squid tree of the given file, as the trees of the previous files have been handed over.
+   */
+  private void handOver(File file) {
+    SourceProject project = context.getProject();
+    decorateSquidTree();
+    for (SourceCode child : project.getChildren()) {
+      if (child instanceof SourceFile && child.getKey().equals(file.getAbsolutePath())) {
+        project.getChildren().remove(child);
+        scannedFileListener.fileScanned(file, (SourceFile) child, degraded);
+        return;
+      }
+    }
+  }
+
+  private void scanFile(File file, AstWalker astWalker) {
+    context.setFile(file, PythonMetric.FILES);
+    degraded = false;
+    read(file);
+    if (generatedCodeDetector != null && sourceText != null && generatedCodeDetector.isGenerated(sourceText)) {
+      LOG.info("The file {} is generated: only its lines are measured.", file.getAbsolutePath());
+      scanGeneratedFile(file);
+      return;
+    }
+
+    List<Token> tokens = null;
+    AstNode ast = null;
+    Exception parseException = null;
+    try {
+      tokens = lex(file);
+      ast = parseWithinLimits(file, tokens);
+    } catch (RecognitionException e) {
+      parseException = e;
+      LOG.error("Unable to parse file: " + file.getAbsolutePath());
+      LOG.error(e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalysisException("Interrupted while parsing file: " + file.getAbsolutePath(), e);
+    } catch (Exception e) {
+      parseException = e;
+      LOG.error("Unable to parse file: " + file.getAbsolutePath(), e);
+    } catch (Throwable e) {
+      throw new AnalysisException("Unable to parse file: " + file.getAbsolutePath(), e);
+    }
+
+    try {
+      if (ast == null) {
+        visitWithoutTree(visitors, tokenVisitors, tokens, parseException);
+      } else {
+        astWalker.walkAndVisit(ast);
+      }
+      while (!(context.peekSourceCode() instanceof SourceProject)) {
+        context.popSourceCode();
+      }
+    } catch (Throwable e) {
+      throw new AnalysisException("Unable to analyze file: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  /**
+   * Returns null, after a warning, when the file exceeds one of the {@link ParseLimits}.
+   */
+  @CheckForNull
+  private AstNode parseWithinLimits(File file, List<Token> tokens) throws InterruptedException, ExecutionException {
+    String degradation = null;
+    int lines = tokens.get(tokens.size() - 1).getLine();
+    AstNode ast = null;
+    if (parseLimits.exceedsFileSize(file.length())) {
+      degradation = "its size of " + file.length() + " bytes exceeds the limit of " + parseLimits.getMaxFileSize() + " bytes";
+    } else if (parseLimits.exceedsLines(lines)) {
+      degradation = "its " + lines + " lines exceed the limit of " + parseLimits.getMaxLines() + " lines";
+    } else if (parseLimits.hasParseTimeout() && parseLimits.tooManyAbandonedParses()) {
+      degradation = parseLimits.getAbandonedParses() + " parsings abandoned on timeout are still running";
+    } else if (parseLimits.hasParseTimeout()) {
+      ast = parseWithTimeout(tokens);
+      if (ast == null) {
+        degradation = "its parsing took more than " + parseLimits.getParseTimeoutMillis() + " ms (the parsing cannot be stopped, "
+          + "and keeps running in the background until it ends)";
+      }
+    } else {
+      ast = parser.parse(tokens);
+    }
+    if (degradation != null) {
+      degraded = true;
+      parseLimits.fileDegraded();
+      LOG.warn("The file " + file.getAbsolutePath() + " is not parsed, as " + degradation + ": only its lines are measured, and only its tokens are checked.");
+    }
+    return ast;
+  }
+
+  /**
+   * Only called when a timeout is set: otherwise the file is parsed by the calling thread.
+   * The parser cannot be interrupted, as it never checks the interrupt flag nor any deadline, nor reads the tokens
+   * once it has copied them: on timeout, it is left to complete in its own daemon thread, still using CPU, and so are
+   * replaced both this thread and the parser. The {@link ParseLimits} count such parsings until they end, so as to
+   * cap them.
+   */
+  @CheckForNull
+  private AstNode parseWithTimeout(final List<Token> tokens) throws InterruptedException, ExecutionException {
+    if (parseExecutor == null) {
+      parseExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "python-parser");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    final Parser<Grammar> currentParser = parser;
+    // set by whichever ends first: the parsing, or the wait for it
+    final AtomicBoolean over = new AtomicBoolean();
+    Future<AstNode> future = parseExecutor.submit(new Callable<AstNode>() {
+      @Override
+      public AstNode call() {
+        try {
+          return currentParser.parse(tokens);
+        } finally {
+          if (!over.compareAndSet(false, true)) {
+            parseLimits.abandonedParseEnded();
+          }
+        }
+      }
+    });
+    try {
+      return future.get(parseLimits.getParseTimeoutMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      if (!over.compareAndSet(false, true)) {
+        // the parsing has just ended
+        return future.get();
+      }
+      parseLimits.parseAbandoned();
+      future.cancel(true);
+      parseExecutor.shutdownNow();
+      parseExecutor = null;
+      parser = PythonParser.create(conf);
+      return null;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private void scanGeneratedFile(File file) {
+    List<Token> tokens = null;
+    try {
+      tokens = lex(file);
+    } catch (RecognitionException e) {
+      LOG.error("Unable to lex file: " + file.getAbsolutePath());
+      LOG.error(e.getMessage());
+    }
+    try {
+      visitWithoutTree(metricsVisitors, metricsTokenVisitors, tokens, null);
+      while (!(context.peekSourceCode() instanceof SourceProject)) {
+        context.popSourceCode();
+      }
+    } catch (Throwable e) {
+      throw new AnalysisException("Unable to analyze file: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  /**
+   * The file is read once, for the generated code detector, the lexer and the line visitors. A file which cannot be
+   * read is reported by the lexer.
+   */
+  private void read(File file) {
+    sourceText = null;
+    readFailure = null;
+    try {
+      sourceText = SourceText.read(file, conf.getCharset());
+    } catch (IOException e) {
+      readFailure = e;
+    }
+  }
+
+  /**
+   * Lexes the text read for the line visitors. The lexer only knows the URI of the files which it reads itself, so the
+   * tokens and their comments are given the URI of the file afterwards.
+   */
+  private List<Token> lex(File file) {
+    if (sourceText == null) {
+      throw new RecognitionException(new LexerException("Unable to lex file: " + file.getAbsolutePath(), readFailure));
+    }
+    List<Token> lexedTokens;
+    try {
+      lexedTokens = lexer.lex(sourceText.getText());
+    } catch (LexerException e) {
+      // rather than the message of the lexer, which quotes the whole text
+      throw new RecognitionException(new LexerException("Unable to lex file: " + file.getAbsolutePath(), e.getCause()));
+    }
+    URI uri = file.toURI();
+    List<Token> tokens = Lists.newArrayListWithCapacity(lexedTokens.size());
+    for (Token token : lexedTokens) {
+      tokens.add(withURI(token, uri));
+    }
+    return tokens;
+  }
+
+  private static Token withURI(Token token, URI uri) {
+    Token.Builder builder = Token.builder(token).setURI(uri);
+    if (token.hasTrivia()) {
+      List<Trivia> trivia = Lists.newArrayListWithCapacity(token.getTrivia().size());
+      for (Trivia triviaItem : token.getTrivia()) {
+        trivia.add(triviaItem.isComment() ? Trivia.createComment(Token.builder(triviaItem.getToken()).setURI(uri).build()) : triviaItem);
+      }
+      builder.setTrivia(trivia);
+    }
+    return builder.build();
+  }
+
+  /**
+   * All the given visitors are told about the file, but only the token visitors are given its tokens, if it could be lexed.
+   */
+  private void visitWithoutTree(List<SquidAstVisitor<Grammar>> fileVisitors, List<AstAndTokenVisitor> fileTokenVisitors, @Nullable List<Token> tokens,
+    @Nullable Exception parseException) {
+    for (SquidAstVisitor<Grammar> visitor : fileVisitors) {
+      visitor.visitFile(null);
+    }
+    if (parseException != null) {
+      handleParseException(fileVisitors, parseException);
+    }
+    if (tokens != null) {
+      for (Token token : tokens) {
+        for (AstAndTokenVisitor tokenVisitor : fileTokenVisitors) {
+          tokenVisitor.visitToken(token);
+        }
+      }
+    }
+    for (SquidAstVisitor<Grammar> visitor : fileVisitors) {
+      visitor.leaveFile(null);
+    }
+  }
+
+  private static void handleParseException(List<SquidAstVisitor<Grammar>> fileVisitors, Exception parseException) {
+    for (SquidAstVisitor<Grammar> visitor : fileVisitors) {
+      if (visitor instanceof AstScannerExceptionHandler) {
+        if (parseException instanceof RecognitionException) {
+          ((AstScannerExceptionHandler) visitor).processRecognitionException((RecognitionException) parseException);
+        } else {
+          ((AstScannerExceptionHandler) visitor).processException(parseException);
+        }
+      }
+    }
+  }
+
+  /**
+   * Last of the visitors, so that the lines are visited once all the visitors have visited the file. The line visitors
+   * share the text read for the lexer.
+   */
+  private class LinesVisitor extends SquidAstVisitor<Grammar> implements TokenVisitor {
+
+    @Override
+    public void visitFile(@Nullable AstNode astNode) {
+      if (sourceText == null) {
+        return;
+      }
+      for (int line = 1; line <= sourceText.getNumberOfLines(); line++) {
+        for (LineVisitor lineVisitor : lineVisitors) {
+          lineVisitor.visitLine(sourceText, line);
+        }
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import org.sonar.squidbridge.api.SourceFile;
+
+import java.io.File;
+
+/**
+ * Told by the scanner about each file, once all the visitors are done with it. A scanner with a listener does not keep
+ * the squid trees of the files, so that memory does not grow with the number of files: each tree is handed over to
+ * the listener, and then released by the scanner, whose index stays empty.
+ */
+public interface ScannedFileListener {
+
+  /**
+   * @param sourceFile the squid tree of the file, whose measures include those of its functions and classes
+   * @param degraded whether the file was not parsed because it exceeded one of the {@link ParseLimits}: such results
+   * depend on the load of the analysis, not only on the content of the file
+   */
+  void fileScanned(File file, SourceFile sourceFile, boolean degraded);
+
+}
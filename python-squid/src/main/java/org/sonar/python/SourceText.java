@@ -0,0 +1,97 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import com.google.common.io.Files;
+import com.google.common.primitives.Ints;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text of a file, read and decoded once, with the offsets where its lines start.
+ * Lines end with <code>\n</code>, <code>\r\n</code> or <code>\r</code>. Text after the last line terminator, even empty,
+ * is the last line, so that a file has at least one line.
+ */
+public class SourceText {
+
+  private final String text;
+  private final int[] lineStarts;
+
+  public SourceText(String text) {
+    this.text = text;
+    List<Integer> starts = new ArrayList<>();
+    starts.add(0);
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+        starts.add(i + 1);
+      }
+    }
+    this.lineStarts = Ints.toArray(starts);
+  }
+
+  public static SourceText read(File file, Charset charset) throws IOException {
+    return new SourceText(Files.toString(file, charset));
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  public int getNumberOfLines() {
+    return lineStarts.length;
+  }
+
+  /**
+   * @param line starting at 1
+   * @return the offset of the first character of the line
+   */
+  public int lineStart(int line) {
+    return lineStarts[line - 1];
+  }
+
+  /**
+   * @param line starting at 1
+   * @return the offset of the line terminator, or the length of the text for the last line
+   */
+  public int lineEnd(int line) {
+    if (line == lineStarts.length) {
+      return text.length();
+    }
+    int end = lineStarts[line] - 1;
+    if (end > lineStarts[line - 1] && text.charAt(end) == '\n' && text.charAt(end - 1) == '\r') {
+      end--;
+    }
+    return end;
+  }
+
+  public int lineLength(int line) {
+    return lineEnd(line) - lineStart(line);
+  }
+
+  public char charAt(int offset) {
+    return text.charAt(offset);
+  }
+
+}
@@ -0,0 +1,30 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+/**
+ * Marker for the visitors which have something to compute from the tokens of a file alone: they implement visitFile,
+ * leaveFile and, being {@link com.sonar.sslr.api.AstAndTokenVisitor}s, visitToken.
+ * <p>
+ * Such visitors are also run on the files which cannot be parsed, with a null node given to visitFile and leaveFile.
+ * Most of them never subscribe to AST nodes: the ones which do only visit the nodes of the files which are parsed.
+ */
+public interface TokenVisitor {
+}
@@ -0,0 +1,176 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.api;
+
+import com.google.common.primitives.Ints;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import org.sonar.python.FileContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the nodes of a file by type, built in a single pre-order pass over the syntax tree. The nodes of each type
+ * are kept in pre-order with their positions, and each node knows the position where its subtree ends, so that the
+ * descendants of a given type are found by binary search instead of a walk of the subtree.
+ */
+public class NodeTypeIndex {
+
+  private final Map<AstNode, Integer> positions = new IdentityHashMap<>();
+  private final int[] subtreeEnds;
+  private final Map<AstNodeType, AstNode[]> nodesByType = new HashMap<>();
+  private final Map<AstNodeType, int[]> positionsByType = new HashMap<>();
+
+  private NodeTypeIndex(AstNode root) {
+    Builder builder = new Builder();
+    builder.index(root);
+    subtreeEnds = Ints.toArray(builder.subtreeEnds);
+    for (Map.Entry<AstNodeType, List<AstNode>> entry : builder.nodes.entrySet()) {
+      nodesByType.put(entry.getKey(), entry.getValue().toArray(new AstNode[entry.getValue().size()]));
+      positionsByType.put(entry.getKey(), Ints.toArray(builder.typePositions.get(entry.getKey())));
+    }
+  }
+
+  /**
+   * Index of the file of the given node. While a file is scanned, all the checks share its index, held by the
+   * {@link FileContext} of the scanner. Otherwise, a new index is built by each call.
+   */
+  public static NodeTypeIndex of(AstNode node) {
+    AstNode root = node;
+    while (root.getParent() != null) {
+      root = root.getParent();
+    }
+    FileContext fileContext = FileContext.current();
+    return fileContext == null ? build(root) : fileContext.getNodeTypeIndex(root);
+  }
+
+  /**
+   * New index of the whole tree of the given root.
+   */
+  public static NodeTypeIndex build(AstNode root) {
+    return new NodeTypeIndex(root);
+  }
+
+  /**
+   * Same as {@link AstNode#getDescendants(AstNodeType...)} with a single type, as an unmodifiable view.
+   */
+  public List<AstNode> descendants(AstNode node, AstNodeType type) {
+    AstNode[] nodes = nodesByType.get(type);
+    if (nodes == null) {
+      return Collections.emptyList();
+    }
+    int[] typePositions = positionsByType.get(type);
+    int position = position(node);
+    int from = firstPositionAfter(typePositions, position);
+    int to = firstPositionAfter(typePositions, subtreeEnds[position]);
+    return Collections.unmodifiableList(Arrays.asList(nodes).subList(from, to));
+  }
+
+  public boolean hasDescendant(AstNode node, AstNodeType type) {
+    return !descendants(node, type).isEmpty();
+  }
+
+  /**
+   * Descendants of the given types, in pre-order, which are not in the subtree of a descendant of the excluded type:
+   * for instance, the statements of a function which are not in nested functions.
+   */
+  public List<AstNode> descendantsOutside(AstNode node, AstNodeType excludedType, AstNodeType... types) {
+    List<AstNode> candidates = descendants(node, types[0]);
+    if (types.length > 1) {
+      candidates = new ArrayList<>(candidates);
+      for (int i = 1; i < types.length; i++) {
+        candidates.addAll(descendants(node, types[i]));
+      }
+      Collections.sort(candidates, new PositionComparator());
+    }
+    List<AstNode> excluded = descendants(node, excludedType);
+    List<AstNode> result = new ArrayList<>();
+    int nextExcluded = 0;
+    int excludedUntil = -1;
+    for (AstNode candidate : candidates) {
+      int position = position(candidate);
+      while (nextExcluded < excluded.size() && position(excluded.get(nextExcluded)) < position) {
+        excludedUntil = Math.max(excludedUntil, subtreeEnds[position(excluded.get(nextExcluded))]);
+        nextExcluded++;
+      }
+      if (position > excludedUntil) {
+        result.add(candidate);
+      }
+    }
+    return result;
+  }
+
+  private int position(AstNode node) {
+    Integer position = positions.get(node);
+    if (position == null) {
+      throw new IllegalArgumentException("Node not indexed: " + node);
+    }
+    return position;
+  }
+
+  /**
+   * Index of the first of the sorted positions which is greater than the given one.
+   */
+  private static int firstPositionAfter(int[] sortedPositions, int position) {
+    int index = Arrays.binarySearch(sortedPositions, position);
+    return index >= 0 ? (index + 1) : (-index - 1);
+  }
+
+  private class PositionComparator implements Comparator<AstNode> {
+    @Override
+    public int compare(AstNode node1, AstNode node2) {
+      return Integer.compare(position(node1), position(node2));
+    }
+  }
+
+  private class Builder {
+
+    private final List<Integer> subtreeEnds = new ArrayList<>();
+    private final Map<AstNodeType, List<AstNode>> nodes = new HashMap<>();
+    private final Map<AstNodeType, List<Integer>> typePositions = new HashMap<>();
+
+    private void index(AstNode node) {
+      int position = subtreeEnds.size();
+      positions.put(node, position);
+      subtreeEnds.add(position);
+      List<AstNode> nodesOfType = nodes.get(node.getType());
+      if (nodesOfType == null) {
+        nodesOfType = new ArrayList<>();
+        nodes.put(node.getType(), nodesOfType);
+        typePositions.put(node.getType(), new ArrayList<Integer>());
+      }
+      nodesOfType.add(node);
+      typePositions.get(node.getType()).add(position);
+      for (AstNode child : node.getChildren()) {
+        index(child);
+      }
+      subtreeEnds.set(position, subtreeEnds.size() - 1);
+    }
+
+  }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.api;
+
+import com.google.common.collect.ImmutableList;
+import com.sonar.sslr.api.AstNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.sonar.python.api.PythonGrammar.ARGLIST;
+import static org.sonar.python.api.PythonGrammar.ARGUMENT;
+import static org.sonar.python.api.PythonGrammar.ASSERT_STMT;
+import static org.sonar.python.api.PythonGrammar.ATOM;
+import static org.sonar.python.api.PythonGrammar.AUGASSIGN;
+import static org.sonar.python.api.PythonGrammar.BREAK_STMT;
+import static org.sonar.python.api.PythonGrammar.CLASSDEF;
+import static org.sonar.python.api.PythonGrammar.COMPOUND_STMT;
+import static org.sonar.python.api.PythonGrammar.COMP_FOR;
+import static org.sonar.python.api.PythonGrammar.CONTINUE_STMT;
+import static org.sonar.python.api.PythonGrammar.DEL_STMT;
+import static org.sonar.python.api.PythonGrammar.DICTORSETMAKER;
+import static org.sonar.python.api.PythonGrammar.EXCEPT_CLAUSE;
+import static org.sonar.python.api.PythonGrammar.EXEC_STMT;
+import static org.sonar.python.api.PythonGrammar.EXPR;
+import static org.sonar.python.api.PythonGrammar.EXPRESSION_STMT;
+import static org.sonar.python.api.PythonGrammar.EXPRLIST;
+import static org.sonar.python.api.PythonGrammar.FILE_INPUT;
+import static org.sonar.python.api.PythonGrammar.FOR_STMT;
+import static org.sonar.python.api.PythonGrammar.FUNCDEF;
+import static org.sonar.python.api.PythonGrammar.FUN_RETURN_ANNOTATION;
+import static org.sonar.python.api.PythonGrammar.GLOBAL_STMT;
+import static org.sonar.python.api.PythonGrammar.IF_STMT;
+import static org.sonar.python.api.PythonGrammar.IMPORT_STMT;
+import static org.sonar.python.api.PythonGrammar.LAMBDEF;
+import static org.sonar.python.api.PythonGrammar.NONLOCAL_STMT;
+import static org.sonar.python.api.PythonGrammar.PASS_STMT;
+import static org.sonar.python.api.PythonGrammar.PRINT_STMT;
+import static org.sonar.python.api.PythonGrammar.RAISE_STMT;
+import static org.sonar.python.api.PythonGrammar.RETURN_STMT;
+import static org.sonar.python.api.PythonGrammar.SIMPLE_STMT;
+import static org.sonar.python.api.PythonGrammar.SLICEOP;
+import static org.sonar.python.api.PythonGrammar.STAR_EXPR;
+import static org.sonar.python.api.PythonGrammar.STATEMENT;
+import static org.sonar.python.api.PythonGrammar.STMT_LIST;
+import static org.sonar.python.api.PythonGrammar.SUBSCRIPT;
+import static org.sonar.python.api.PythonGrammar.SUITE;
+import static org.sonar.python.api.PythonGrammar.TEST;
+import static org.sonar.python.api.PythonGrammar.TESTLIST;
+import static org.sonar.python.api.PythonGrammar.TESTLIST_COMP;
+import static org.sonar.python.api.PythonGrammar.TESTLIST_STAR_EXPR;
+import static org.sonar.python.api.PythonGrammar.TFPDEF;
+import static org.sonar.python.api.PythonGrammar.TRY_STMT;
+import static org.sonar.python.api.PythonGrammar.TYPEDARGSLIST;
+import static org.sonar.python.api.PythonGrammar.VARARGSLIST;
+import static org.sonar.python.api.PythonGrammar.WHILE_STMT;
+import static org.sonar.python.api.PythonGrammar.WITH_ITEM;
+import static org.sonar.python.api.PythonGrammar.WITH_STMT;
+import static org.sonar.python.api.PythonGrammar.YIELD_EXPR;
+import static org.sonar.python.api.PythonGrammar.YIELD_STMT;
+
+/**
+ * Navigation in the syntax tree which gives the same results whether the tree is compact or not, see {@link PythonGrammar#create(boolean)}.
+ * <p>
+ * In a compact tree, a node of {@link PythonGrammar#COMPACT_TREE_WRAPPERS} which has only one child is replaced by this child.
+ * The child is then said to stand for the rule of the node which has been left out: for instance, the <code>ATOM</code>
+ * of <code>return x</code> stands for a <code>TEST</code> and for a <code>TESTLIST</code>.
+ * Nodes also stand for their own rule, so that <code>standsFor(node, PythonGrammar.TEST)</code> can replace <code>node.is(PythonGrammar.TEST)</code>.
+ */
+public final class PythonAstNodes {
+
+  private static final Set<PythonGrammar> SIMPLE_STATEMENTS = EnumSet.of(
+    PRINT_STMT,
+    EXEC_STMT,
+    EXPRESSION_STMT,
+    ASSERT_STMT,
+    PASS_STMT,
+    DEL_STMT,
+    RETURN_STMT,
+    YIELD_STMT,
+    RAISE_STMT,
+    BREAK_STMT,
+    CONTINUE_STMT,
+    IMPORT_STMT,
+    GLOBAL_STMT,
+    NONLOCAL_STMT);
+
+  private static final Set<PythonGrammar> COMPOUND_STATEMENTS = EnumSet.of(
+    IF_STMT,
+    WHILE_STMT,
+    FOR_STMT,
+    TRY_STMT,
+    WITH_STMT,
+    FUNCDEF,
+    CLASSDEF);
+
+  private PythonAstNodes() {
+  }
+
+  /**
+   * Rules which can be the child of a <code>SIMPLE_STMT</code>.
+   */
+  public static PythonGrammar[] simpleStatementTypes() {
+    return SIMPLE_STATEMENTS.toArray(new PythonGrammar[SIMPLE_STATEMENTS.size()]);
+  }
+
+  public static boolean standsFor(AstNode node, PythonGrammar type) {
+    return node.is(type) || (PythonGrammar.COMPACT_TREE_WRAPPERS.contains(type) && isRule(node) && node.getParent() != null && occupies(node, type));
+  }
+
+  /**
+   * Same as {@link AstNode#getChildren(com.sonar.sslr.api.AstNodeType...)} with {@link #standsFor(AstNode, PythonGrammar)}.
+   */
+  public static List<AstNode> children(AstNode node, PythonGrammar type) {
+    List<AstNode> result = new ArrayList<>();
+    for (AstNode child : node.getChildren()) {
+      if (standsFor(child, type)) {
+        result.add(child);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Same as {@link AstNode#getFirstChild(com.sonar.sslr.api.AstNodeType...)} with {@link #standsFor(AstNode, PythonGrammar)}.
+   */
+  public static AstNode firstChild(AstNode node, PythonGrammar type) {
+    for (AstNode child : node.getChildren()) {
+      if (standsFor(child, type)) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Children of type <code>childType</code> of the <code>type</code> node which the given node stands for:
+   * when this <code>type</code> node has been left out, the given node is its only child.
+   */
+  public static List<AstNode> childrenOf(AstNode node, PythonGrammar type, PythonGrammar childType) {
+    if (node.is(type)) {
+      return children(node, childType);
+    }
+    return standsFor(node, childType) ? Collections.singletonList(node) : Collections.<AstNode>emptyList();
+  }
+
+  /**
+   * Descends through the nodes of {@link PythonGrammar#COMPACT_TREE_WRAPPERS} which have only one child.
+   */
+  public static AstNode skipWrappers(AstNode node) {
+    AstNode result = node;
+    while (PythonGrammar.COMPACT_TREE_WRAPPERS.contains(result.getType()) && result.getNumberOfChildren() == 1) {
+      result = result.getFirstChild();
+    }
+    return result;
+  }
+
+  /**
+   * Nodes standing for the statements of a <code>FILE_INPUT</code> or of a <code>SUITE</code>.
+   * A <code>SUITE</code> on the same line as its header has no statements, only {@link #simpleStatements(AstNode) simple statements}.
+   */
+  public static List<AstNode> statements(AstNode fileInputOrSuite) {
+    return children(fileInputOrSuite, STATEMENT);
+  }
+
+  /**
+   * Simple statements (<code>PASS_STMT</code>, <code>EXPRESSION_STMT</code>...) of a node standing for a <code>STATEMENT</code>,
+   * or of a <code>SUITE</code> on the same line as its header. Empty for compound statements and for other suites.
+   */
+  public static List<AstNode> simpleStatements(AstNode statementOrSuite) {
+    AstNode stmtList = statementOrSuite.is(STATEMENT, SUITE) ? statementOrSuite.getFirstChild() : statementOrSuite;
+    if (!standsFor(stmtList, STMT_LIST)) {
+      return Collections.emptyList();
+    }
+    ImmutableList.Builder<AstNode> result = ImmutableList.builder();
+    for (AstNode simpleStatement : childrenOf(stmtList, STMT_LIST, SIMPLE_STMT)) {
+      result.add(simpleStatement.is(SIMPLE_STMT) ? simpleStatement.getFirstChild() : simpleStatement);
+    }
+    return result.build();
+  }
+
+  /**
+   * Compound statement (<code>IF_STMT</code>, <code>FUNCDEF</code>...) of a node standing for a <code>STATEMENT</code>, or null.
+   */
+  public static AstNode compoundStatement(AstNode statement) {
+    AstNode result = statement.is(STATEMENT) ? statement.getFirstChild() : statement;
+    if (result.is(COMPOUND_STMT)) {
+      result = result.getFirstChild();
+    }
+    return COMPOUND_STATEMENTS.contains(result.getType()) ? result : null;
+  }
+
+  private static boolean isRule(AstNode node) {
+    return node.getType() instanceof PythonGrammar;
+  }
+
+  /**
+   * Whether the node is where the grammar expects a node of the given wrapper rule.
+   */
+  private static boolean occupies(AstNode node, PythonGrammar type) {
+    AstNode parent = node.getParent();
+    AstNode previous = node.getPreviousSibling();
+    switch (type) {
+      case STATEMENT:
+        return parent.is(FILE_INPUT) || (parent.is(SUITE) && parent.getFirstChild().is(PythonTokenType.NEWLINE));
+      case STMT_LIST:
+        return parent.is(STATEMENT, SUITE, FILE_INPUT) && standsFor(node, SIMPLE_STMT);
+      case SIMPLE_STMT:
+        // such statements are always the child of a SIMPLE_STMT in the full tree
+        return SIMPLE_STATEMENTS.contains(node.getType()) && !parent.is(SIMPLE_STMT);
+      case COMPOUND_STMT:
+        return COMPOUND_STATEMENTS.contains(node.getType()) && !parent.is(COMPOUND_STMT);
+      case TESTLIST_STAR_EXPR:
+        return parent.is(EXPRESSION_STMT) && !node.is(YIELD_EXPR) && (previous == null || previous.is(PythonPunctuator.ASSIGN));
+      case TESTLIST:
+        return !node.is(YIELD_EXPR) && (parent.is(RETURN_STMT, YIELD_EXPR)
+          || (parent.is(EXPRESSION_STMT) && previous != null && previous.is(AUGASSIGN))
+          || (parent.is(FOR_STMT, COMP_FOR) && previous.is(PythonKeyword.IN)));
+      case TESTLIST_COMP:
+        return parent.is(ATOM) && previous != null && previous.is(PythonPunctuator.LPARENTHESIS, PythonPunctuator.LBRACKET) && !node.is(YIELD_EXPR);
+      case EXPRLIST:
+        return parent.is(DEL_STMT) || (parent.is(FOR_STMT, COMP_FOR) && previous.is(PythonKeyword.FOR));
+      case TEST:
+        return !node.is(STAR_EXPR) && (occupiesTest(node, parent, previous)
+          || standsForLeftOutNode(node, TESTLIST_STAR_EXPR) || standsForLeftOutNode(node, TESTLIST) || standsForLeftOutNode(node, TESTLIST_COMP));
+      case EXPR:
+        return !node.is(STAR_EXPR) && (parent.is(STAR_EXPR, EXPRLIST)
+          || (parent.is(EXEC_STMT) && previous == parent.getFirstChild())
+          || (parent.is(WITH_ITEM) && previous != null && previous.is(PythonKeyword.AS))
+          || standsForLeftOutNode(node, EXPRLIST));
+      default:
+        throw new IllegalArgumentException(type.toString());
+    }
+  }
+
+  private static boolean standsForLeftOutNode(AstNode node, PythonGrammar type) {
+    return !node.is(type) && occupies(node, type);
+  }
+
+  private static boolean occupiesTest(AstNode node, AstNode parent, AstNode previous) {
+    if (parent.is(TEST)) {
+      // conditional expression: only the expression after "else" is a TEST
+      return parent.getNumberOfChildren() == 5 && node == parent.getLastChild();
+    } else if (parent.is(LAMBDEF, SLICEOP, FUN_RETURN_ANNOTATION)) {
+      return node == parent.getLastChild();
+    } else if (parent.is(ATOM)) {
+      return parent.getFirstChild().is(PythonPunctuator.BACKTICK);
+    } else if (parent.is(VARARGSLIST, TYPEDARGSLIST)) {
+      return previous != null && previous.is(PythonPunctuator.ASSIGN);
+    } else if (parent.is(TFPDEF)) {
+      return previous != null && previous.is(PythonPunctuator.COLON);
+    } else if (parent.is(EXEC_STMT)) {
+      return previous != parent.getFirstChild();
+    } else if (parent.is(WITH_ITEM)) {
+      return previous == null;
+    } else if (parent.is(ARGLIST)) {
+      return !node.is(ARGUMENT);
+    }
+    return parent.is(TESTLIST_STAR_EXPR, TESTLIST_COMP, TESTLIST, DICTORSETMAKER, ARGUMENT, SUBSCRIPT,
+      PRINT_STMT, ASSERT_STMT, RAISE_STMT, EXCEPT_CLAUSE, IF_STMT, WHILE_STMT)
+      && !node.is(COMP_FOR, SLICEOP, SUITE);
+  }
+
+}
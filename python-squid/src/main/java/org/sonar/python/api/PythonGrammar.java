@@ -22,6 +22,9 @@ package org.sonar.python.api;
 import org.sonar.sslr.grammar.GrammarRuleKey;
 import org.sonar.sslr.grammar.LexerfulGrammarBuilder;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import static com.sonar.sslr.api.GenericTokenType.EOF;
 import static com.sonar.sslr.api.GenericTokenType.IDENTIFIER;
 import static org.sonar.python.api.PythonTokenType.DEDENT;
@@ -152,7 +155,31 @@ public enum PythonGrammar implements GrammarRuleKey {
 
   FILE_INPUT;
 
+  /**
+   * Rules which are left out of the compact tree when they have only one child.
+   * See {@link PythonAstNodes} to navigate in both kinds of trees.
+   */
+  static final Set<PythonGrammar> COMPACT_TREE_WRAPPERS = EnumSet.of(
+    TEST,
+    EXPR,
+    TESTLIST,
+    TESTLIST_STAR_EXPR,
+    TESTLIST_COMP,
+    EXPRLIST,
+    STATEMENT,
+    STMT_LIST,
+    SIMPLE_STMT,
+    COMPOUND_STMT);
+
   public static LexerfulGrammarBuilder create() {
+    return create(false);
+  }
+
+  /**
+   * @param compactTree when true, the rules of {@link #COMPACT_TREE_WRAPPERS} do not create a node when they have only one child,
+   * which saves about a fifth of the nodes of the tree. See {@link PythonAstNodes} to navigate the tree whatever its shape.
+   */
+  public static LexerfulGrammarBuilder create(boolean compactTree) {
     LexerfulGrammarBuilder b = LexerfulGrammarBuilder.create();
 
     b.rule(FILE_INPUT).is(b.zeroOrMore(b.firstOf(NEWLINE, STATEMENT)), EOF);
@@ -162,6 +189,12 @@ public enum PythonGrammar implements GrammarRuleKey {
     simpleStatements(b);
     expressions(b);
 
+    if (compactTree) {
+      for (PythonGrammar wrapper : COMPACT_TREE_WRAPPERS) {
+        b.rule(wrapper).skipIfOneChild();
+      }
+    }
+
     b.setRootRule(FILE_INPUT);
     b.buildWithMemoizationOfMatchesForAllRules();
 
@@ -0,0 +1,381 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.lexer;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import org.sonar.python.api.PythonKeyword;
+import org.sonar.python.api.PythonPunctuator;
+import org.sonar.python.api.PythonTokenType;
+import org.sonar.sslr.channel.Channel;
+import org.sonar.sslr.channel.CodeReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recognizes whitespaces, comments, string literals, numbers, identifiers, keywords and punctuators.
+ * <p>
+ * Dispatches on the first character instead of trying one channel after the other, and scans with hand-written loops
+ * which match exactly what the following regular expressions would match, tried in this order:
+ * <ul>
+ *   <li>whitespaces: {@code \s}</li>
+ *   <li>comments: {@code #[^\n\r]*+}</li>
+ *   <li>string literals: see {@link StringLiteralsChannel}, then {@code (br|bR|b|Br|BR|B)'([^'\\]*+(\\[\s\S])?+)*+'} and the same with double quotes</li>
+ *   <li>numbers: {@code [0-9]++\.[0-9]*+EXP?+J?+}, {@code \.[0-9]++EXP?+J?+}, {@code [0-9]++EXP J?+}, {@code [0-9]++J},
+ *   {@code 0[oO]?+[0-7]++L?+}, {@code 0[xX][0-9a-fA-F]++L?+}, {@code 0[bB][01]++L?+}, {@code [1-9][0-9]*+L?+}, {@code 0++L?+},
+ *   where EXP is {@code [Ee][+-]?+[0-9_]++}, J is {@code [jJ]} and L is {@code [lL]}</li>
+ *   <li>identifiers and keywords: {@code [a-zA-Z_]\w*}</li>
+ *   <li>punctuators: the longest matching {@link PythonPunctuator}</li>
+ * </ul>
+ */
+public class PythonTokenChannel extends Channel<Lexer> {
+
+  private static final char EOF = (char) -1;
+
+  private final StringLiteralsChannel stringLiteralsChannel = new StringLiteralsChannel();
+  private final Map<String, TokenType> keywords = new HashMap<>();
+  private final PythonPunctuator[][] punctuatorsByFirstChar = new PythonPunctuator[128][];
+  private final StringBuilder sb = new StringBuilder();
+
+  public PythonTokenChannel() {
+    for (PythonKeyword keyword : PythonKeyword.values()) {
+      keywords.put(keyword.getValue(), keyword);
+    }
+    List<PythonPunctuator> punctuators = new ArrayList<>(Arrays.asList(PythonPunctuator.values()));
+    Collections.sort(punctuators, new Comparator<PythonPunctuator>() {
+      @Override
+      public int compare(PythonPunctuator a, PythonPunctuator b) {
+        return b.getValue().length() - a.getValue().length();
+      }
+    });
+    for (char c = 0; c < punctuatorsByFirstChar.length; c++) {
+      List<PythonPunctuator> candidates = new ArrayList<>();
+      for (PythonPunctuator punctuator : punctuators) {
+        if (punctuator.getValue().charAt(0) == c) {
+          candidates.add(punctuator);
+        }
+      }
+      if (!candidates.isEmpty()) {
+        punctuatorsByFirstChar[c] = candidates.toArray(new PythonPunctuator[candidates.size()]);
+      }
+    }
+  }
+
+  @Override
+  public boolean consume(CodeReader code, Lexer output) {
+    char ch = code.charAt(0);
+    if (isWhitespace(ch)) {
+      // new lines are consumed by NewLineChannel, and indentation by IndentationChannel
+      do {
+        code.pop();
+      } while (isWhitespace(code.charAt(0)));
+      return true;
+    }
+    if (ch == '#') {
+      consumeComment(code, output);
+      return true;
+    }
+    if (isStringStart(ch) && (stringLiteralsChannel.consume(code, output) || consumeBytes(code, output))) {
+      return true;
+    }
+    int length = numberLength(code);
+    if (length > 0) {
+      addToken(code, output, PythonTokenType.NUMBER, length);
+      return true;
+    }
+    if (isIdentifierStart(ch)) {
+      consumeIdentifierOrKeyword(code, output);
+      return true;
+    }
+    return consumePunctuator(code, output, ch);
+  }
+
+  private void consumeComment(CodeReader code, Lexer output) {
+    int length = 1;
+    for (char c = code.charAt(length); c != '\n' && c != '\r' && c != EOF; c = code.charAt(length)) {
+      length++;
+    }
+    Token comment = createToken(code, output, GenericTokenType.COMMENT, length);
+    output.addTrivia(Trivia.createComment(comment));
+  }
+
+  /**
+   * Short bytes literals not recognized by {@link StringLiteralsChannel}, for instance {@code b''} when followed by a quote.
+   */
+  private boolean consumeBytes(CodeReader code, Lexer output) {
+    if (code.charAt(0) != 'b' && code.charAt(0) != 'B') {
+      return false;
+    }
+    int index = 1;
+    if (code.charAt(index) == 'r' || code.charAt(index) == 'R') {
+      index++;
+    }
+    char quote = code.charAt(index);
+    if (quote != '\'' && quote != '"') {
+      return false;
+    }
+    index++;
+    while (code.charAt(index) != quote) {
+      if (code.charAt(index) == EOF) {
+        return false;
+      }
+      if (code.charAt(index) == '\\') {
+        // escape
+        index++;
+      }
+      index++;
+    }
+    addToken(code, output, PythonTokenType.STRING, index + 1);
+    return true;
+  }
+
+  private static int numberLength(CodeReader code) {
+    int digits = count(code, 0, DIGITS);
+    if (digits > 0 && code.charAt(digits) == '.') {
+      int length = digits + 1 + count(code, digits + 1, DIGITS);
+      length += exponentLength(code, length);
+      return length + imaginarySuffixLength(code, length);
+    }
+    if (code.charAt(0) == '.') {
+      int fraction = count(code, 1, DIGITS);
+      if (fraction == 0) {
+        return 0;
+      }
+      int length = 1 + fraction;
+      length += exponentLength(code, length);
+      return length + imaginarySuffixLength(code, length);
+    }
+    if (digits == 0) {
+      return 0;
+    }
+    int exponent = exponentLength(code, digits);
+    if (exponent > 0) {
+      return digits + exponent + imaginarySuffixLength(code, digits + exponent);
+    }
+    if (imaginarySuffixLength(code, digits) > 0) {
+      return digits + 1;
+    }
+    if (code.charAt(0) == '0') {
+      return integerStartingWithZeroLength(code);
+    }
+    return digits + longSuffixLength(code, digits);
+  }
+
+  private static int integerStartingWithZeroLength(CodeReader code) {
+    char second = code.charAt(1);
+    int start = second == 'o' || second == 'O' ? 2 : 1;
+    int length = count(code, start, OCTAL_DIGITS);
+    if (length > 0) {
+      return start + length + longSuffixLength(code, start + length);
+    }
+    if (second == 'x' || second == 'X') {
+      length = count(code, 2, HEX_DIGITS);
+    } else if (second == 'b' || second == 'B') {
+      length = count(code, 2, BINARY_DIGITS);
+    }
+    if (length > 0) {
+      return 2 + length + longSuffixLength(code, 2 + length);
+    }
+    length = count(code, 0, ZERO);
+    return length + longSuffixLength(code, length);
+  }
+
+  private static int exponentLength(CodeReader code, int index) {
+    char c = code.charAt(index);
+    if (c != 'e' && c != 'E') {
+      return 0;
+    }
+    int length = 1;
+    c = code.charAt(index + length);
+    if (c == '+' || c == '-') {
+      length++;
+    }
+    int digits = count(code, index + length, EXPONENT_DIGITS);
+    return digits == 0 ? 0 : (length + digits);
+  }
+
+  private static int imaginarySuffixLength(CodeReader code, int index) {
+    char c = code.charAt(index);
+    return c == 'j' || c == 'J' ? 1 : 0;
+  }
+
+  private static int longSuffixLength(CodeReader code, int index) {
+    char c = code.charAt(index);
+    return c == 'l' || c == 'L' ? 1 : 0;
+  }
+
+  private void consumeIdentifierOrKeyword(CodeReader code, Lexer output) {
+    int length = 1;
+    while (isIdentifierPart(code.charAt(length))) {
+      length++;
+    }
+    int line = code.getLinePosition();
+    int column = code.getColumnPosition();
+    String value = pop(code, length);
+    TokenType type = keywords.get(value);
+    output.addToken(Token.builder()
+        .setLine(line)
+        .setColumn(column)
+        .setURI(output.getURI())
+        .setValueAndOriginalValue(value)
+        .setType(type == null ? GenericTokenType.IDENTIFIER : type)
+        .build());
+  }
+
+  private boolean consumePunctuator(CodeReader code, Lexer output, char ch) {
+    PythonPunctuator[] candidates = ch < punctuatorsByFirstChar.length ? punctuatorsByFirstChar[ch] : null;
+    if (candidates == null) {
+      return false;
+    }
+    for (PythonPunctuator punctuator : candidates) {
+      if (startsWith(code, punctuator.getValue())) {
+        addToken(code, output, punctuator, punctuator.getValue().length());
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsWith(CodeReader code, String value) {
+    for (int i = 1; i < value.length(); i++) {
+      if (code.charAt(i) != value.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void addToken(CodeReader code, Lexer output, TokenType type, int length) {
+    output.addToken(createToken(code, output, type, length));
+  }
+
+  private Token createToken(CodeReader code, Lexer output, TokenType type, int length) {
+    int line = code.getLinePosition();
+    int column = code.getColumnPosition();
+    return Token.builder()
+        .setLine(line)
+        .setColumn(column)
+        .setURI(output.getURI())
+        .setValueAndOriginalValue(pop(code, length))
+        .setType(type)
+        .build();
+  }
+
+  private String pop(CodeReader code, int length) {
+    for (int i = 0; i < length; i++) {
+      sb.append((char) code.pop());
+    }
+    String value = sb.toString();
+    sb.setLength(0);
+    return value;
+  }
+
+  private static int count(CodeReader code, int index, CharacterClass characterClass) {
+    int length = 0;
+    while (characterClass.contains(code.charAt(index + length))) {
+      length++;
+    }
+    return length;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\u000B' || c == '\f';
+  }
+
+  private static boolean isStringStart(char c) {
+    switch (c) {
+      case '\'':
+      case '"':
+      case 'u':
+      case 'U':
+      case 'b':
+      case 'B':
+      case 'r':
+      case 'R':
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isIdentifierStart(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return isIdentifierStart(c) || (c >= '0' && c <= '9');
+  }
+
+  private interface CharacterClass {
+    boolean contains(char c);
+  }
+
+  private static final CharacterClass DIGITS = new CharacterClass() {
+    @Override
+    public boolean contains(char c) {
+      return c >= '0' && c <= '9';
+    }
+  };
+
+  private static final CharacterClass EXPONENT_DIGITS = new CharacterClass() {
+    @Override
+    public boolean contains(char c) {
+      return (c >= '0' && c <= '9') || c == '_';
+    }
+  };
+
+  private static final CharacterClass OCTAL_DIGITS = new CharacterClass() {
+    @Override
+    public boolean contains(char c) {
+      return c >= '0' && c <= '7';
+    }
+  };
+
+  private static final CharacterClass HEX_DIGITS = new CharacterClass() {
+    @Override
+    public boolean contains(char c) {
+      return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+  };
+
+  private static final CharacterClass BINARY_DIGITS = new CharacterClass() {
+    @Override
+    public boolean contains(char c) {
+      return c == '0' || c == '1';
+    }
+  };
+
+  private static final CharacterClass ZERO = new CharacterClass() {
+    @Override
+    public boolean contains(char c) {
+      return c == '0';
+    }
+  };
+
+}
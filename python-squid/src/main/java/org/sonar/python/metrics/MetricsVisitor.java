@@ -0,0 +1,213 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.metrics;
+
+import com.google.common.collect.Sets;
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.api.Trivia;
+import org.sonar.python.TokenVisitor;
+import org.sonar.python.api.PythonAstNodes;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.api.PythonKeyword;
+import org.sonar.python.api.PythonMetric;
+import org.sonar.python.api.PythonTokenType;
+import org.sonar.squidbridge.CommentAnalyser;
+import org.sonar.squidbridge.SquidAstVisitor;
+import org.sonar.squidbridge.api.SourceCode;
+import org.sonar.squidbridge.api.SourceFile;
+
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * Computes all the {@link PythonMetric} values, except {@link PythonMetric#FILES}, in a single pass over the nodes and
+ * tokens of a file. The metrics of the lines, {@link PythonMetric#LINES}, {@link PythonMetric#LINES_OF_CODE} and
+ * {@link PythonMetric#COMMENT_LINES}, only depend on the tokens, so that they are also computed for the files which
+ * cannot be parsed, whose nodes are never visited. Like the squid visitors it replaces, measures are added to the innermost class or function,
+ * and summed up into the file by the decoration of the squid tree.
+ * <p>
+ * The lines of code and the comment lines of the file are also kept, as the data of {@link PythonMetric#LINES_OF_CODE}
+ * and {@link PythonMetric#COMMENT_LINES} on the {@link SourceFile}: see {@link #linesOfCode(SourceCode)} and
+ * {@link #linesOfComments(SourceCode)}.
+ */
+public class MetricsVisitor extends SquidAstVisitor<Grammar> implements AstAndTokenVisitor, TokenVisitor {
+
+  private static final String NOSONAR_TAG = "NOSONAR";
+
+  private static final AstNodeType[] COMPLEXITY_NODE_TYPES = {
+    // Entry points
+    PythonGrammar.FUNCDEF,
+
+    // Branching nodes
+    // Note that IF_STMT covered by PythonKeyword.IF below
+    PythonGrammar.WHILE_STMT,
+    PythonGrammar.FOR_STMT,
+    PythonGrammar.RETURN_STMT,
+    PythonGrammar.RAISE_STMT,
+    PythonGrammar.EXCEPT_CLAUSE,
+
+    // Expressions
+    PythonKeyword.IF,
+    PythonKeyword.AND,
+    PythonKeyword.OR
+  };
+
+  private final boolean ignoreHeaderComments;
+
+  private BitSet linesOfCode;
+  private BitSet linesOfComments;
+  private final BitSet commentLines = new BitSet();
+  private final BitSet noSonarLines = new BitSet();
+  private int lastTokenLine;
+  private boolean seenFirstToken;
+
+  public MetricsVisitor(boolean ignoreHeaderComments) {
+    this.ignoreHeaderComments = ignoreHeaderComments;
+  }
+
+  /**
+   * Lines of the given file which contain at least one token.
+   */
+  public static BitSet linesOfCode(SourceCode sourceFile) {
+    return (BitSet) sourceFile.getData(PythonMetric.LINES_OF_CODE);
+  }
+
+  /**
+   * Lines of the given file which contain a comment, whatever its content.
+   */
+  public static BitSet linesOfComments(SourceCode sourceFile) {
+    return (BitSet) sourceFile.getData(PythonMetric.COMMENT_LINES);
+  }
+
+  @Override
+  public void init() {
+    // statements are counted from their parent, as they may be left out of a compact tree
+    subscribeTo(PythonGrammar.FILE_INPUT, PythonGrammar.SUITE, PythonGrammar.CLASSDEF);
+    subscribeTo(COMPLEXITY_NODE_TYPES);
+  }
+
+  @Override
+  public void visitFile(AstNode astNode) {
+    linesOfCode = new BitSet();
+    linesOfComments = new BitSet();
+    commentLines.clear();
+    noSonarLines.clear();
+    lastTokenLine = -1;
+    seenFirstToken = false;
+
+    SourceCode sourceFile = getContext().peekSourceCode();
+    sourceFile.addData(PythonMetric.LINES_OF_CODE, linesOfCode);
+    sourceFile.addData(PythonMetric.COMMENT_LINES, linesOfComments);
+  }
+
+  @Override
+  public void visitNode(AstNode astNode) {
+    AstNodeType type = astNode.getType();
+    SourceCode sourceCode = getContext().peekSourceCode();
+    if (type == PythonGrammar.FILE_INPUT || type == PythonGrammar.SUITE) {
+      sourceCode.add(PythonMetric.STATEMENTS, PythonAstNodes.statements(astNode).size());
+    } else if (type == PythonGrammar.CLASSDEF) {
+      sourceCode.add(PythonMetric.CLASSES, 1);
+    } else {
+      if (type == PythonGrammar.FUNCDEF) {
+        sourceCode.add(PythonMetric.FUNCTIONS, 1);
+      }
+      sourceCode.add(PythonMetric.COMPLEXITY, 1);
+    }
+  }
+
+  @Override
+  public void visitToken(Token token) {
+    TokenType type = token.getType();
+    if (type == GenericTokenType.EOF) {
+      getContext().peekSourceCode().setMeasure(PythonMetric.LINES, token.getLine());
+    } else if (type != PythonTokenType.INDENT && type != PythonTokenType.DEDENT && type != PythonTokenType.NEWLINE) {
+      visitCodeToken(token);
+    }
+
+    for (Trivia trivia : token.getTrivia()) {
+      if (trivia.isComment()) {
+        linesOfComments.set(trivia.getToken().getLine());
+        if (!ignoreHeaderComments || seenFirstToken) {
+          visitComment(trivia.getToken());
+        }
+      }
+    }
+    seenFirstToken = true;
+  }
+
+  private void visitCodeToken(Token token) {
+    int firstLine = token.getLine();
+    int lastLine = firstLine + countLineBreaks(token.getValue());
+    linesOfCode.set(firstLine, lastLine + 1);
+
+    int newLines = lastLine - firstLine + 1;
+    if (firstLine == lastTokenLine) {
+      newLines--;
+    }
+    getContext().peekSourceCode().add(PythonMetric.LINES_OF_CODE, newLines);
+    lastTokenLine = lastLine;
+  }
+
+  private static int countLineBreaks(String value) {
+    int count = 0;
+    int index = value.indexOf('\n');
+    while (index != -1) {
+      count++;
+      index = value.indexOf('\n', index + 1);
+    }
+    return count;
+  }
+
+  /**
+   * Python comments are single-line.
+   */
+  private void visitComment(Token comment) {
+    int line = comment.getLine();
+    CommentAnalyser commentAnalyser = getContext().getCommentAnalyser();
+    String contents = commentAnalyser.getContents(comment.getOriginalValue());
+    if (contents.contains(NOSONAR_TAG)) {
+      commentLines.clear(line);
+      noSonarLines.set(line);
+    } else if (!commentAnalyser.isBlank(contents) && !noSonarLines.get(line)) {
+      commentLines.set(line);
+    }
+  }
+
+  @Override
+  public void leaveFile(AstNode astNode) {
+    SourceFile sourceFile = (SourceFile) getContext().peekSourceCode();
+    if (!noSonarLines.isEmpty()) {
+      Set<Integer> noSonar = Sets.newHashSet();
+      for (int line = noSonarLines.nextSetBit(0); line >= 0; line = noSonarLines.nextSetBit(line + 1)) {
+        noSonar.add(line);
+      }
+      sourceFile.addNoSonarTagLines(noSonar);
+    }
+    sourceFile.add(PythonMetric.COMMENT_LINES, commentLines.cardinality());
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.parser;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Rule;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.impl.Lexer;
+import com.sonar.sslr.impl.LexerException;
+import com.sonar.sslr.impl.Parser;
+import com.sonar.sslr.impl.matcher.RuleDefinition;
+import org.sonar.sslr.internal.matchers.LexerfulAstCreator;
+import org.sonar.sslr.internal.vm.CompiledGrammar;
+import org.sonar.sslr.internal.vm.Machine;
+import org.sonar.sslr.internal.vm.MutableGrammarCompiler;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Same as the parser built by {@link Parser#builder(Grammar)}, except that the grammar is compiled once per root rule
+ * and per JVM, where {@link Parser#parse(List)} compiles it again for each parsed file.
+ * <p>
+ * This is the only class which depends on the internals of SSLR: it does in {@link #parse(List)} what
+ * {@link Parser#parse(List)} does in SSLR 1.20, and CompiledGrammarParserTest checks that both give the same trees.
+ */
+final class CompiledGrammarParser extends Parser<Grammar> {
+
+  private static final ConcurrentMap<RuleDefinition, CompiledGrammar> COMPILED_GRAMMARS = new ConcurrentHashMap<>();
+
+  private final Lexer lexer;
+  private RuleDefinition rootRule;
+
+  CompiledGrammarParser(Grammar grammar, Lexer lexer) {
+    super(grammar);
+    this.lexer = lexer;
+    this.rootRule = (RuleDefinition) grammar.getRootRule();
+  }
+
+  @Override
+  public AstNode parse(File file) {
+    try {
+      lexer.lex(file);
+    } catch (LexerException e) {
+      throw new RecognitionException(e);
+    }
+    return parse(lexer.getTokens());
+  }
+
+  @Override
+  public AstNode parse(String source) {
+    try {
+      lexer.lex(source);
+    } catch (LexerException e) {
+      throw new RecognitionException(e);
+    }
+    return parse(lexer.getTokens());
+  }
+
+  @Override
+  public AstNode parse(List<Token> tokens) {
+    return LexerfulAstCreator.create(Machine.parse(tokens, compiledGrammar(rootRule)), tokens);
+  }
+
+  @Override
+  public RuleDefinition getRootRule() {
+    return rootRule;
+  }
+
+  @Override
+  public void setRootRule(Rule rootRule) {
+    this.rootRule = (RuleDefinition) rootRule;
+  }
+
+  static CompiledGrammar compiledGrammar(RuleDefinition rootRule) {
+    CompiledGrammar compiledGrammar = COMPILED_GRAMMARS.get(rootRule);
+    if (compiledGrammar == null) {
+      CompiledGrammar compiled = MutableGrammarCompiler.compile(rootRule);
+      compiledGrammar = COMPILED_GRAMMARS.putIfAbsent(rootRule, compiled);
+      if (compiledGrammar == null) {
+        compiledGrammar = compiled;
+      }
+    }
+    return compiledGrammar;
+  }
+
+}
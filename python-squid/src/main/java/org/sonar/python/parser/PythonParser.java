@@ -25,14 +25,41 @@ import org.sonar.python.PythonConfiguration;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.lexer.PythonLexer;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates the parsers of Python code.
+ * <p>
+ * The grammar is built once per JVM for each value of {@link PythonConfiguration#getCompactTree()}, and compiled once
+ * per root rule by {@link CompiledGrammarParser}, so that the parsers of each module and each thread start warm. SSLR
+ * would otherwise build the grammar for each parser and compile it again for each parsed file. The lexer holds the
+ * state of the file being lexed, so each parser still gets its own.
+ */
 public final class PythonParser {
 
+  private static final ConcurrentMap<Boolean, Grammar> GRAMMARS = new ConcurrentHashMap<>();
+
   private PythonParser() {
   }
 
   public static Parser<Grammar> create(PythonConfiguration conf) {
-    return Parser.builder(PythonGrammar.create().build())
-      .withLexer(PythonLexer.create(conf)).build();
+    return new CompiledGrammarParser(grammar(conf.getCompactTree()), PythonLexer.create(conf));
+  }
+
+  /**
+   * @return the grammar shared by all the parsers created with the given value of {@link PythonConfiguration#getCompactTree()}
+   */
+  public static Grammar grammar(boolean compactTree) {
+    Grammar grammar = GRAMMARS.get(compactTree);
+    if (grammar == null) {
+      Grammar built = PythonGrammar.create(compactTree).build();
+      grammar = GRAMMARS.putIfAbsent(compactTree, built);
+      if (grammar == null) {
+        grammar = built;
+      }
+    }
+    return grammar;
   }
 
 }
@@ -0,0 +1,35 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.profiling;
+
+import com.sonar.sslr.api.Grammar;
+import org.sonar.python.TokenVisitor;
+import org.sonar.squidbridge.SquidAstVisitor;
+
+/**
+ * Wrapper of a {@link TokenVisitor}, so that it keeps being run on the files which are not parsed.
+ */
+class ProfiledTokenVisitor extends ProfiledVisitor implements TokenVisitor {
+
+  ProfiledTokenVisitor(ScanProfiler profiler, String name, SquidAstVisitor<Grammar> visitor) {
+    super(profiler, name, visitor);
+  }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.profiling;
+
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import org.sonar.python.LineVisitor;
+import org.sonar.python.SourceText;
+import org.sonar.python.profiling.ScanProfiler.Callback;
+import org.sonar.python.profiling.ScanProfiler.Stat;
+import org.sonar.squidbridge.AstScannerExceptionHandler;
+import org.sonar.squidbridge.SquidAstVisitor;
+import org.sonar.squidbridge.SquidAstVisitorContext;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Forwards all the callbacks to the wrapped visitor, and times those of {@link Callback}.
+ * The wrapped visitor still reports its own issues, so that they are not attributed to the wrapper.
+ */
+class ProfiledVisitor extends SquidAstVisitor<Grammar> implements AstAndTokenVisitor, LineVisitor, AstScannerExceptionHandler {
+
+  private final ScanProfiler profiler;
+  private final String name;
+  private final SquidAstVisitor<Grammar> visitor;
+  private final AstAndTokenVisitor tokenVisitor;
+  private final LineVisitor lineVisitor;
+  private final long[][] counters = new long[Callback.values().length][Stat.values().length];
+
+  ProfiledVisitor(ScanProfiler profiler, String name, SquidAstVisitor<Grammar> visitor) {
+    this.profiler = profiler;
+    this.name = name;
+    this.visitor = visitor;
+    this.tokenVisitor = visitor instanceof AstAndTokenVisitor ? (AstAndTokenVisitor) visitor : null;
+    this.lineVisitor = visitor instanceof LineVisitor ? (LineVisitor) visitor : null;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  SquidAstVisitor<Grammar> getVisitor() {
+    return visitor;
+  }
+
+  long[][] getCounters() {
+    return counters;
+  }
+
+  @Override
+  public void setContext(SquidAstVisitorContext<Grammar> context) {
+    super.setContext(context);
+    visitor.setContext(context);
+  }
+
+  @Override
+  public List<AstNodeType> getAstNodeTypesToVisit() {
+    return visitor.getAstNodeTypesToVisit();
+  }
+
+  @Override
+  public void init() {
+    visitor.init();
+  }
+
+  @Override
+  public void visitFile(@Nullable AstNode astNode) {
+    long wall = System.nanoTime();
+    long cpu = profiler.cpuTime();
+    visitor.visitFile(astNode);
+    record(Callback.VISIT_FILE, wall, cpu);
+  }
+
+  @Override
+  public void visitNode(AstNode astNode) {
+    long wall = System.nanoTime();
+    long cpu = profiler.cpuTime();
+    visitor.visitNode(astNode);
+    record(Callback.VISIT_NODE, wall, cpu);
+  }
+
+  @Override
+  public void visitToken(Token token) {
+    if (tokenVisitor != null) {
+      long wall = System.nanoTime();
+      long cpu = profiler.cpuTime();
+      tokenVisitor.visitToken(token);
+      record(Callback.VISIT_TOKEN, wall, cpu);
+    }
+  }
+
+  @Override
+  public void visitLine(SourceText sourceText, int line) {
+    if (lineVisitor != null) {
+      long wall = System.nanoTime();
+      long cpu = profiler.cpuTime();
+      lineVisitor.visitLine(sourceText, line);
+      record(Callback.VISIT_LINE, wall, cpu);
+    }
+  }
+
+  @Override
+  public void leaveNode(AstNode astNode) {
+    long wall = System.nanoTime();
+    long cpu = profiler.cpuTime();
+    visitor.leaveNode(astNode);
+    record(Callback.LEAVE_NODE, wall, cpu);
+  }
+
+  @Override
+  public void leaveFile(@Nullable AstNode astNode) {
+    long wall = System.nanoTime();
+    long cpu = profiler.cpuTime();
+    visitor.leaveFile(astNode);
+    record(Callback.LEAVE_FILE, wall, cpu);
+  }
+
+  @Override
+  public void destroy() {
+    visitor.destroy();
+  }
+
+  @Override
+  public void processException(Exception e) {
+    if (visitor instanceof AstScannerExceptionHandler) {
+      ((AstScannerExceptionHandler) visitor).processException(e);
+    }
+  }
+
+  @Override
+  public void processRecognitionException(RecognitionException e) {
+    if (visitor instanceof AstScannerExceptionHandler) {
+      ((AstScannerExceptionHandler) visitor).processRecognitionException(e);
+    }
+  }
+
+  private void record(Callback callback, long startWall, long startCpu) {
+    long[] callbackCounters = counters[callback.ordinal()];
+    callbackCounters[Stat.CALLS.ordinal()]++;
+    callbackCounters[Stat.WALL.ordinal()] += System.nanoTime() - startWall;
+    callbackCounters[Stat.CPU.ordinal()] += profiler.cpuTime() - startCpu;
+  }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.profiling;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.sonar.sslr.api.Grammar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.python.TokenVisitor;
+import org.sonar.squidbridge.SquidAstVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates the time spent by each visitor, per callback, and the time spent on each file.
+ * <p>
+ * Visitors are timed through the wrappers returned by {@link #wrap(SquidAstVisitor)}: each wrapper is used by a single
+ * scanning thread, and keeps its own counters, which are only summed up by name in {@link #report(File)}, once
+ * the scan is over. Visitors are named after their class, unless given another name, such as a rule key, with
+ * {@link #setName(SquidAstVisitor, String)}.
+ */
+public class ScanProfiler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScanProfiler.class);
+
+  private static final int LOGGED_ENTRIES = 10;
+  private static final int REPORTED_FILES = 50;
+
+  public enum Callback {
+    VISIT_FILE("visitFile"),
+    VISIT_NODE("visitNode"),
+    LEAVE_NODE("leaveNode"),
+    VISIT_TOKEN("visitToken"),
+    VISIT_LINE("visitLine"),
+    LEAVE_FILE("leaveFile");
+
+    private final String methodName;
+
+    Callback(String methodName) {
+      this.methodName = methodName;
+    }
+
+    public String getMethodName() {
+      return methodName;
+    }
+  }
+
+  private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+  private final boolean cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported();
+  private final Map<SquidAstVisitor<Grammar>, String> names = new IdentityHashMap<>();
+  private final List<ProfiledVisitor> wrappers = Lists.newArrayList();
+  private final List<FileTime> fileTimes = Lists.newArrayList();
+
+  public synchronized void setName(SquidAstVisitor<Grammar> visitor, String name) {
+    names.put(visitor, name);
+  }
+
+  /**
+   * Returns a visitor which forwards all the callbacks to the given one, and times them.
+   */
+  public synchronized SquidAstVisitor<Grammar> wrap(SquidAstVisitor<Grammar> visitor) {
+    String name = names.get(visitor);
+    if (name == null) {
+      name = visitor.getClass().getSimpleName().isEmpty() ? visitor.getClass().getName() : visitor.getClass().getSimpleName();
+    }
+    ProfiledVisitor wrapper = visitor instanceof TokenVisitor ? new ProfiledTokenVisitor(this, name, visitor) : new ProfiledVisitor(this, name, visitor);
+    wrappers.add(wrapper);
+    return wrapper;
+  }
+
+  /**
+   * Returns the visitor wrapped by the given one, if it is a wrapper of a profiler.
+   */
+  public static SquidAstVisitor<Grammar> unwrap(SquidAstVisitor<Grammar> visitor) {
+    return visitor instanceof ProfiledVisitor ? ((ProfiledVisitor) visitor).getVisitor() : visitor;
+  }
+
+  public synchronized void fileScanned(File file, long wallNanos) {
+    fileTimes.add(new FileTime(file.getPath(), wallNanos));
+  }
+
+  long cpuTime() {
+    return cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : 0L;
+  }
+
+  /**
+   * Writes the times of all the visitors, and of the slowest files, into the given JSON file, and logs the slowest ones.
+   */
+  public synchronized void report(File jsonFile) {
+    List<VisitorTime> visitorTimes = visitorTimes();
+    Collections.sort(fileTimes, new Comparator<FileTime>() {
+      @Override
+      public int compare(FileTime o1, FileTime o2) {
+        return Long.compare(o2.wallNanos, o1.wallNanos);
+      }
+    });
+    List<FileTime> slowestFiles = fileTimes.subList(0, Math.min(REPORTED_FILES, fileTimes.size()));
+
+    LOG.info("Slowest Python rules and visitors (wall ms / CPU ms / calls):");
+    for (VisitorTime visitorTime : visitorTimes.subList(0, Math.min(LOGGED_ENTRIES, visitorTimes.size()))) {
+      LOG.info("  {}: {} / {} / {}", new Object[] {visitorTime.name, millis(visitorTime.total(Stat.WALL)), millis(visitorTime.total(Stat.CPU)),
+        visitorTime.total(Stat.CALLS)});
+    }
+    LOG.info("Slowest Python files (wall ms):");
+    for (FileTime fileTime : slowestFiles.subList(0, Math.min(LOGGED_ENTRIES, slowestFiles.size()))) {
+      LOG.info("  {}: {}", fileTime.path, millis(fileTime.wallNanos));
+    }
+
+    try {
+      Files.write(toJson(visitorTimes, slowestFiles), jsonFile, Charsets.UTF_8);
+      LOG.info("Python analysis profile written to {}", jsonFile);
+    } catch (IOException e) {
+      LOG.warn("Unable to write the Python analysis profile to " + jsonFile, e);
+    }
+  }
+
+  private List<VisitorTime> visitorTimes() {
+    Map<String, VisitorTime> byName = Maps.newHashMap();
+    for (ProfiledVisitor wrapper : wrappers) {
+      VisitorTime visitorTime = byName.get(wrapper.getName());
+      if (visitorTime == null) {
+        visitorTime = new VisitorTime(wrapper.getName());
+        byName.put(wrapper.getName(), visitorTime);
+      }
+      visitorTime.add(wrapper.getCounters());
+    }
+    List<VisitorTime> visitorTimes = Lists.newArrayList(byName.values());
+    Collections.sort(visitorTimes, new Comparator<VisitorTime>() {
+      @Override
+      public int compare(VisitorTime o1, VisitorTime o2) {
+        return Long.compare(o2.total(Stat.WALL), o1.total(Stat.WALL));
+      }
+    });
+    return visitorTimes;
+  }
+
+  private static String toJson(List<VisitorTime> visitorTimes, List<FileTime> fileTimes) {
+    StringBuilder json = new StringBuilder("{\n  \"visitors\": [");
+    String separator = "\n";
+    for (VisitorTime visitorTime : visitorTimes) {
+      json.append(separator).append("    {\"name\": ").append(quote(visitorTime.name));
+      appendStats(json, visitorTime.total(Stat.CALLS), visitorTime.total(Stat.WALL), visitorTime.total(Stat.CPU));
+      json.append(", \"callbacks\": {");
+      String callbackSeparator = "";
+      for (Callback callback : Callback.values()) {
+        long[] counters = visitorTime.counters[callback.ordinal()];
+        if (counters[Stat.CALLS.ordinal()] > 0) {
+          json.append(callbackSeparator).append(quote(callback.getMethodName())).append(": {");
+          json.append("\"calls\": ").append(counters[Stat.CALLS.ordinal()]);
+          json.append(", \"wallNanos\": ").append(counters[Stat.WALL.ordinal()]);
+          json.append(", \"cpuNanos\": ").append(counters[Stat.CPU.ordinal()]).append('}');
+          callbackSeparator = ", ";
+        }
+      }
+      json.append("}}");
+      separator = ",\n";
+    }
+    json.append("\n  ],\n  \"files\": [");
+    separator = "\n";
+    for (FileTime fileTime : fileTimes) {
+      json.append(separator).append("    {\"path\": ").append(quote(fileTime.path)).append(", \"wallNanos\": ").append(fileTime.wallNanos).append('}');
+      separator = ",\n";
+    }
+    return json.append("\n  ]\n}\n").toString();
+  }
+
+  private static void appendStats(StringBuilder json, long calls, long wallNanos, long cpuNanos) {
+    json.append(", \"calls\": ").append(calls).append(", \"wallNanos\": ").append(wallNanos).append(", \"cpuNanos\": ").append(cpuNanos);
+  }
+
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < ' ') {
+        quoted.append(String.format(Locale.ENGLISH, "\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  enum Stat {
+    CALLS, WALL, CPU
+  }
+
+  private static class VisitorTime {
+    private final String name;
+    private final long[][] counters = new long[Callback.values().length][Stat.values().length];
+
+    VisitorTime(String name) {
+      this.name = name;
+    }
+
+    void add(long[][] other) {
+      for (int callback = 0; callback < counters.length; callback++) {
+        for (int stat = 0; stat < counters[callback].length; stat++) {
+          counters[callback][stat] += other[callback][stat];
+        }
+      }
+    }
+
+    long total(Stat stat) {
+      long total = 0;
+      for (long[] callbackCounters : counters) {
+        total += callbackCounters[stat.ordinal()];
+      }
+      return total;
+    }
+  }
+
+  private static class FileTime {
+    private final String path;
+    private final long wallNanos;
+
+    FileTime(String path, long wallNanos) {
+      this.path = path;
+      this.wallNanos = wallNanos;
+    }
+  }
+
+}
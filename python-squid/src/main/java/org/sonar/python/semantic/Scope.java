@@ -0,0 +1,179 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.semantic;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import org.sonar.python.api.PythonGrammar;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Module, class or function scope of a {@link SymbolTable}.
+ */
+public class Scope {
+
+  public enum Kind {
+    MODULE,
+    CLASS,
+    FUNCTION
+  }
+
+  private final Kind kind;
+  private final AstNode node;
+  private final Scope parent;
+  private final List<Scope> children = new ArrayList<>();
+  private final List<Token> parameters = new ArrayList<>();
+  private final List<Token> forLoopCounters = new ArrayList<>();
+  private final Map<String, Token> assignedNames = new LinkedHashMap<>();
+  private final Map<String, Token> selfAttributes = new LinkedHashMap<>();
+  private final Set<String> usedNames = new HashSet<>();
+
+  Scope(Kind kind, AstNode node, @CheckForNull Scope parent) {
+    this.kind = kind;
+    this.node = node;
+    this.parent = parent;
+    if (parent != null) {
+      parent.children.add(this);
+    }
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * @return the <code>FILE_INPUT</code>, <code>CLASSDEF</code> or <code>FUNCDEF</code> node
+   */
+  public AstNode getNode() {
+    return node;
+  }
+
+  @CheckForNull
+  public Scope getParent() {
+    return parent;
+  }
+
+  /**
+   * Class and function scopes directly nested in this one, in the order of the code.
+   */
+  public List<Scope> getChildren() {
+    return Collections.unmodifiableList(children);
+  }
+
+  /**
+   * Names of the parameters of a function.
+   */
+  public List<Token> getParameters() {
+    return Collections.unmodifiableList(parameters);
+  }
+
+  /**
+   * Names of the counters of the <code>for</code> loops of this scope, each time they occur.
+   */
+  public List<Token> getForLoopCounters() {
+    return Collections.unmodifiableList(forLoopCounters);
+  }
+
+  /**
+   * Simple names assigned in this scope, but not in nested scopes, each mapped to its first assignment.
+   */
+  public Map<String, Token> getAssignedNames() {
+    return Collections.unmodifiableMap(assignedNames);
+  }
+
+  /**
+   * Names of the attributes of <code>self</code> assigned in the methods of a class, and in the functions nested in them,
+   * each mapped to its first assignment.
+   */
+  public Map<String, Token> getSelfAttributes() {
+    return Collections.unmodifiableMap(selfAttributes);
+  }
+
+  /**
+   * Fields of a class: the {@link #getAssignedNames() names assigned} in its body and the {@link #getSelfAttributes() attributes of self},
+   * each mapped to its first assignment.
+   */
+  public Map<String, Token> getFields() {
+    Map<String, Token> fields = new LinkedHashMap<>(assignedNames);
+    for (Map.Entry<String, Token> attribute : selfAttributes.entrySet()) {
+      if (!fields.containsKey(attribute.getKey())) {
+        fields.put(attribute.getKey(), attribute.getValue());
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Names of the functions defined in a class, in the order of the code.
+   */
+  public List<Token> getMethodNames() {
+    List<Token> methodNames = new ArrayList<>();
+    for (Scope child : children) {
+      if (child.kind == Kind.FUNCTION) {
+        methodNames.add(child.node.getFirstChild(PythonGrammar.FUNCNAME).getToken());
+      }
+    }
+    return methodNames;
+  }
+
+  /**
+   * Whether the name occurs in the body of this scope, nested scopes included.
+   */
+  public boolean usesName(String name) {
+    return usedNames.contains(name);
+  }
+
+  void addParameter(Token token) {
+    parameters.add(token);
+  }
+
+  void addForLoopCounter(Token token) {
+    forLoopCounters.add(token);
+  }
+
+  void addAssignedName(Token token) {
+    if (!assignedNames.containsKey(token.getValue())) {
+      assignedNames.put(token.getValue(), token);
+    }
+  }
+
+  void addSelfAttribute(Token token) {
+    if (!selfAttributes.containsKey(token.getValue())) {
+      selfAttributes.put(token.getValue(), token);
+    }
+  }
+
+  void addUsedName(String name) {
+    usedNames.add(name);
+  }
+
+  void addUsedNames(Scope nestedScope) {
+    usedNames.addAll(nestedScope.usedNames);
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.semantic;
+
+import com.sonar.sslr.api.AstNode;
+import org.sonar.python.FileContext;
+
+import java.util.Map;
+
+/**
+ * Scopes of a file, with the names which they bind and use, built in a single pass over the syntax tree.
+ */
+public class SymbolTable {
+
+  private final Scope moduleScope;
+  private final Map<AstNode, Scope> scopes;
+
+  SymbolTable(Scope moduleScope, Map<AstNode, Scope> scopes) {
+    this.moduleScope = moduleScope;
+    this.scopes = scopes;
+  }
+
+  /**
+   * Symbol table of the file of the given node, which is the root of the file, a <code>CLASSDEF</code> or a <code>FUNCDEF</code>.
+   * While a file is scanned, all the checks share its table, held by the {@link FileContext} of the scanner. Otherwise,
+   * a new table is built by each call.
+   */
+  public static SymbolTable of(AstNode node) {
+    AstNode root = node;
+    while (root.getParent() != null) {
+      root = root.getParent();
+    }
+    FileContext fileContext = FileContext.current();
+    return fileContext == null ? build(root) : fileContext.getSymbolTable(root);
+  }
+
+  /**
+   * New symbol table of the whole tree of the given root.
+   */
+  public static SymbolTable build(AstNode root) {
+    return new SymbolTableBuilder().build(root);
+  }
+
+  public Scope getModuleScope() {
+    return moduleScope;
+  }
+
+  /**
+   * @param node the root of the file, a <code>CLASSDEF</code> or a <code>FUNCDEF</code>
+   */
+  public Scope getScope(AstNode node) {
+    Scope scope = scopes.get(node);
+    if (scope == null) {
+      throw new IllegalArgumentException("No scope for " + node);
+    }
+    return scope;
+  }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.semantic;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import org.sonar.python.api.PythonAstNodes;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.api.PythonPunctuator;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+class SymbolTableBuilder {
+
+  private final Map<AstNode, Scope> scopes = new IdentityHashMap<>();
+
+  SymbolTable build(AstNode root) {
+    Scope moduleScope = newScope(Scope.Kind.MODULE, root, null);
+    visitChildren(root, moduleScope);
+    addNamesUsedInNestedScopes(moduleScope);
+    return new SymbolTable(moduleScope, scopes);
+  }
+
+  private Scope newScope(Scope.Kind kind, AstNode node, @CheckForNull Scope parent) {
+    Scope scope = new Scope(kind, node, parent);
+    scopes.put(node, scope);
+    return scope;
+  }
+
+  private void visit(AstNode node, Scope scope) {
+    if (node.is(PythonGrammar.FUNCDEF)) {
+      Scope functionScope = newScope(Scope.Kind.FUNCTION, node, scope);
+      addParameters(node, functionScope);
+      visitDefinition(node, scope, functionScope);
+    } else if (node.is(PythonGrammar.CLASSDEF)) {
+      visitDefinition(node, scope, newScope(Scope.Kind.CLASS, node, scope));
+    } else {
+      if (node.is(PythonGrammar.EXPRESSION_STMT) && isAssignment(node)) {
+        addAssignment(node, scope);
+      } else if (node.is(PythonGrammar.FOR_STMT)) {
+        addForLoopCounters(node, scope);
+      } else if (node.is(PythonGrammar.NAME)) {
+        scope.addUsedName(node.getTokenValue());
+      }
+      visitChildren(node, scope);
+    }
+  }
+
+  private void visitChildren(AstNode node, Scope scope) {
+    for (AstNode child : node.getChildren()) {
+      visit(child, scope);
+    }
+  }
+
+  /**
+   * Only the body of a class or function belongs to its scope: its name, parameters and decorators belong to the enclosing one.
+   */
+  private void visitDefinition(AstNode definition, Scope enclosingScope, Scope scope) {
+    for (AstNode child : definition.getChildren()) {
+      visit(child, child.is(PythonGrammar.SUITE) ? scope : enclosingScope);
+    }
+  }
+
+  private static void addParameters(AstNode funcDef, Scope functionScope) {
+    AstNode parameterList = funcDef.getFirstChild(PythonGrammar.TYPEDARGSLIST);
+    if (parameterList != null) {
+      List<AstNode> parameters = parameterList.getDescendants(PythonGrammar.TFPDEF);
+      parameters.addAll(parameterList.getChildren(PythonGrammar.NAME));
+      for (AstNode parameter : parameters) {
+        Token token = parameter.getToken();
+        if (token.getType().equals(GenericTokenType.IDENTIFIER)) {
+          functionScope.addParameter(token);
+        }
+      }
+    }
+  }
+
+  private static void addForLoopCounters(AstNode forStatement, Scope scope) {
+    AstNode counters = PythonAstNodes.firstChild(forStatement, PythonGrammar.EXPRLIST);
+    for (AstNode name : counters.getDescendants(PythonGrammar.NAME)) {
+      Token token = name.getToken();
+      if (token.getType().equals(GenericTokenType.IDENTIFIER)) {
+        scope.addForLoopCounter(token);
+      }
+    }
+  }
+
+  private static boolean isAssignment(AstNode expression) {
+    int numberOfChildren = expression.getNumberOfChildren();
+    int numberOfAssign = expression.getChildren(PythonPunctuator.ASSIGN).size();
+    if (numberOfChildren == 3 && numberOfAssign == 1) {
+      return true;
+    }
+    // a = b = c = 1
+    return numberOfAssign > 0 && numberOfChildren % 2 != 0 && numberOfAssign * 2 + 1 == numberOfChildren;
+  }
+
+  private static void addAssignment(AstNode expression, Scope scope) {
+    Scope classScope = methodClass(scope);
+    for (AstNode test : assignedTests(expression)) {
+      Token token = test.getToken();
+      if (classScope != null && "self".equals(token.getValue())) {
+        AstNode trailer = test.getFirstDescendant(PythonGrammar.TRAILER);
+        if (trailer != null && trailer.getFirstChild(PythonGrammar.NAME) != null) {
+          classScope.addSelfAttribute(trailer.getFirstChild(PythonGrammar.NAME).getToken());
+        }
+      }
+      boolean isAtom = test.is(PythonGrammar.ATOM) || (test.getNumberOfChildren() == 1 && test.getFirstChild().is(PythonGrammar.ATOM));
+      if (isAtom && token.getType().equals(GenericTokenType.IDENTIFIER)) {
+        scope.addAssignedName(token);
+      }
+    }
+  }
+
+  /**
+   * Class of the method which the given function scope is, or is nested in.
+   */
+  @CheckForNull
+  private static Scope methodClass(Scope scope) {
+    Scope current = scope;
+    while (current.getKind() == Scope.Kind.FUNCTION) {
+      current = current.getParent();
+    }
+    return current != scope && current.getKind() == Scope.Kind.CLASS ? current : null;
+  }
+
+  /**
+   * Nodes standing for the <code>TEST</code> nodes on the left of the assignments.
+   */
+  private static List<AstNode> assignedTests(AstNode expression) {
+    List<AstNode> assignedExpressions = PythonAstNodes.children(expression, PythonGrammar.TESTLIST_STAR_EXPR);
+    assignedExpressions.remove(assignedExpressions.size() - 1);
+    List<AstNode> tests = new ArrayList<>();
+    for (AstNode assignedExpression : assignedExpressions) {
+      if (!assignedExpression.is(PythonGrammar.TESTLIST_STAR_EXPR) && PythonAstNodes.standsFor(assignedExpression, PythonGrammar.TEST)) {
+        tests.add(assignedExpression);
+      }
+      addDescendantTests(assignedExpression, tests);
+    }
+    return tests;
+  }
+
+  private static void addDescendantTests(AstNode node, List<AstNode> tests) {
+    for (AstNode child : node.getChildren()) {
+      if (PythonAstNodes.standsFor(child, PythonGrammar.TEST)) {
+        tests.add(child);
+      }
+      addDescendantTests(child, tests);
+    }
+  }
+
+  private static void addNamesUsedInNestedScopes(Scope scope) {
+    for (Scope child : scope.getChildren()) {
+      addNamesUsedInNestedScopes(child);
+      scope.addUsedNames(child);
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class GeneratedCodeDetectorTest {
+
+  private final GeneratedCodeDetector detector = new GeneratedCodeDetector(GeneratedCodeDetector.DEFAULT_PATTERNS,
+    GeneratedCodeDetector.NO_LIMIT);
+
+  @Test
+  public void header_markers() throws IOException {
+    assertThat(isGenerated(detector, "src/test/resources/generated/addressbook_pb2.py")).isTrue();
+    assertThat(isGenerated(detector, "src/test/resources/generated/0001_initial.py")).isTrue();
+    assertThat(isGenerated(detector, "src/test/resources/generated/handwritten.py")).isFalse();
+    assertThat(detector.getGeneratedFiles()).isEqualTo(2);
+  }
+
+  @Test
+  public void crlf_line_breaks_are_counted_once() throws IOException {
+    assertThat(isGenerated(detector, "src/test/resources/generated/crlf_marker.py")).isTrue();
+  }
+
+  @Test
+  public void long_lines() throws IOException {
+    assertThat(isGenerated(detector, "src/test/resources/generated/long_line.py")).isFalse();
+    GeneratedCodeDetector lineLengthDetector = new GeneratedCodeDetector(GeneratedCodeDetector.DEFAULT_PATTERNS, 2000);
+    assertThat(isGenerated(lineLengthDetector, "src/test/resources/generated/long_line.py")).isTrue();
+    assertThat(isGenerated(lineLengthDetector, "src/test/resources/generated/handwritten.py")).isFalse();
+  }
+
+  @Test
+  public void custom_patterns() throws IOException {
+    GeneratedCodeDetector customDetector = new GeneratedCodeDetector(ImmutableList.of("written by \\w+"), GeneratedCodeDetector.NO_LIMIT);
+    assertThat(isGenerated(customDetector, "src/test/resources/generated/handwritten.py")).isTrue();
+    assertThat(isGenerated(customDetector, "src/test/resources/generated/addressbook_pb2.py")).isFalse();
+  }
+
+  @Test
+  public void byte_order_mark_is_skipped() {
+    assertThat(detector.isGenerated(new SourceText("\uFEFF# Generated by Django 1.8 on 2015-06-01 12:00\n"))).isTrue();
+  }
+
+  private static boolean isGenerated(GeneratedCodeDetector detector, String path) throws IOException {
+    return detector.isGenerated(SourceText.read(new File(path), Charsets.UTF_8));
+  }
+
+}
@@ -21,20 +21,42 @@ package org.sonar.python;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.python.api.PythonMetric;
+import org.sonar.python.metrics.MetricsVisitor;
 import org.sonar.squidbridge.AstScanner;
+import org.sonar.squidbridge.AstScannerExceptionHandler;
+import org.sonar.squidbridge.SquidAstVisitor;
 import org.sonar.squidbridge.api.SourceFile;
 import org.sonar.squidbridge.api.SourceProject;
+import org.sonar.squidbridge.checks.SquidCheck;
 import org.sonar.squidbridge.indexer.QueryByType;
 
+import javax.annotation.Nullable;
+
 import java.io.File;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 import static org.fest.assertions.Assertions.assertThat;
 
 public class PythonAstScannerTest {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void files() {
     AstScanner<Grammar> scanner = PythonAstScanner.create(new PythonConfiguration(Charsets.UTF_8));
@@ -50,6 +72,17 @@ public class PythonAstScannerTest {
     assertThat(file.getNoSonarTagLines()).contains(3).hasSize(1);
   }
 
+  @Test
+  public void header_comments() {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setIgnoreHeaderComments(true);
+    AstScanner<Grammar> scanner = PythonAstScanner.create(conf);
+    scanner.scanFile(new File("src/test/resources/metrics/comments.py"));
+    SourceFile file = (SourceFile) scanner.getIndex().search(new QueryByType(SourceFile.class)).iterator().next();
+    assertThat(file.getInt(PythonMetric.COMMENT_LINES)).isEqualTo(0);
+    assertThat(MetricsVisitor.linesOfComments(file).cardinality()).isEqualTo(4);
+  }
+
   @Test
   public void lines() {
     SourceFile file = PythonAstScanner.scanSingleFile(new File("src/test/resources/metrics/lines.py"));
@@ -86,4 +119,228 @@ public class PythonAstScannerTest {
     assertThat(file.getInt(PythonMetric.COMPLEXITY)).isEqualTo(10);
   }
 
+  @Test
+  public void parse_error() {
+    TokenCounter tokenCounter = new TokenCounter();
+    SourceFile file = PythonAstScanner.scanSingleFile(new File("src/test/resources/metrics/parse_error.py"), tokenCounter);
+    assertThat(tokenCounter.parseErrors).isEqualTo(1);
+    assertThat(tokenCounter.tokens).isGreaterThan(0);
+    assertThat(file.getInt(PythonMetric.LINES)).isEqualTo(4);
+    assertThat(file.getInt(PythonMetric.LINES_OF_CODE)).isEqualTo(2);
+    assertThat(file.getInt(PythonMetric.COMMENT_LINES)).isEqualTo(1);
+  }
+
+  @Test
+  public void line_visitors_share_the_text_of_the_file() {
+    TokenCounter tokenCounter = new TokenCounter();
+    LineCounter lineCounter1 = new LineCounter();
+    LineCounter lineCounter2 = new LineCounter();
+    AstScanner<Grammar> scanner = PythonAstScanner.create(new PythonConfiguration(Charsets.UTF_8), tokenCounter, lineCounter1, lineCounter2);
+    scanner.scanFile(new File("src/test/resources/metrics/parse_error.py"));
+    assertThat(tokenCounter.parseErrors).isEqualTo(1);
+    assertThat(lineCounter1.sourceText).isSameAs(lineCounter2.sourceText);
+    assertThat(lineCounter1.lines).isEqualTo(lineCounter1.sourceText.getNumberOfLines());
+    assertThat(lineCounter2.lines).isEqualTo(lineCounter1.lines);
+  }
+
+  @Test
+  public void lines_are_visited_after_the_file() {
+    LineCounter lineCounter = new LineCounter();
+    scan(new PythonConfiguration(Charsets.UTF_8), "src/test/resources/metrics/functions.py", lineCounter);
+    assertThat(lineCounter.lines).isGreaterThan(0);
+    assertThat(lineCounter.linesBeforeFile).isEqualTo(0);
+  }
+
+  @Test
+  public void tokens_are_lexed_from_the_text_of_the_line_visitors() throws Exception {
+    File file = new File("src/test/resources/metrics/comments.py");
+    TokenCounter tokenCounter = new TokenCounter();
+    LineCounter lineCounter = new LineCounter();
+    AstScanner<Grammar> scanner = PythonAstScanner.create(new PythonConfiguration(Charsets.UTF_8), tokenCounter, lineCounter);
+    scanner.scanFile(file);
+    assertThat(tokenCounter.tokens).isGreaterThan(0);
+    assertThat(tokenCounter.uri).isEqualTo(file.toURI());
+    assertThat(tokenCounter.commentUri).isEqualTo(file.toURI());
+    assertThat(lineCounter.sourceText.getText()).isEqualTo(Files.toString(file, Charsets.UTF_8));
+  }
+
+  @Test
+  public void file_over_size_limit_is_not_parsed() {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setParseLimits(new ParseLimits(10, ParseLimits.NO_LIMIT, ParseLimits.NO_LIMIT));
+    TokenCounter tokenCounter = new TokenCounter();
+    SourceFile file = scan(conf, "src/test/resources/metrics/functions.py", tokenCounter);
+    assertThat(conf.getParseLimits().getDegradedFiles()).isEqualTo(1);
+    assertThat(tokenCounter.parseErrors).isEqualTo(0);
+    assertThat(tokenCounter.tokens).isGreaterThan(0);
+    assertThat(file.getInt(PythonMetric.LINES_OF_CODE)).isEqualTo(3);
+    assertThat(file.getInt(PythonMetric.FUNCTIONS)).isEqualTo(0);
+  }
+
+  @Test
+  public void file_over_lines_limit_is_not_parsed() {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setParseLimits(new ParseLimits(ParseLimits.NO_LIMIT, 2, ParseLimits.NO_LIMIT));
+    SourceFile file = scan(conf, "src/test/resources/metrics/functions.py");
+    assertThat(conf.getParseLimits().getDegradedFiles()).isEqualTo(1);
+    assertThat(file.getInt(PythonMetric.LINES_OF_CODE)).isEqualTo(3);
+    assertThat(file.getInt(PythonMetric.FUNCTIONS)).isEqualTo(0);
+  }
+
+  @Test
+  public void file_within_limits_is_parsed() {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setParseLimits(new ParseLimits(1000, 10, 60000));
+    SourceFile file = scan(conf, "src/test/resources/metrics/functions.py");
+    assertThat(conf.getParseLimits().getDegradedFiles()).isEqualTo(0);
+    assertThat(file.getInt(PythonMetric.FUNCTIONS)).isEqualTo(1);
+  }
+
+  @Test
+  public void file_over_parse_timeout_is_not_parsed() throws Exception {
+    File bigFile = temporaryFolder.newFile("big.py");
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      content.append("def f").append(i).append("(a, b):\n    return [x * (a + b) for x in range(a) if x % 2 == 0]\n");
+    }
+    Files.write(content, bigFile, Charsets.UTF_8);
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setParseLimits(new ParseLimits(ParseLimits.NO_LIMIT, ParseLimits.NO_LIMIT, 1));
+    AstScanner<Grammar> scanner = PythonAstScanner.create(conf);
+    scanner.scanFiles(ImmutableList.of(bigFile, new File("src/test/resources/metrics/functions.py")));
+
+    assertThat(conf.getParseLimits().getDegradedFiles()).isGreaterThanOrEqualTo(1);
+    assertThat(conf.getParseLimits().getAbandonedParses()).isLessThanOrEqualTo(ParseLimits.MAX_ABANDONED_PARSES);
+    SourceFile file = (SourceFile) scanner.getIndex().search(bigFile.getAbsolutePath());
+    assertThat(file.getInt(PythonMetric.LINES_OF_CODE)).isEqualTo(10000);
+    assertThat(file.getInt(PythonMetric.FUNCTIONS)).isEqualTo(0);
+  }
+
+  @Test
+  public void file_is_not_parsed_while_too_many_abandoned_parsings_run() {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    ParseLimits parseLimits = new ParseLimits(ParseLimits.NO_LIMIT, ParseLimits.NO_LIMIT, 60000);
+    conf.setParseLimits(parseLimits);
+    for (int i = 0; i < ParseLimits.MAX_ABANDONED_PARSES; i++) {
+      parseLimits.parseAbandoned();
+    }
+    SourceFile file = scan(conf, "src/test/resources/metrics/functions.py");
+    assertThat(parseLimits.getDegradedFiles()).isEqualTo(1);
+    assertThat(file.getInt(PythonMetric.FUNCTIONS)).isEqualTo(0);
+
+    parseLimits.abandonedParseEnded();
+    file = scan(conf, "src/test/resources/metrics/functions.py");
+    assertThat(parseLimits.getDegradedFiles()).isEqualTo(1);
+    assertThat(file.getInt(PythonMetric.FUNCTIONS)).isEqualTo(1);
+  }
+
+  @Test
+  public void scanned_files_are_handed_over_and_released() {
+    final Map<File, SourceFile> scannedFiles = new LinkedHashMap<>();
+    final Set<File> degradedFiles = new HashSet<>();
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setParseLimits(new ParseLimits(ParseLimits.NO_LIMIT, 4, ParseLimits.NO_LIMIT));
+    conf.setScannedFileListener(new ScannedFileListener() {
+      @Override
+      public void fileScanned(File file, SourceFile sourceFile, boolean degraded) {
+        scannedFiles.put(file, sourceFile);
+        if (degraded) {
+          degradedFiles.add(file);
+        }
+      }
+    });
+    File functions = new File("src/test/resources/metrics/functions.py");
+    File classes = new File("src/test/resources/metrics/classes.py");
+    AstScanner<Grammar> scanner = PythonAstScanner.create(conf);
+    scanner.scanFiles(ImmutableList.of(functions, classes));
+
+    assertThat(ImmutableList.copyOf(scannedFiles.keySet())).containsExactly(functions, classes);
+    assertThat(scannedFiles.get(functions).getInt(PythonMetric.FUNCTIONS)).isEqualTo(1);
+    assertThat(scannedFiles.get(classes).getInt(PythonMetric.CLASSES)).isEqualTo(0);
+    assertThat(degradedFiles).containsOnly(classes);
+    assertThat(scanner.getIndex().search(new QueryByType(SourceFile.class))).isEmpty();
+  }
+
+  @Test
+  public void generated_file_is_not_checked() {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setGeneratedCodeDetector(new GeneratedCodeDetector(GeneratedCodeDetector.DEFAULT_PATTERNS, GeneratedCodeDetector.NO_LIMIT));
+    SourceFile file = scan(conf, "src/test/resources/generated/addressbook_pb2.py", new IssueOnEachToken());
+    assertThat(file.getCheckMessages()).isEmpty();
+    assertThat(file.getInt(PythonMetric.LINES_OF_CODE)).isEqualTo(4);
+    assertThat(file.getInt(PythonMetric.COMMENT_LINES)).isEqualTo(2);
+    assertThat(file.getInt(PythonMetric.FUNCTIONS)).isEqualTo(0);
+
+    file = scan(conf, "src/test/resources/generated/handwritten.py", new IssueOnEachToken());
+    assertThat(file.getCheckMessages()).isNotEmpty();
+    assertThat(file.getInt(PythonMetric.FUNCTIONS)).isEqualTo(1);
+    assertThat(conf.getGeneratedCodeDetector().getGeneratedFiles()).isEqualTo(1);
+  }
+
+  private static SourceFile scan(PythonConfiguration conf, String path, SquidAstVisitor<Grammar>... visitors) {
+    AstScanner<Grammar> scanner = PythonAstScanner.create(conf, visitors);
+    scanner.scanFile(new File(path));
+    return (SourceFile) scanner.getIndex().search(new QueryByType(SourceFile.class)).iterator().next();
+  }
+
+  private static class TokenCounter extends SquidAstVisitor<Grammar> implements AstAndTokenVisitor, TokenVisitor, AstScannerExceptionHandler {
+
+    private int tokens = 0;
+    private int parseErrors = 0;
+    private URI uri;
+    private URI commentUri;
+
+    @Override
+    public void visitToken(Token token) {
+      tokens++;
+      uri = token.getURI();
+      for (Trivia trivia : token.getTrivia()) {
+        commentUri = trivia.getToken().getURI();
+      }
+    }
+
+    @Override
+    public void processException(Exception e) {
+      parseErrors++;
+    }
+
+    @Override
+    public void processRecognitionException(RecognitionException e) {
+      parseErrors++;
+    }
+
+  }
+
+  private static class LineCounter extends SquidAstVisitor<Grammar> implements LineVisitor, TokenVisitor {
+
+    private SourceText sourceText;
+    private int lines = 0;
+    private boolean fileVisited = false;
+    private int linesBeforeFile = 0;
+
+    @Override
+    public void visitFile(@Nullable AstNode astNode) {
+      fileVisited = true;
+    }
+
+    @Override
+    public void visitLine(SourceText sourceText, int line) {
+      this.sourceText = sourceText;
+      lines++;
+      if (!fileVisited) {
+        linesBeforeFile++;
+      }
+    }
+
+  }
+
+  private static class IssueOnEachToken extends SquidCheck<Grammar> implements AstAndTokenVisitor, TokenVisitor {
+
+    @Override
+    public void visitToken(Token token) {
+      getContext().createLineViolation(this, "Token", token);
+    }
+
+  }
+
 }
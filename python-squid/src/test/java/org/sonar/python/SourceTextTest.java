@@ -0,0 +1,59 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SourceTextTest {
+
+  @Test
+  public void empty_text_has_one_line() {
+    SourceText sourceText = new SourceText("");
+    assertThat(sourceText.getNumberOfLines()).isEqualTo(1);
+    assertThat(sourceText.lineLength(1)).isEqualTo(0);
+  }
+
+  @Test
+  public void line_terminators() {
+    SourceText sourceText = new SourceText("a\nbc\r\n\rd");
+    assertThat(sourceText.getNumberOfLines()).isEqualTo(4);
+    assertThat(line(sourceText, 1)).isEqualTo("a");
+    assertThat(line(sourceText, 2)).isEqualTo("bc");
+    assertThat(line(sourceText, 3)).isEqualTo("");
+    assertThat(line(sourceText, 4)).isEqualTo("d");
+    assertThat(sourceText.lineStart(4)).isEqualTo(7);
+    assertThat(sourceText.charAt(7)).isEqualTo('d');
+  }
+
+  @Test
+  public void text_ending_with_line_terminator_has_empty_last_line() {
+    SourceText sourceText = new SourceText("a\r\n");
+    assertThat(sourceText.getNumberOfLines()).isEqualTo(2);
+    assertThat(line(sourceText, 1)).isEqualTo("a");
+    assertThat(sourceText.lineLength(2)).isEqualTo(0);
+  }
+
+  private static String line(SourceText sourceText, int line) {
+    return sourceText.getText().substring(sourceText.lineStart(line), sourceText.lineEnd(line));
+  }
+
+}
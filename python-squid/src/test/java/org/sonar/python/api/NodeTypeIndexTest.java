@@ -0,0 +1,87 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.api;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.AstNode;
+import org.junit.Test;
+import org.sonar.python.FileContext;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.parser.PythonParser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class NodeTypeIndexTest {
+
+  private final AstNode fileInput = PythonParser.create(new PythonConfiguration(Charsets.UTF_8)).parse(new File("src/test/resources/semantic/symbols.py"));
+  private final NodeTypeIndex index = NodeTypeIndex.of(fileInput);
+
+  @Test
+  public void same_descendants_as_ast_node() {
+    for (AstNode node : fileInput.getDescendants(PythonGrammar.FUNCDEF, PythonGrammar.CLASSDEF, PythonGrammar.SUITE)) {
+      for (PythonGrammar type : new PythonGrammar[] {PythonGrammar.NAME, PythonGrammar.FUNCDEF, PythonGrammar.EXPRESSION_STMT, PythonGrammar.YIELD_STMT}) {
+        assertThat(index.descendants(node, type)).isEqualTo(node.getDescendants(type));
+        assertThat(index.hasDescendant(node, type)).isEqualTo(node.hasDescendant(type));
+      }
+    }
+    assertThat(index.descendants(fileInput, PythonGrammar.FUNCDEF)).hasSize(5);
+  }
+
+  @Test
+  public void descendants_outside_nested_functions() {
+    AstNode method = fileInput.getFirstDescendant(PythonGrammar.FUNCDEF);
+    List<AstNode> expected = new ArrayList<>();
+    for (AstNode statement : method.getDescendants(PythonGrammar.EXPRESSION_STMT, PythonGrammar.PASS_STMT)) {
+      if (statement.getFirstAncestor(PythonGrammar.FUNCDEF) == method) {
+        expected.add(statement);
+      }
+    }
+
+    List<AstNode> statements = index.descendantsOutside(method, PythonGrammar.FUNCDEF, PythonGrammar.PASS_STMT, PythonGrammar.EXPRESSION_STMT);
+    assertThat(statements).isEqualTo(expected);
+    assertThat(statements).hasSize(3);
+  }
+
+  @Test
+  public void same_index_while_file_is_visited() {
+    FileContext fileContext = new FileContext();
+    fileContext.visitFile(fileInput);
+    NodeTypeIndex fileIndex = NodeTypeIndex.of(fileInput);
+    assertThat(NodeTypeIndex.of(fileInput.getFirstChild())).isSameAs(fileIndex);
+    AstNode otherFile = PythonParser.create(new PythonConfiguration(Charsets.UTF_8)).parse("def f(): pass");
+    assertThat(NodeTypeIndex.of(otherFile).descendants(otherFile, PythonGrammar.FUNCDEF)).hasSize(1);
+    assertThat(NodeTypeIndex.of(otherFile.getFirstChild())).isSameAs(NodeTypeIndex.of(otherFile));
+    assertThat(NodeTypeIndex.of(fileInput)).isSameAs(fileIndex);
+    fileContext.leaveFile(fileInput);
+
+    assertThat(NodeTypeIndex.of(fileInput)).isNotSameAs(fileIndex);
+    assertThat(NodeTypeIndex.of(fileInput)).isNotSameAs(NodeTypeIndex.of(fileInput));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void node_of_other_file() {
+    index.descendants(PythonParser.create(new PythonConfiguration(Charsets.UTF_8)).parse("pass"), PythonGrammar.NAME);
+  }
+
+}
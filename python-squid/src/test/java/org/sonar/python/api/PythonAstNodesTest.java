@@ -0,0 +1,153 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.api;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.impl.Parser;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.parser.PythonParser;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PythonAstNodesTest {
+
+  private final Parser<Grammar> parser = PythonParser.create(new PythonConfiguration(Charsets.UTF_8));
+  private final Parser<Grammar> compactParser = PythonParser.create(compactConfiguration());
+
+  private static PythonConfiguration compactConfiguration() {
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setCompactTree(true);
+    return conf;
+  }
+
+  @Test
+  public void compact_tree_has_fewer_nodes() {
+    String source = "foo(x)\n";
+    assertThat(count(compactParser.parse(source))).isLessThan(count(parser.parse(source)));
+    // STATEMENT, which also holds the NEWLINE, then EXPRESSION_STMT without STMT_LIST, SIMPLE_STMT, TESTLIST_STAR_EXPR and TEST
+    AstNode expressionStatement = compactParser.parse(source).getFirstChild().getFirstChild();
+    assertThat(expressionStatement.is(PythonGrammar.EXPRESSION_STMT)).isTrue();
+    assertThat(expressionStatement.getFirstChild().is(PythonGrammar.POWER)).isTrue();
+  }
+
+  @Test
+  public void statements() {
+    String source = "if x:\n  pass\n  a = 1; b = 2\nwhile y: c = 1; pass\ndef f(): return";
+    for (Parser<Grammar> p : ImmutableList.of(parser, compactParser)) {
+      AstNode fileInput = p.parse(source);
+      List<AstNode> statements = PythonAstNodes.statements(fileInput);
+      assertThat(statements).hasSize(3);
+
+      AstNode ifStmt = PythonAstNodes.compoundStatement(statements.get(0));
+      assertThat(ifStmt.is(PythonGrammar.IF_STMT)).isTrue();
+      assertThat(PythonAstNodes.simpleStatements(statements.get(0))).isEmpty();
+      List<AstNode> ifStatements = PythonAstNodes.statements(ifStmt.getFirstChild(PythonGrammar.SUITE));
+      assertThat(ifStatements).hasSize(2);
+      assertThat(PythonAstNodes.compoundStatement(ifStatements.get(0))).isNull();
+      assertThat(PythonAstNodes.simpleStatements(ifStatements.get(0)).get(0).is(PythonGrammar.PASS_STMT)).isTrue();
+      assertThat(PythonAstNodes.simpleStatements(ifStatements.get(1))).hasSize(2);
+
+      AstNode whileSuite = PythonAstNodes.compoundStatement(statements.get(1)).getFirstChild(PythonGrammar.SUITE);
+      assertThat(PythonAstNodes.statements(whileSuite)).isEmpty();
+      assertThat(PythonAstNodes.simpleStatements(whileSuite)).hasSize(2);
+
+      AstNode funcSuite = PythonAstNodes.compoundStatement(statements.get(2)).getFirstChild(PythonGrammar.SUITE);
+      assertThat(PythonAstNodes.simpleStatements(funcSuite).get(0).is(PythonGrammar.RETURN_STMT)).isTrue();
+    }
+  }
+
+  /**
+   * Compares the compact tree of each file with the full tree, in which every node of a wrapper rule is still there.
+   */
+  @Test
+  public void nodes_stand_for_the_wrappers_left_out_of_the_compact_tree() throws Exception {
+    Collection<File> files = FileUtils.listFiles(new File("src/test/resources"), new String[] {"py"}, true);
+    File checkResources = new File("../python-checks/src/test/resources");
+    if (checkResources.isDirectory()) {
+      files.addAll(FileUtils.listFiles(checkResources, new String[] {"py"}, true));
+    }
+    int parsedFiles = 0;
+    for (File file : files) {
+      AstNode tree;
+      try {
+        tree = parser.parse(file);
+      } catch (RecognitionException e) {
+        continue;
+      }
+      assertStandsOnlyForItself(tree);
+      compare(tree, compactParser.parse(file));
+      parsedFiles++;
+    }
+    assertThat(parsedFiles).isGreaterThan(50);
+  }
+
+  private static void assertStandsOnlyForItself(AstNode node) {
+    for (PythonGrammar wrapper : PythonGrammar.COMPACT_TREE_WRAPPERS) {
+      assertThat(PythonAstNodes.standsFor(node, wrapper)).as(describe(node) + " " + wrapper).isEqualTo(node.is(wrapper));
+    }
+    for (AstNode child : node.getChildren()) {
+      assertStandsOnlyForItself(child);
+    }
+  }
+
+  private static void compare(AstNode node, AstNode compactNode) {
+    assertThat(compactNode.getType()).isEqualTo(node.getType());
+    assertThat(compactNode.getNumberOfChildren()).as(describe(node)).isEqualTo(node.getNumberOfChildren());
+    for (int i = 0; i < node.getNumberOfChildren(); i++) {
+      AstNode child = node.getChildren().get(i);
+      Set<PythonGrammar> leftOut = EnumSet.noneOf(PythonGrammar.class);
+      while (PythonGrammar.COMPACT_TREE_WRAPPERS.contains(child.getType()) && child.getNumberOfChildren() == 1) {
+        leftOut.add((PythonGrammar) child.getType());
+        child = child.getFirstChild();
+      }
+      AstNode compactChild = compactNode.getChildren().get(i);
+      for (PythonGrammar wrapper : PythonGrammar.COMPACT_TREE_WRAPPERS) {
+        assertThat(PythonAstNodes.standsFor(compactChild, wrapper)).as(describe(compactChild) + " " + wrapper)
+          .isEqualTo(compactChild.is(wrapper) || leftOut.contains(wrapper));
+      }
+      compare(child, compactChild);
+    }
+  }
+
+  private static String describe(AstNode node) {
+    return node.getType() + " in " + node.getParent() + " at " + node.getTokenLine() + ":" + node.getToken().getColumn();
+  }
+
+  private static int count(AstNode node) {
+    int result = 1;
+    for (AstNode child : node.getChildren()) {
+      result += count(child);
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.lexer;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.python.PythonConfiguration;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Checks that {@link PythonLexer} produces the same tokens as the chain of regular expression channels it replaced.
+ */
+public class PythonTokenChannelTest {
+
+  private final PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+  private final Lexer lexer = PythonLexer.create(conf);
+  private final Lexer referenceLexer = RegexpPythonLexer.create(conf);
+
+  @Test
+  public void numbers() {
+    assertSameTokens("0 00 07 0777L 0o17 0O8 08 0x1f 0XffL 0x 0b101 0B2 0b 0L 1 123l 1_0");
+    assertSameTokens("1. 1.5 .5 . .e 1.e5 1.5E-3j 1e 1e+ 1e_1 1e+_ 3j 0j 0777j 0e5 0x1e5 09.5 1.2.3 1..2");
+  }
+
+  @Test
+  public void strings() {
+    assertSameTokens("'' \"\" 'a\\'b' u'x' U\"x\" ur'x' UR'x' r'\\\\' b'x' B\"x\" br'x' bR'x' Br\"x\" BR'x' rb'x' ub'x'");
+    assertSameTokens("'''long\n'string''' \"\"\"long\"\"\" b'''bytes''' 'multi\\\nline'");
+    assertSameTokens("b'''unterminated");
+    assertSameTokens("br\"\"\"unterminated");
+    assertSameTokens("'unterminated");
+    assertSameTokens("b'unterminated\\");
+    assertSameTokens("u rb b1 r_ U2 uu bb");
+  }
+
+  @Test
+  public void identifiers_keywords_and_punctuators() {
+    assertSameTokens("def f(a, *b, **c): return a if not b else c or None");
+    assertSameTokens("x += 1; y //= 2; z **= 3; w >>= 4; v <<= 5; a <> b; `x`; @decorator; a != b <= c >= d == e");
+    assertSameTokens("é ¤ $ ? ! \\");
+  }
+
+  @Test
+  public void whitespaces_and_comments() {
+    assertSameTokens("a  \t\f\u000Bb # comment \r\n  # indented comment\n\tc\r  d\n#\n");
+    assertSameTokens("if x:\n  \n    y = [1,\n  2]\n  # comment\nz");
+  }
+
+  @Test
+  public void files() throws Exception {
+    Collection<File> files = Lists.newArrayList();
+    for (String directory : new String[] {"src/test/resources", "../python-checks/src/test/resources", "../its/plugin/projects", "../its/sources"}) {
+      if (new File(directory).isDirectory()) {
+        files.addAll(FileUtils.listFiles(new File(directory), new String[] {"py"}, true));
+      }
+    }
+    assertThat(files).isNotEmpty();
+    for (File file : files) {
+      assertThat(tokens(lexer.lex(file))).as(file.getPath()).isEqualTo(tokens(referenceLexer.lex(file)));
+    }
+  }
+
+  private void assertSameTokens(String source) {
+    assertThat(tokens(lexer.lex(source))).isEqualTo(tokens(referenceLexer.lex(source)));
+  }
+
+  private static List<String> tokens(List<Token> tokens) {
+    List<String> result = Lists.newArrayList();
+    for (Token token : tokens) {
+      for (Trivia trivia : token.getTrivia()) {
+        result.add("trivia " + trivia.isComment() + " " + describe(trivia.getToken()));
+      }
+      result.add(describe(token));
+    }
+    return result;
+  }
+
+  private static String describe(Token token) {
+    return token.getType() + " " + token.getLine() + ":" + token.getColumn()
+      + " [" + token.getValue() + "] [" + token.getOriginalValue() + "] " + token.getURI() + " " + token.isGeneratedCode();
+  }
+
+}
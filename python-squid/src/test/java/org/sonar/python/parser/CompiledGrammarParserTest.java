@@ -0,0 +1,73 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.parser;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.impl.Parser;
+import com.sonar.sslr.impl.ast.AstXmlPrinter;
+import com.sonar.sslr.impl.matcher.RuleDefinition;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.lexer.PythonLexer;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Fails as soon as an upgrade of SSLR changes what {@link Parser#parse(java.util.List)} does, as
+ * {@link CompiledGrammarParser} then needs to be changed accordingly.
+ */
+public class CompiledGrammarParserTest {
+
+  private final PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+  private final Grammar grammar = PythonParser.grammar(false);
+  private final Parser<Grammar> compiledGrammarParser = new CompiledGrammarParser(grammar, PythonLexer.create(conf));
+  private final Parser<Grammar> sslrParser = Parser.builder(grammar).withLexer(PythonLexer.create(conf)).build();
+
+  @Test
+  public void same_trees_as_sslr_parser() {
+    for (File file : FileUtils.listFiles(new File("src/test/resources/parser/"), new String[] {"py"}, true)) {
+      assertThat(AstXmlPrinter.print(compiledGrammarParser.parse(file)))
+        .as(file.getPath())
+        .isEqualTo(AstXmlPrinter.print(sslrParser.parse(file)));
+    }
+  }
+
+  @Test
+  public void same_trees_as_sslr_parser_from_other_root_rule() {
+    compiledGrammarParser.setRootRule(grammar.rule(PythonGrammar.EXPR));
+    sslrParser.setRootRule(grammar.rule(PythonGrammar.EXPR));
+    String source = "[x * (a + b) for x in range(a) if x % 2 == 0]";
+    assertThat(AstXmlPrinter.print(compiledGrammarParser.parse(source))).isEqualTo(AstXmlPrinter.print(sslrParser.parse(source)));
+  }
+
+  @Test
+  public void grammar_is_compiled_once_per_root_rule() {
+    RuleDefinition fileInput = (RuleDefinition) grammar.rule(PythonGrammar.FILE_INPUT);
+    RuleDefinition expr = (RuleDefinition) grammar.rule(PythonGrammar.EXPR);
+    assertThat(CompiledGrammarParser.compiledGrammar(fileInput)).isSameAs(CompiledGrammarParser.compiledGrammar(fileInput));
+    assertThat(CompiledGrammarParser.compiledGrammar(expr)).isNotSameAs(CompiledGrammarParser.compiledGrammar(fileInput));
+  }
+
+}
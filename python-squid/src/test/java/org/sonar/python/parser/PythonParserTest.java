@@ -20,15 +20,20 @@
 package org.sonar.python.parser;
 
 import com.google.common.base.Charsets;
+import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
 import com.sonar.sslr.impl.Parser;
 import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonGrammar;
 
 import java.io.File;
 import java.util.Collection;
 
+import static org.fest.assertions.Assertions.assertThat;
+
 public class PythonParserTest {
 
   private final Parser<Grammar> parser = PythonParser.create(new PythonConfiguration(Charsets.UTF_8));
@@ -41,6 +46,34 @@ public class PythonParserTest {
     }
   }
 
+  @Test
+  public void grammar_is_shared_by_parsers() {
+    PythonConfiguration compactConf = new PythonConfiguration(Charsets.UTF_8);
+    compactConf.setCompactTree(true);
+    Parser<Grammar> other = PythonParser.create(new PythonConfiguration(Charsets.UTF_8));
+    Parser<Grammar> compact = PythonParser.create(compactConf);
+
+    assertThat(other.getGrammar()).isSameAs(parser.getGrammar());
+    assertThat(compact.getGrammar()).isNotSameAs(parser.getGrammar());
+    assertThat(compact.getGrammar()).isSameAs(PythonParser.grammar(true));
+  }
+
+  @Test
+  public void root_rule_is_specific_to_parser() {
+    Parser<Grammar> other = PythonParser.create(new PythonConfiguration(Charsets.UTF_8));
+    other.setRootRule(other.getGrammar().rule(PythonGrammar.EXPR));
+
+    assertThat(other.getRootRule()).isSameAs(other.getGrammar().rule(PythonGrammar.EXPR));
+    assertThat(other.parse("a + b").is(PythonGrammar.EXPR)).isTrue();
+    AstNode fileInput = parser.parse("a + b");
+    assertThat(fileInput.is(PythonGrammar.FILE_INPUT)).isTrue();
+  }
+
+  @Test(expected = RecognitionException.class)
+  public void lexer_error() {
+    parser.parse("'''");
+  }
+
   private static Collection<File> listFiles() {
     File dir = new File("src/test/resources/parser/");
     return FileUtils.listFiles(dir, new String[]{"py"}, true);
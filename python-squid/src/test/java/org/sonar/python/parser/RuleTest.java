@@ -23,11 +23,17 @@ import com.google.common.base.Charsets;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.impl.Parser;
 import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.lexer.PythonLexer;
 import org.sonar.sslr.grammar.GrammarRuleKey;
 
 public class RuleTest {
 
-  protected Parser<Grammar> p = PythonParser.create(new PythonConfiguration(Charsets.UTF_8));
+  /**
+   * Rules get mocked, so the grammar of {@link PythonParser} cannot be shared here.
+   */
+  protected Parser<Grammar> p = Parser.builder(PythonGrammar.create(false).build())
+    .withLexer(PythonLexer.create(new PythonConfiguration(Charsets.UTF_8))).build();
 
   protected void setRootRule(GrammarRuleKey ruleKey) {
     p.setRootRule(p.getGrammar().rule(ruleKey));
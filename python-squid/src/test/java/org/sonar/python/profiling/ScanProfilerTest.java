@@ -0,0 +1,105 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.profiling;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.python.LineVisitor;
+import org.sonar.python.PythonAstScanner;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.SourceText;
+import org.sonar.python.TokenVisitor;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.squidbridge.AstScanner;
+import org.sonar.squidbridge.api.SourceFile;
+import org.sonar.squidbridge.checks.SquidCheck;
+import org.sonar.squidbridge.indexer.QueryByType;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ScanProfilerTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_time_visitors_and_files() throws Exception {
+    ScanProfiler profiler = new ScanProfiler();
+    FunctionCheck check = new FunctionCheck();
+    profiler.setName(check, "python:Function");
+    LineCheck lineCheck = new LineCheck();
+    profiler.setName(lineCheck, "python:Line");
+    PythonConfiguration conf = new PythonConfiguration(Charsets.UTF_8);
+    conf.setProfiler(profiler);
+
+    AstScanner<Grammar> scanner = PythonAstScanner.create(conf, check, lineCheck);
+    scanner.scanFile(new File("src/test/resources/metrics/functions.py"));
+
+    SourceFile file = (SourceFile) scanner.getIndex().search(new QueryByType(SourceFile.class)).iterator().next();
+    assertThat(file.getCheckMessages()).hasSize(1);
+    assertThat(file.getCheckMessages().iterator().next().getCheck()).isSameAs(check);
+
+    File report = temporaryFolder.newFile("profile.json");
+    profiler.report(report);
+    String json = Files.toString(report, Charsets.UTF_8);
+    assertThat(json).contains("{\"name\": \"python:Function\", \"calls\": 4");
+    assertThat(json).contains("\"visitFile\": {\"calls\": 1");
+    assertThat(json).contains("\"visitNode\": {\"calls\": 1");
+    assertThat(json).contains("\"leaveNode\": {\"calls\": 1");
+    assertThat(json).contains("\"leaveFile\": {\"calls\": 1");
+    assertThat(json).contains("{\"name\": \"python:Line\", \"calls\": " + (lineCheck.lines + 2));
+    assertThat(json).contains("\"visitLine\": {\"calls\": " + lineCheck.lines);
+    assertThat(json).contains("\"name\": \"MetricsVisitor\"");
+    assertThat(json).contains("{\"path\": \"src/test/resources/metrics/functions.py\"");
+  }
+
+  private static class FunctionCheck extends SquidCheck<Grammar> {
+
+    @Override
+    public void init() {
+      subscribeTo(PythonGrammar.FUNCDEF);
+    }
+
+    @Override
+    public void visitNode(AstNode astNode) {
+      getContext().createLineViolation(this, "Function", astNode);
+    }
+
+  }
+
+  private static class LineCheck extends SquidCheck<Grammar> implements LineVisitor, TokenVisitor {
+
+    private int lines = 0;
+
+    @Override
+    public void visitLine(SourceText sourceText, int line) {
+      lines++;
+    }
+
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.semantic;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import org.junit.Test;
+import org.sonar.python.FileContext;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.parser.PythonParser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SymbolTableTest {
+
+  private final AstNode fileInput = PythonParser.create(new PythonConfiguration(Charsets.UTF_8)).parse(new File("src/test/resources/semantic/symbols.py"));
+  private final SymbolTable symbolTable = SymbolTable.of(fileInput);
+
+  @Test
+  public void scopes() {
+    Scope module = symbolTable.getModuleScope();
+    assertThat(module.getKind()).isEqualTo(Scope.Kind.MODULE);
+    assertThat(module.getNode()).isSameAs(fileInput);
+    assertThat(module.getParent()).isNull();
+    assertThat(module.getChildren()).hasSize(2);
+
+    Scope classA = module.getChildren().get(0);
+    assertThat(classA.getKind()).isEqualTo(Scope.Kind.CLASS);
+    assertThat(classA.getParent()).isSameAs(module);
+    assertThat(symbolTable.getScope(classA.getNode())).isSameAs(classA);
+    assertThat(values(classA.getMethodNames())).containsExactly("method", "unused_self");
+  }
+
+  @Test
+  public void same_table_while_file_is_visited() {
+    FileContext fileContext = new FileContext();
+    AstNode funcDef = fileInput.getFirstDescendant(PythonGrammar.FUNCDEF);
+    fileContext.visitFile(fileInput);
+    SymbolTable table = SymbolTable.of(fileInput);
+    assertThat(SymbolTable.of(funcDef)).isSameAs(table);
+    fileContext.leaveFile(fileInput);
+
+    assertThat(SymbolTable.of(funcDef)).isNotSameAs(table);
+    assertThat(SymbolTable.of(funcDef)).isNotSameAs(SymbolTable.of(funcDef));
+  }
+
+  @Test
+  public void node_of_other_file_while_file_is_visited() {
+    FileContext fileContext = new FileContext();
+    fileContext.visitFile(fileInput);
+    AstNode otherFuncDef = PythonParser.create(new PythonConfiguration(Charsets.UTF_8)).parse("def f(): pass").getFirstDescendant(PythonGrammar.FUNCDEF);
+    assertThat(SymbolTable.of(otherFuncDef).getScope(otherFuncDef).getKind()).isEqualTo(Scope.Kind.FUNCTION);
+    assertThat(SymbolTable.of(otherFuncDef)).isSameAs(SymbolTable.of(otherFuncDef));
+    assertThat(SymbolTable.of(fileInput)).isNotSameAs(SymbolTable.of(otherFuncDef));
+    fileContext.destroy();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void no_scope() {
+    symbolTable.getScope(fileInput.getFirstDescendant(PythonGrammar.SUITE));
+  }
+
+  @Test
+  public void class_fields() {
+    Scope classA = symbolTable.getModuleScope().getChildren().get(0);
+    assertThat(values(classA.getAssignedNames().values())).containsExactly("field", "other_field");
+    assertThat(classA.getAssignedNames().get("field").getLine()).isEqualTo(4);
+    assertThat(values(classA.getSelfAttributes().values())).containsExactly("attribute", "other", "nested_attribute");
+    assertThat(values(classA.getFields().values())).containsExactly("field", "other_field", "attribute", "other", "nested_attribute");
+
+    Scope classB = symbolTable.getScope(fileInput.getFirstDescendant(PythonGrammar.CLASSDEF).getFirstDescendant(PythonGrammar.CLASSDEF));
+    assertThat(values(classB.getSelfAttributes().values())).containsExactly("b_attribute");
+  }
+
+  @Test
+  public void function_names() {
+    Scope method = symbolTable.getModuleScope().getChildren().get(0).getChildren().get(0);
+    assertThat(method.getKind()).isEqualTo(Scope.Kind.FUNCTION);
+    assertThat(values(method.getParameters())).containsExactly("self", "p", "q");
+    assertThat(values(method.getForLoopCounters())).containsExactly("i", "j", "k");
+    assertThat(values(method.getAssignedNames().values())).containsExactly("local");
+    assertThat(method.usesName("self")).isTrue();
+    assertThat(method.usesName("b_attribute")).isTrue();
+    assertThat(method.usesName("x")).isFalse();
+
+    Scope unusedSelf = symbolTable.getModuleScope().getChildren().get(0).getChildren().get(1);
+    assertThat(unusedSelf.usesName("self")).isFalse();
+
+    Scope function = symbolTable.getModuleScope().getChildren().get(1);
+    assertThat(values(function.getAssignedNames().values())).containsExactly("y");
+    assertThat(values(symbolTable.getModuleScope().getAssignedNames().values())).containsExactly("x");
+  }
+
+  private static List<String> values(Collection<Token> tokens) {
+    List<String> values = new ArrayList<>();
+    for (Token token : tokens) {
+      values.add(token.getValue());
+    }
+    return values;
+  }
+
+}
@@ -0,0 +1,10 @@
+# -*- coding: utf-8 -*-
+# Generated by Django 1.9 on 2016-01-01 12:00
+from __future__ import unicode_literals
+
+from django.db import migrations, models
+
+
+class Migration(migrations.Migration):
+
+    initial = True
@@ -0,0 +1,13 @@
+# -*- coding: utf-8 -*-
+# header line 2
+# header line 3
+# header line 4
+# header line 5
+# header line 6
+# header line 7
+# header line 8
+# header line 9
+# header line 10
+# header line 11
+# Generated by Django 1.9 on 2016-01-01 12:00
+from __future__ import unicode_literals
@@ -0,0 +1,6 @@
+# Not generated by anything: written by hand.
+# DO NOT EDIT without asking the maintainers of the hello module.
+
+def hello():
+    print("Hello world")
+    return
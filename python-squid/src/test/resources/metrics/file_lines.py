@@ -1,4 +0,0 @@
-# comment
-if 2 > 1:
-	
-	print "b" # end of line comment
@@ -0,0 +1,28 @@
+x = 1
+
+class A:
+    field = 1
+    field = 2
+    if x:
+        other_field = 3
+
+    def method(self, p, q=x):
+        self.attribute = p
+        local, (self.other) = 1, 2
+        for i in range(q):
+            for j, k in []:
+                pass
+
+        def nested():
+            self.nested_attribute = 1
+
+        class B:
+            def method_of_b(self):
+                self.b_attribute = 1
+
+    def unused_self(self):
+        return 1
+
+def function():
+    y = 2
+    return y
@@ -19,43 +19,186 @@
  */
 package org.sonar.plugins.python;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.filefilter.IOFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.utils.WildcardPattern;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.regex.Pattern;
 
+/**
+ * Finds the files of a directory which match a pattern.
+ * <p>
+ * The walk starts at the directory given by the literal segments at the beginning of the pattern, and does not enter
+ * the directories which cannot contain a match, such as {@code .git} for {@code coverage-reports/*.xml}.
+ * Walks are kept in a {@link DirectoryScannerCache}: patterns which only differ by their file name, such as the
+ * default patterns of the reports, share the same walk.
+ */
 public class DirectoryScanner {
 
+  private static final Logger LOG = LoggerFactory.getLogger(DirectoryScanner.class);
+
+  private static final String ANY_DIRECTORIES = "**";
+
   private final File baseDir;
   private final WildcardPattern pattern;
+  private final DirectoryScannerCache cache;
 
   public DirectoryScanner(File baseDir, WildcardPattern pattern) {
+    this(baseDir, pattern, new DirectoryScannerCache());
+  }
+
+  public DirectoryScanner(File baseDir, WildcardPattern pattern, DirectoryScannerCache cache) {
     this.baseDir = baseDir;
     this.pattern = pattern;
+    this.cache = cache;
   }
 
   public List<File> getIncludedFiles() {
-    final String baseDirAbsolutePath = baseDir.getAbsolutePath();
-    IOFileFilter fileFilter = new IOFileFilter() {
+    List<String> segments = segments(pattern.toString());
+    List<String> directorySegments = new ArrayList<>(segments.subList(0, segments.size() - 1));
+    if (segments.get(segments.size() - 1).contains(ANY_DIRECTORIES)) {
+      directorySegments.add(ANY_DIRECTORIES);
+    }
+    int literalSegments = 0;
+    while (literalSegments < directorySegments.size() && isLiteral(directorySegments.get(literalSegments))) {
+      literalSegments++;
+    }
+    String startDirectory = Joiner.on('/').join(directorySegments.subList(0, literalSegments));
+    List<String> walkedSegments = directorySegments.subList(literalSegments, directorySegments.size());
+
+    String key = new File(baseDir, startDirectory).getAbsolutePath() + File.pathSeparator + Joiner.on('/').join(walkedSegments);
+    List<String> walkedFiles = cache.get(key);
+    if (walkedFiles == null) {
+      walkedFiles = walk(startDirectory, new DirectoryFilter(walkedSegments));
+      cache.put(key, walkedFiles);
+    }
 
-      @Override
-      public boolean accept(File dir, String name) {
-        return accept(new File(dir, name));
+    List<File> includedFiles = Lists.newArrayList();
+    for (String relativePath : walkedFiles) {
+      if (pattern.match(relativePath)) {
+        includedFiles.add(new File(baseDir, relativePath));
       }
+    }
+    return includedFiles;
+  }
+
+  /**
+   * @return paths relative to the base directory of the files in the walked directories
+   */
+  private List<String> walk(String startDirectory, final DirectoryFilter filter) {
+    final Path basePath = baseDir.toPath();
+    final Path startPath = basePath.resolve(startDirectory);
+    final List<String> files = new ArrayList<>();
+    if (!Files.isDirectory(startPath)) {
+      return files;
+    }
+    try {
+      Files.walkFileTree(startPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          return filter.canContainMatches(startPath.relativize(dir)) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile()) {
+            files.add(FilenameUtils.separatorsToUnix(basePath.relativize(file).toString()));
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+          LOG.debug("Cannot read '{}' while looking for reports: {}", file, e.toString());
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot walk the directory " + startPath, e);
+    }
+    return files;
+  }
+
+  private static List<String> segments(String pattern) {
+    String unixPattern = StringUtils.removeStart(FilenameUtils.separatorsToUnix(pattern), "/");
+    List<String> segments = new ArrayList<>(Arrays.asList(unixPattern.split("/", -1)));
+    // "dir/" is matched as "dir"
+    if (segments.size() > 1 && segments.get(segments.size() - 1).isEmpty()) {
+      segments.remove(segments.size() - 1);
+    }
+    return segments;
+  }
 
-      @Override
-      public boolean accept(File file) {
-        String path = file.getAbsolutePath();
-        path = path.substring(Math.min(baseDirAbsolutePath.length(), path.length()));
-        return pattern.match(FilenameUtils.separatorsToUnix(path));
+  private static boolean isLiteral(String segment) {
+    return !segment.contains("*") && !segment.contains("?") && !".".equals(segment) && !"..".equals(segment);
+  }
+
+  /**
+   * Tells whether a directory, relative to the start of the walk, is on the way to the directory segments of the pattern.
+   */
+  private static class DirectoryFilter {
+
+    private final List<String> segments;
+    private final Pattern[] segmentPatterns;
+
+    DirectoryFilter(List<String> segments) {
+      this.segments = segments;
+      this.segmentPatterns = new Pattern[segments.size()];
+      for (int i = 0; i < segments.size(); i++) {
+        segmentPatterns[i] = toRegexp(segments.get(i));
+      }
+    }
+
+    boolean canContainMatches(Path directory) {
+      String path = FilenameUtils.separatorsToUnix(directory.toString());
+      String[] directorySegments = path.isEmpty() ? new String[0] : path.split("/");
+      return canContainMatches(directorySegments, 0, 0);
+    }
+
+    private boolean canContainMatches(String[] directorySegments, int segmentIndex, int directoryIndex) {
+      if (directoryIndex == directorySegments.length) {
+        return true;
+      }
+      if (segmentIndex == segments.size()) {
+        return false;
+      }
+      if (segments.get(segmentIndex).contains(ANY_DIRECTORIES)) {
+        return canContainMatches(directorySegments, segmentIndex + 1, directoryIndex) || canContainMatches(directorySegments, segmentIndex, directoryIndex + 1);
       }
-    };
-    return Lists.newArrayList(FileUtils.listFiles(baseDir, fileFilter, TrueFileFilter.INSTANCE));
+      return segmentPatterns[segmentIndex].matcher(directorySegments[directoryIndex]).matches()
+        && canContainMatches(directorySegments, segmentIndex + 1, directoryIndex + 1);
+    }
+
+    private static Pattern toRegexp(String segment) {
+      StringBuilder regexp = new StringBuilder();
+      for (char c : segment.toCharArray()) {
+        if (c == '*') {
+          regexp.append(".*");
+        } else if (c == '?') {
+          regexp.append('.');
+        } else {
+          regexp.append(Pattern.quote(String.valueOf(c)));
+        }
+      }
+      return Pattern.compile(regexp.toString());
+    }
+
   }
 
 }
@@ -0,0 +1,103 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.PathUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the paths found in external reports to the files of the project.
+ * <p>
+ * Equivalent to {@code fileSystem.inputFile(fileSystem.predicates().hasPath(path))}, but each lookup is a hash lookup
+ * instead of an evaluation of the predicate against every file of the project. The index is built on the first lookup,
+ * once the file system is complete, and is then shared by all the sensors of the analysis.
+ */
+public class InputFileIndex implements BatchExtension {
+
+  private static final String PYTHON_EXTENSION = ".py";
+
+  private final FileSystem fileSystem;
+  private Map<String, InputFile> byAbsolutePath;
+  private Map<String, InputFile> byRelativePath;
+
+  public InputFileIndex(FileSystem fileSystem) {
+    this.fileSystem = fileSystem;
+  }
+
+  /**
+   * @param path absolute path, or path relative to the base directory of the project
+   */
+  @CheckForNull
+  public InputFile inputFile(String path) {
+    return inputFile(new File(path));
+  }
+
+  @CheckForNull
+  public InputFile inputFile(File file) {
+    if (file.isAbsolute()) {
+      return get(absolutePaths(), file.getAbsolutePath());
+    }
+    return get(relativePaths(), file.getPath());
+  }
+
+  /**
+   * @param moduleName dotted name of a module, such as {@code package.module}, relative to the base directory of the project
+   */
+  @CheckForNull
+  public InputFile module(String moduleName) {
+    return get(relativePaths(), StringUtils.replace(moduleName, ".", "/") + PYTHON_EXTENSION);
+  }
+
+  private static InputFile get(Map<String, InputFile> index, String path) {
+    String key = PathUtils.sanitize(path);
+    return key == null ? null : index.get(key);
+  }
+
+  private synchronized Map<String, InputFile> absolutePaths() {
+    build();
+    return byAbsolutePath;
+  }
+
+  private synchronized Map<String, InputFile> relativePaths() {
+    build();
+    return byRelativePath;
+  }
+
+  private void build() {
+    if (byAbsolutePath != null) {
+      return;
+    }
+    byAbsolutePath = new HashMap<>();
+    byRelativePath = new HashMap<>();
+    for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().all())) {
+      byAbsolutePath.put(PathUtils.sanitize(inputFile.absolutePath()), inputFile);
+      byRelativePath.put(PathUtils.sanitize(inputFile.relativePath()), inputFile);
+    }
+  }
+
+}
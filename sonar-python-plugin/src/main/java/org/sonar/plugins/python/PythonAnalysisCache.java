@@ -0,0 +1,286 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import com.sonar.sslr.api.Grammar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.check.RuleProperty;
+import org.sonar.python.ParseLimits;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonMetric;
+import org.sonar.squidbridge.SquidAstVisitor;
+
+import javax.annotation.CheckForNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Results of the previous analysis, stored in the work directory and keyed by the content hash of each file.
+ * The whole cache is discarded as soon as the plugin version, the encoding or the active rules and their
+ * parameters differ from the ones it was written with.
+ */
+class PythonAnalysisCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PythonAnalysisCache.class);
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String HASH_ALGORITHM = "SHA-1";
+
+  private final File file;
+  private final String fingerprint;
+  private final Map<String, Entry> previousEntries;
+  private final Map<String, byte[]> hashes = Maps.newHashMap();
+  private final Map<String, Entry> entries = Maps.newTreeMap();
+
+  private PythonAnalysisCache(File file, String fingerprint, Map<String, Entry> previousEntries) {
+    this.file = file;
+    this.fingerprint = fingerprint;
+    this.previousEntries = previousEntries;
+  }
+
+  static PythonAnalysisCache load(File file, String fingerprint) {
+    Map<String, Entry> previousEntries = Collections.emptyMap();
+    if (file.isFile()) {
+      try {
+        previousEntries = read(file, fingerprint);
+      } catch (IOException e) {
+        LOG.warn("Unable to read the Python analysis cache " + file + ", all files will be analysed", e);
+      }
+    }
+    return new PythonAnalysisCache(file, fingerprint, previousEntries);
+  }
+
+  /**
+   * Returns the results saved for the given file by the previous analysis, or null if its content changed since then.
+   */
+  @CheckForNull
+  PythonFileResult get(InputFile inputFile) {
+    byte[] hash = hash(inputFile.file());
+    hashes.put(inputFile.relativePath(), hash);
+    Entry entry = previousEntries.get(inputFile.relativePath());
+    if (entry != null && Arrays.equals(entry.hash, hash)) {
+      return entry.result;
+    }
+    return null;
+  }
+
+  void put(InputFile inputFile, PythonFileResult result) {
+    byte[] hash = hashes.get(inputFile.relativePath());
+    if (hash == null) {
+      hash = hash(inputFile.file());
+    }
+    entries.put(inputFile.relativePath(), new Entry(hash, result));
+  }
+
+  /**
+   * Writes the results put in this cache, replacing the ones of the previous analysis.
+   */
+  void save() {
+    DataOutputStream out = null;
+    try {
+      file.getParentFile().mkdirs();
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      write(out);
+    } catch (IOException e) {
+      LOG.warn("Unable to write the Python analysis cache " + file, e);
+    } finally {
+      Closeables.closeQuietly(out);
+    }
+  }
+
+  static String fingerprint(PythonConfiguration conf, Checks<SquidAstVisitor<Grammar>> checks) {
+    List<String> activeRules = Lists.newArrayList();
+    for (SquidAstVisitor<Grammar> check : checks.all()) {
+      activeRules.add(checks.ruleKey(check) + ruleParameters(check).toString());
+    }
+    Collections.sort(activeRules);
+    ParseLimits limits = conf.getParseLimits();
+    return pluginVersion() + ";" + conf.getCharset().name() + ";" + conf.getCompactTree() + ";"
+      + limits.getMaxFileSize() + ";" + limits.getMaxLines() + ";" + limits.getParseTimeoutMillis() + ";"
+      + conf.getGeneratedCodeDetector() + ";" + activeRules;
+  }
+
+  private static Map<String, String> ruleParameters(Object check) {
+    Map<String, String> parameters = Maps.newTreeMap();
+    for (Class<?> type = check.getClass(); type != null; type = type.getSuperclass()) {
+      for (Field field : type.getDeclaredFields()) {
+        RuleProperty property = field.getAnnotation(RuleProperty.class);
+        if (property != null) {
+          field.setAccessible(true);
+          try {
+            parameters.put(property.key().isEmpty() ? field.getName() : property.key(), String.valueOf(field.get(check)));
+          } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }
+    }
+    return parameters;
+  }
+
+  private static String pluginVersion() {
+    InputStream input = PythonAnalysisCache.class.getResourceAsStream("python-plugin.properties");
+    try {
+      Properties properties = new Properties();
+      properties.load(input);
+      return properties.getProperty("version");
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the version of the Python plugin", e);
+    } finally {
+      Closeables.closeQuietly(input);
+    }
+  }
+
+  private static byte[] hash(File file) {
+    InputStream input = null;
+    try {
+      MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+      input = new FileInputStream(file);
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+      return digest.digest();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read " + file, e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      Closeables.closeQuietly(input);
+    }
+  }
+
+  private static Map<String, Entry> read(File file, String fingerprint) throws IOException {
+    Map<String, Entry> result = Maps.newHashMap();
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (in.readInt() != FORMAT_VERSION || !fingerprint.equals(in.readUTF())) {
+        LOG.info("Python analysis cache is outdated, all files will be analysed");
+        return result;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        byte[] hash = readBytes(in);
+        result.put(path, new Entry(hash, readResult(in)));
+      }
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+    return result;
+  }
+
+  private static PythonFileResult readResult(DataInputStream in) throws IOException {
+    PythonFileResult result = new PythonFileResult();
+    for (PythonMetric metric : PythonMetric.values()) {
+      result.setMeasure(metric, in.readDouble());
+    }
+    int functions = in.readInt();
+    for (int i = 0; i < functions; i++) {
+      result.getFunctionComplexities().add(in.readDouble());
+    }
+    result.getLinesOfCode().or(BitSet.valueOf(readBytes(in)));
+    result.getLinesOfComments().or(BitSet.valueOf(readBytes(in)));
+    int messages = in.readInt();
+    for (int i = 0; i < messages; i++) {
+      RuleKey ruleKey = RuleKey.parse(in.readUTF());
+      int line = in.readInt();
+      result.addMessage(ruleKey, line == 0 ? null : line, in.readUTF());
+    }
+    return result;
+  }
+
+  private void write(DataOutputStream out) throws IOException {
+    out.writeInt(FORMAT_VERSION);
+    out.writeUTF(fingerprint);
+    out.writeInt(entries.size());
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      out.writeUTF(entry.getKey());
+      writeBytes(out, entry.getValue().hash);
+      writeResult(out, entry.getValue().result);
+    }
+  }
+
+  private static void writeResult(DataOutputStream out, PythonFileResult result) throws IOException {
+    for (PythonMetric metric : PythonMetric.values()) {
+      out.writeDouble(result.getMeasure(metric));
+    }
+    out.writeInt(result.getFunctionComplexities().size());
+    for (Double complexity : result.getFunctionComplexities()) {
+      out.writeDouble(complexity);
+    }
+    writeBytes(out, result.getLinesOfCode().toByteArray());
+    writeBytes(out, result.getLinesOfComments().toByteArray());
+    out.writeInt(result.getMessages().size());
+    for (PythonFileResult.Message message : result.getMessages()) {
+      out.writeUTF(message.getRuleKey().toString());
+      out.writeInt(message.getLine() == null ? 0 : message.getLine());
+      out.writeUTF(message.getText());
+    }
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static class Entry {
+
+    private final byte[] hash;
+    private final PythonFileResult result;
+
+    Entry(byte[] hash, PythonFileResult result) {
+      this.hash = hash;
+      this.result = result;
+    }
+  }
+
+}
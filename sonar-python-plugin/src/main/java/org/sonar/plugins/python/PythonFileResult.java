@@ -0,0 +1,110 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import com.google.common.collect.Lists;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.python.api.PythonMetric;
+
+import javax.annotation.Nullable;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Everything the squid sensor saves for one file, detached from the squid tree so that it can be
+ * written to the analysis cache and replayed later without parsing the file again.
+ */
+class PythonFileResult {
+
+  private final double[] measures = new double[PythonMetric.values().length];
+  private final List<Double> functionComplexities = Lists.newArrayList();
+  private final BitSet linesOfCode = new BitSet();
+  private final BitSet linesOfComments = new BitSet();
+  private final List<Message> messages = Lists.newArrayList();
+  private boolean degraded;
+
+  double getMeasure(PythonMetric metric) {
+    return measures[metric.ordinal()];
+  }
+
+  void setMeasure(PythonMetric metric, double value) {
+    measures[metric.ordinal()] = value;
+  }
+
+  List<Double> getFunctionComplexities() {
+    return functionComplexities;
+  }
+
+  BitSet getLinesOfCode() {
+    return linesOfCode;
+  }
+
+  BitSet getLinesOfComments() {
+    return linesOfComments;
+  }
+
+  List<Message> getMessages() {
+    return messages;
+  }
+
+  void addMessage(RuleKey ruleKey, @Nullable Integer line, String text) {
+    messages.add(new Message(ruleKey, line, text));
+  }
+
+  /**
+   * Whether the file was not parsed because of the parse limits, which depend on the load of the analysis as much as on
+   * the file: such a result is not cached, so that the next analysis tries to parse the file again.
+   */
+  boolean isDegraded() {
+    return degraded;
+  }
+
+  void setDegraded(boolean degraded) {
+    this.degraded = degraded;
+  }
+
+  static class Message {
+
+    private final RuleKey ruleKey;
+    private final Integer line;
+    private final String text;
+
+    Message(RuleKey ruleKey, @Nullable Integer line, String text) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.text = text;
+    }
+
+    RuleKey getRuleKey() {
+      return ruleKey;
+    }
+
+    @Nullable
+    Integer getLine() {
+      return line;
+    }
+
+    String getText() {
+      return text;
+    }
+  }
+
+}
@@ -19,24 +19,40 @@
  */
 package org.sonar.plugins.python;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.sonar.api.PropertyType;
 import org.sonar.api.SonarPlugin;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.plugins.python.colorizer.PythonColorizer;
 import org.sonar.plugins.python.coverage.PythonCoverageSensor;
+import org.sonar.plugins.python.cpd.CpdTokenStore;
 import org.sonar.plugins.python.cpd.PythonCpdMapping;
 import org.sonar.plugins.python.pylint.PylintConfiguration;
 import org.sonar.plugins.python.pylint.PylintRuleRepository;
 import org.sonar.plugins.python.pylint.PylintSensor;
 import org.sonar.plugins.python.pylint.PylintImportSensor;
 import org.sonar.plugins.python.xunit.PythonXUnitSensor;
+import org.sonar.python.GeneratedCodeDetector;
+import org.sonar.python.ParseLimits;
 
 import java.util.List;
 
 public class PythonPlugin extends SonarPlugin {
 
   public static final String FILE_SUFFIXES_KEY = "sonar.python.file.suffixes";
+  public static final String ANALYSIS_THREADS_KEY = "sonar.python.analysis.threads";
+  public static final String ANALYSIS_CACHE_KEY = "sonar.python.analysis.cache";
+  public static final String COMPACT_TREE_KEY = "sonar.python.analysis.compactTree";
+  public static final String PROFILING_KEY = "sonar.python.analysis.profiling";
+  public static final String MAX_FILE_SIZE_KEY = "sonar.python.analysis.maxFileSize";
+  public static final String MAX_LINES_KEY = "sonar.python.analysis.maxLines";
+  public static final String PARSE_TIMEOUT_KEY = "sonar.python.analysis.parseTimeout";
+  public static final String GENERATED_CODE_DETECTION_KEY = "sonar.python.generatedCode.detection";
+  public static final String GENERATED_CODE_PATTERNS_KEY = "sonar.python.generatedCode.patterns";
+  public static final String GENERATED_CODE_MAX_LINE_LENGTH_KEY = "sonar.python.generatedCode.maxLineLength";
 
   @Override
   public List getExtensions() {
@@ -48,10 +64,102 @@ public class PythonPlugin extends SonarPlugin {
           .onQualifiers(Qualifiers.PROJECT)
           .defaultValue("py")
           .build(),
+        PropertyDefinition.builder(ANALYSIS_THREADS_KEY)
+          .name("Analysis Threads")
+          .description("Number of threads used to parse and check Python files. Each thread has its own parser and rule instances.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.INTEGER)
+          .defaultValue("1")
+          .build(),
+        PropertyDefinition.builder(ANALYSIS_CACHE_KEY)
+          .name("Analysis Cache")
+          .description("Keep the results of the analysis in the work directory, and reuse them for the files which did not change "
+            + "since the previous analysis. The cache is discarded when the plugin version or the quality profile changes.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.BOOLEAN)
+          .defaultValue("false")
+          .build(),
+        PropertyDefinition.builder(COMPACT_TREE_KEY)
+          .name("Compact Syntax Tree")
+          .description("Leave out of the syntax tree the nodes of wrapper rules (TEST, EXPR, STATEMENT...) which have only one child, "
+            + "which saves memory and visiting time. XPath rules see the compact tree, so their expressions may need to be adapted.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.BOOLEAN)
+          .defaultValue("false")
+          .build(),
+        PropertyDefinition.builder(PROFILING_KEY)
+          .name("Analysis Profiling")
+          .description("Time each rule and each file during the analysis, and report the slowest ones in the log and in the "
+            + "python-profile.json file of the work directory. Slows down the analysis.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.BOOLEAN)
+          .defaultValue("false")
+          .build(),
+        PropertyDefinition.builder(MAX_FILE_SIZE_KEY)
+          .name("Maximum File Size")
+          .description("Size in kilobytes above which a Python file is not parsed: only its lines are measured, and only the rules "
+            + "on lines and tokens are checked. 0, the default, for no limit.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.INTEGER)
+          .defaultValue("0")
+          .build(),
+        PropertyDefinition.builder(MAX_LINES_KEY)
+          .name("Maximum File Lines")
+          .description("Number of lines above which a Python file is not parsed: only its lines are measured, and only the rules "
+            + "on lines and tokens are checked. 0, the default, for no limit.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.INTEGER)
+          .defaultValue("0")
+          .build(),
+        PropertyDefinition.builder(PARSE_TIMEOUT_KEY)
+          .name("Parse Timeout")
+          .description("Time in seconds after which the parsing of a Python file is abandoned: only its lines are measured, and only "
+            + "the rules on lines and tokens are checked. The abandoned parsing cannot be stopped: it keeps running in the background "
+            + "until it ends. While " + ParseLimits.MAX_ABANDONED_PARSES + " abandoned parsings are running, the files are not parsed at all. "
+            + "0, the default, for no timeout.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.INTEGER)
+          .defaultValue("0")
+          .build(),
+        PropertyDefinition.builder(GENERATED_CODE_DETECTION_KEY)
+          .name("Generated Code Detection")
+          .description("Detect generated Python files from their first lines, or from lines too long to have been written by hand. "
+            + "Only the lines of generated files are measured, and no rule is checked on them. Each detected file is logged.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.BOOLEAN)
+          .defaultValue("false")
+          .build(),
+        PropertyDefinition.builder(GENERATED_CODE_PATTERNS_KEY)
+          .name("Generated Code Patterns")
+          .description("Regular expressions, one per value: a Python file is generated when one of them is found in one of its "
+            + "first 20 lines.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .multiValues(true)
+          .defaultValue(multiValues(GeneratedCodeDetector.DEFAULT_PATTERNS))
+          .build(),
+        PropertyDefinition.builder(GENERATED_CODE_MAX_LINE_LENGTH_KEY)
+          .name("Generated Code Maximum Line Length")
+          .description("Length above which a line, among the first 64 KB of a Python file, is deemed too long to have been written by "
+            + "hand, so that the file is generated. 0, the default, for no limit.")
+          .category("Python")
+          .onQualifiers(Qualifiers.PROJECT)
+          .type(PropertyType.INTEGER)
+          .defaultValue("0")
+          .build(),
 
         Python.class,
         PythonColorizer.class,
         PythonCpdMapping.class,
+        CpdTokenStore.class,
 
         PythonProfile.class,
 
@@ -65,8 +173,22 @@ public class PythonPlugin extends SonarPlugin {
         PylintImportSensor.class,
         PylintRuleRepository.class,
 
+        InputFileIndex.class,
+        DirectoryScannerCache.class,
         PythonXUnitSensor.class,
         PythonCoverageSensor.class);
   }
 
+  /**
+   * Commas within the values are escaped, as by the settings of multi-valued properties, so that regular expressions
+   * such as <code>\d{1,3}</code> are not split.
+   */
+  private static String multiValues(List<String> values) {
+    List<String> escaped = Lists.newArrayList();
+    for (String value : values) {
+      escaped.add(value.replace(",", "%2C"));
+    }
+    return Joiner.on(',').join(escaped);
+  }
+
 }
@@ -39,10 +39,12 @@ public abstract class PythonReportSensor implements Sensor {
 
   protected Settings conf = null;
   protected FileSystem fileSystem;
+  private final DirectoryScannerCache directoryScannerCache;
 
-  public PythonReportSensor(Settings conf, FileSystem fileSystem) {
+  public PythonReportSensor(Settings conf, FileSystem fileSystem, DirectoryScannerCache directoryScannerCache) {
     this.conf = conf;
     this.fileSystem = fileSystem;
+    this.directoryScannerCache = directoryScannerCache;
   }
 
   @Override
@@ -79,7 +81,7 @@ public abstract class PythonReportSensor implements Sensor {
 
     LOG.debug("Using pattern '{}' to find reports", reportPath);
 
-    DirectoryScanner scanner = new DirectoryScanner(new File(baseDirPath), WildcardPattern.create(reportPath));
+    DirectoryScanner scanner = new DirectoryScanner(new File(baseDirPath), WildcardPattern.create(reportPath), directoryScannerCache);
     return scanner.getIncludedFiles();
   }
 
@@ -0,0 +1,178 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import com.google.common.collect.Lists;
+import com.sonar.sslr.api.Grammar;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.python.PythonAstScanner;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.ScannedFileListener;
+import org.sonar.python.api.PythonMetric;
+import org.sonar.python.metrics.MetricsVisitor;
+import org.sonar.python.profiling.ScanProfiler;
+import org.sonar.squidbridge.AstScanner;
+import org.sonar.squidbridge.SquidAstVisitor;
+import org.sonar.squidbridge.api.CheckMessage;
+import org.sonar.squidbridge.api.SourceCode;
+import org.sonar.squidbridge.api.SourceFile;
+import org.sonar.squidbridge.api.SourceFunction;
+
+import java.io.File;
+import java.util.AbstractCollection;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+
+/**
+ * Scans files pulled from a queue shared with other workers. Each worker owns its scanner, and so its own parser
+ * and lexer state, as well as its own instances of the checks: nothing mutable is shared between threads.
+ * <p>
+ * The results of each file are handed over as soon as the file has been scanned, and its squid tree is then
+ * released by the scanner, so that memory does not grow with the number of files in the project. Workers never
+ * write to SonarQube themselves: the results, including the lines of code and comments, are saved by the sensor.
+ */
+class PythonScanWorker implements Callable<Void>, ScannedFileListener {
+
+  interface ResultHandler {
+
+    void handle(File file, PythonFileResult result);
+
+  }
+
+  private final Checks<SquidAstVisitor<Grammar>> checks;
+  private final Queue<File> files;
+  private final ResultHandler resultHandler;
+  private final AstScanner<Grammar> scanner;
+
+  /**
+   * @param conf configuration of this worker only, as the worker listens to the files of its scanner
+   */
+  PythonScanWorker(PythonConfiguration conf, Checks<SquidAstVisitor<Grammar>> checks, List<SquidAstVisitor<Grammar>> otherVisitors, Queue<File> files,
+    ResultHandler resultHandler) {
+    this.checks = checks;
+    this.files = files;
+    this.resultHandler = resultHandler;
+    ScanProfiler profiler = conf.getProfiler();
+    if (profiler != null) {
+      for (SquidAstVisitor<Grammar> check : checks.all()) {
+        profiler.setName(check, checks.ruleKey(check).toString());
+      }
+    }
+    conf.setScannedFileListener(this);
+    List<SquidAstVisitor<Grammar>> visitors = Lists.newArrayList(checks.all());
+    visitors.addAll(otherVisitors);
+    this.scanner = PythonAstScanner.create(conf, visitors.toArray(new SquidAstVisitor[visitors.size()]));
+  }
+
+  @Override
+  public Void call() {
+    scanner.scanFiles(new QueuedFiles());
+    return null;
+  }
+
+  @Override
+  public void fileScanned(File file, SourceFile squidFile, boolean degraded) {
+    PythonFileResult result = toResult(squidFile);
+    result.setDegraded(degraded);
+    resultHandler.handle(file, result);
+  }
+
+  private PythonFileResult toResult(SourceFile squidFile) {
+    PythonFileResult result = new PythonFileResult();
+    for (PythonMetric metric : PythonMetric.values()) {
+      result.setMeasure(metric, squidFile.getDouble(metric));
+    }
+    result.getLinesOfCode().or(lines(MetricsVisitor.linesOfCode(squidFile)));
+    result.getLinesOfComments().or(lines(MetricsVisitor.linesOfComments(squidFile)));
+    addFunctionComplexities(squidFile, result);
+    for (CheckMessage message : squidFile.getCheckMessages()) {
+      RuleKey ruleKey = checks.ruleKey((SquidAstVisitor<Grammar>) message.getCheck());
+      result.addMessage(ruleKey, message.getLine(), message.getText(Locale.ENGLISH));
+    }
+    return result;
+  }
+
+  /**
+   * Functions are nested in the squid tree under their file, classes and enclosing functions.
+   */
+  private static void addFunctionComplexities(SourceCode squidCode, PythonFileResult result) {
+    if (squidCode.hasChildren()) {
+      for (SourceCode child : squidCode.getChildren()) {
+        if (child instanceof SourceFunction) {
+          result.getFunctionComplexities().add(child.getDouble(PythonMetric.COMPLEXITY));
+        }
+        addFunctionComplexities(child, result);
+      }
+    }
+  }
+
+  private static BitSet lines(BitSet lines) {
+    return lines == null ? new BitSet() : lines;
+  }
+
+  /**
+   * View of the shared queue which hands out each file to the first worker asking for it,
+   * so that a worker stuck on a big file does not delay the files behind it.
+   */
+  private class QueuedFiles extends AbstractCollection<File> {
+
+    @Override
+    public Iterator<File> iterator() {
+      return new Iterator<File>() {
+        private File next;
+
+        @Override
+        public boolean hasNext() {
+          if (next == null) {
+            next = files.poll();
+          }
+          return next != null;
+        }
+
+        @Override
+        public File next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          File current = next;
+          next = null;
+          return current;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return files.size();
+    }
+  }
+
+}
@@ -19,8 +19,13 @@
  */
 package org.sonar.plugins.python;
 
+import com.google.common.collect.ForwardingQueue;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.sonar.sslr.api.Grammar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.FilePredicates;
@@ -29,52 +34,79 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.rule.CheckFactory;
 import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.component.ResourcePerspectives;
+import org.sonar.api.config.Settings;
 import org.sonar.api.issue.Issuable;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
 import org.sonar.api.measures.PersistenceMode;
 import org.sonar.api.measures.RangeDistributionBuilder;
 import org.sonar.api.resources.Project;
-import org.sonar.api.rule.RuleKey;
-import org.sonar.python.PythonAstScanner;
+import org.sonar.plugins.python.cpd.CpdTokenStore;
+import org.sonar.plugins.python.cpd.CpdTokenVisitor;
+import org.sonar.python.GeneratedCodeDetector;
+import org.sonar.python.ParseLimits;
 import org.sonar.python.PythonConfiguration;
 import org.sonar.python.api.PythonMetric;
 import org.sonar.python.checks.CheckList;
-import org.sonar.python.metrics.FileLinesVisitor;
-import org.sonar.squidbridge.AstScanner;
+import org.sonar.python.profiling.ScanProfiler;
 import org.sonar.squidbridge.SquidAstVisitor;
-import org.sonar.squidbridge.api.CheckMessage;
-import org.sonar.squidbridge.api.SourceCode;
-import org.sonar.squidbridge.api.SourceFile;
-import org.sonar.squidbridge.api.SourceFunction;
-import org.sonar.squidbridge.indexer.QueryByParent;
-import org.sonar.squidbridge.indexer.QueryByType;
-
-import java.util.Collection;
+
+import java.io.File;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 public final class PythonSquidSensor implements Sensor {
 
+  private static final Logger LOG = LoggerFactory.getLogger(PythonSquidSensor.class);
+
   private static final Number[] FUNCTIONS_DISTRIB_BOTTOM_LIMITS = {1, 2, 4, 6, 8, 10, 12, 20, 30};
   private static final Number[] FILES_DISTRIB_BOTTOM_LIMITS = {0, 5, 10, 20, 30, 60, 90};
+  private static final String CACHE_FILE_NAME = "python-analysis.cache";
+  private static final int FILES_IN_FLIGHT_PER_THREAD = 4;
+  private static final String PROFILE_FILE_NAME = "python-profile.json";
 
+  private final CheckFactory checkFactory;
   private final Checks<SquidAstVisitor<Grammar>> checks;
   private final FileLinesContextFactory fileLinesContextFactory;
+  private final CpdTokenStore cpdTokenStore;
 
   private SensorContext context;
-  private AstScanner<Grammar> scanner;
   private FileSystem fileSystem;
   private ResourcePerspectives resourcePerspectives;
+  private Settings settings;
+  private PythonAnalysisCache cache;
+  private ScanProfiler profiler;
+  private ParseLimits parseLimits;
+  private GeneratedCodeDetector generatedCodeDetector;
 
-  public PythonSquidSensor(FileLinesContextFactory fileLinesContextFactory, FileSystem fileSystem, ResourcePerspectives perspectives, CheckFactory checkFactory) {
-    this.checks = checkFactory
-        .<SquidAstVisitor<Grammar>>create(CheckList.REPOSITORY_KEY)
-        .addAnnotatedChecks(CheckList.getChecks());
+  public PythonSquidSensor(FileLinesContextFactory fileLinesContextFactory, FileSystem fileSystem, ResourcePerspectives perspectives, CheckFactory checkFactory,
+    Settings settings, CpdTokenStore cpdTokenStore) {
+    this.checkFactory = checkFactory;
+    this.cpdTokenStore = cpdTokenStore;
+    this.checks = createChecks(checkFactory);
     this.fileLinesContextFactory = fileLinesContextFactory;
     this.fileSystem = fileSystem;
     this.resourcePerspectives = perspectives;
+    this.settings = settings;
+  }
+
+  private static Checks<SquidAstVisitor<Grammar>> createChecks(CheckFactory checkFactory) {
+    return checkFactory
+        .<SquidAstVisitor<Grammar>>create(CheckList.REPOSITORY_KEY)
+        .addAnnotatedChecks(CheckList.getChecks());
   }
 
   @Override
@@ -86,80 +118,261 @@ public final class PythonSquidSensor implements Sensor {
   @Override
   public void analyse(Project project, SensorContext context) {
     this.context = context;
+    profiler = settings.getBoolean(PythonPlugin.PROFILING_KEY) ? new ScanProfiler() : null;
+    parseLimits = new ParseLimits(
+      settings.getLong(PythonPlugin.MAX_FILE_SIZE_KEY) * 1024,
+      settings.getLong(PythonPlugin.MAX_LINES_KEY),
+      TimeUnit.SECONDS.toMillis(settings.getLong(PythonPlugin.PARSE_TIMEOUT_KEY)));
+    generatedCodeDetector = settings.getBoolean(PythonPlugin.GENERATED_CODE_DETECTION_KEY)
+      ? new GeneratedCodeDetector(Arrays.asList(settings.getStringArray(PythonPlugin.GENERATED_CODE_PATTERNS_KEY)),
+        settings.getInt(PythonPlugin.GENERATED_CODE_MAX_LINE_LENGTH_KEY))
+      : null;
+
+    if (settings.getBoolean(PythonPlugin.ANALYSIS_CACHE_KEY)) {
+      cache = PythonAnalysisCache.load(new File(fileSystem.workDir(), CACHE_FILE_NAME), PythonAnalysisCache.fingerprint(createConfiguration(), checks));
+    }
 
-    List<SquidAstVisitor<Grammar>> visitors = Lists.newArrayList(checks.all());
-    visitors.add(new FileLinesVisitor(fileLinesContextFactory, fileSystem));
-    this.scanner = PythonAstScanner.create(createConfiguration(), visitors.toArray(new SquidAstVisitor[visitors.size()]));
     FilePredicates p = fileSystem.predicates();
-    scanner.scanFiles(Lists.newArrayList(fileSystem.files(p.and(p.hasType(InputFile.Type.MAIN), p.hasLanguage(Python.KEY)))));
+    List<InputFile> scannedFiles = Lists.newArrayList();
+    int unchangedFiles = 0;
+    for (InputFile inputFile : fileSystem.inputFiles(p.and(p.hasType(InputFile.Type.MAIN), p.hasLanguage(Python.KEY)))) {
+      PythonFileResult cachedResult = cache == null ? null : cache.get(inputFile);
+      if (cachedResult == null) {
+        scannedFiles.add(inputFile);
+      } else {
+        save(inputFile, cachedResult);
+        cache.put(inputFile, cachedResult);
+        unchangedFiles++;
+      }
+    }
+    if (cache != null) {
+      LOG.info("{} unchanged Python files restored from the analysis cache", unchangedFiles);
+    }
 
-    Collection<SourceCode> squidSourceFiles = scanner.getIndex().search(new QueryByType(SourceFile.class));
-    save(squidSourceFiles);
+    scan(scannedFiles);
+
+    if (generatedCodeDetector != null && generatedCodeDetector.getGeneratedFiles() > 0) {
+      LOG.info("{} generated Python files were not checked, only their lines were measured", generatedCodeDetector.getGeneratedFiles());
+    }
+    if (parseLimits.getDegradedFiles() > 0) {
+      LOG.warn("{} Python files were not parsed because of the analysis limits, see the warnings above", parseLimits.getDegradedFiles());
+    }
+    if (profiler != null) {
+      profiler.report(new File(fileSystem.workDir(), PROFILE_FILE_NAME));
+    }
+    if (cache != null) {
+      cache.save();
+    }
   }
 
-  private PythonConfiguration createConfiguration() {
-    return new PythonConfiguration(fileSystem.encoding());
+  private void scan(final List<InputFile> inputFiles) {
+    Queue<File> queue = new ConcurrentLinkedQueue<>();
+    final Map<File, InputFile> inputFilesByFile = Maps.newHashMap();
+    for (InputFile inputFile : inputFiles) {
+      queue.add(inputFile.file());
+      inputFilesByFile.put(inputFile.file(), inputFile);
+    }
+    int threads = Math.max(1, Math.min(settings.getInt(PythonPlugin.ANALYSIS_THREADS_KEY), inputFiles.size()));
+    // A single worker runs on the sensor thread, which can then save each result as soon as it is handed over
+    final boolean saveDirectly = threads == 1;
+    int maxFilesInFlight = FILES_IN_FLIGHT_PER_THREAD * threads;
+    Semaphore filesInFlight = new Semaphore(maxFilesInFlight);
+    final BlockingQueue<Map.Entry<File, PythonFileResult>> results = new ArrayBlockingQueue<>(maxFilesInFlight);
+    Queue<File> workerQueue = saveDirectly ? queue : new InFlightFiles(queue, filesInFlight);
+    PythonScanWorker.ResultHandler resultHandler = new PythonScanWorker.ResultHandler() {
+      @Override
+      public void handle(File file, PythonFileResult result) {
+        if (saveDirectly) {
+          saveScannedFile(inputFilesByFile.get(file), result);
+        } else {
+          results.add(Maps.immutableEntry(file, result));
+        }
+      }
+    };
+    List<PythonScanWorker> workers = Lists.newArrayList();
+    for (int i = 0; i < threads; i++) {
+      Checks<SquidAstVisitor<Grammar>> workerChecks = i == 0 ? checks : createChecks(checkFactory);
+      List<SquidAstVisitor<Grammar>> metricVisitors = ImmutableList.<SquidAstVisitor<Grammar>>of(new CpdTokenVisitor(cpdTokenStore));
+      workers.add(new PythonScanWorker(createConfiguration(), workerChecks, metricVisitors, workerQueue, resultHandler));
+    }
+    if (threads == 1) {
+      workers.get(0).call();
+    } else {
+      LOG.info("Analysing {} files with {} threads", inputFiles.size(), threads);
+      scanInParallel(workers, inputFiles, results, filesInFlight);
+    }
   }
 
-  private void save(Collection<SourceCode> squidSourceFiles) {
-    for (SourceCode squidSourceFile : squidSourceFiles) {
-      SourceFile squidFile = (SourceFile) squidSourceFile;
+  private void saveScannedFile(InputFile inputFile, PythonFileResult result) {
+    save(inputFile, result);
+    if (cache != null && !result.isDegraded()) {
+      cache.put(inputFile, result);
+    }
+  }
 
-      InputFile inputFile = fileSystem.inputFile(fileSystem.predicates().is(new java.io.File(squidFile.getKey())));
+  /**
+   * The workers only put their results on a queue: they are all saved by the sensor thread, in the order of the
+   * input files, as neither the SonarQube index nor the issues can be written from several threads. Each saved file
+   * lets the workers take one more file from the queue.
+   */
+  private void scanInParallel(List<PythonScanWorker> workers, List<InputFile> inputFiles, BlockingQueue<Map.Entry<File, PythonFileResult>> results,
+    Semaphore filesInFlight) {
+    ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+    try {
+      List<Future<Void>> futures = Lists.newArrayList();
+      for (PythonScanWorker worker : workers) {
+        futures.add(executor.submit(worker));
+      }
+      Map<File, PythonFileResult> pending = Maps.newHashMap();
+      int next = 0;
+      while (next < inputFiles.size()) {
+        Map.Entry<File, PythonFileResult> scanned = results.poll(1, TimeUnit.SECONDS);
+        if (scanned == null) {
+          checkWorkers(futures);
+          continue;
+        }
+        pending.put(scanned.getKey(), scanned.getValue());
+        while (next < inputFiles.size() && pending.containsKey(inputFiles.get(next).file())) {
+          InputFile inputFile = inputFiles.get(next);
+          saveScannedFile(inputFile, pending.remove(inputFile.file()));
+          filesInFlight.release();
+          next++;
+        }
+      }
+      checkWorkers(futures);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while analysing Python files", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-      saveFilesComplexityDistribution(inputFile, squidFile);
-      saveFunctionsComplexityDistribution(inputFile, squidFile);
-      saveMeasures(inputFile, squidFile);
-      saveIssues(inputFile, squidFile);
+  /**
+   * Rethrows the failure of any worker which is done, as its files would otherwise never be saved.
+   */
+  private static void checkWorkers(List<Future<Void>> futures) throws InterruptedException, ExecutionException {
+    for (Future<Void> future : futures) {
+      if (future.isDone()) {
+        future.get();
+      }
     }
   }
 
-  private void saveMeasures(InputFile sonarFile, SourceFile squidFile) {
-    context.saveMeasure(sonarFile, CoreMetrics.FILES, squidFile.getDouble(PythonMetric.FILES));
-    context.saveMeasure(sonarFile, CoreMetrics.LINES, squidFile.getDouble(PythonMetric.LINES));
-    context.saveMeasure(sonarFile, CoreMetrics.NCLOC, squidFile.getDouble(PythonMetric.LINES_OF_CODE));
-    context.saveMeasure(sonarFile, CoreMetrics.STATEMENTS, squidFile.getDouble(PythonMetric.STATEMENTS));
-    context.saveMeasure(sonarFile, CoreMetrics.FUNCTIONS, squidFile.getDouble(PythonMetric.FUNCTIONS));
-    context.saveMeasure(sonarFile, CoreMetrics.CLASSES, squidFile.getDouble(PythonMetric.CLASSES));
-    context.saveMeasure(sonarFile, CoreMetrics.COMPLEXITY, squidFile.getDouble(PythonMetric.COMPLEXITY));
-    context.saveMeasure(sonarFile, CoreMetrics.COMMENT_LINES, squidFile.getDouble(PythonMetric.COMMENT_LINES));
+  private PythonConfiguration createConfiguration() {
+    PythonConfiguration conf = new PythonConfiguration(fileSystem.encoding());
+    conf.setCompactTree(settings.getBoolean(PythonPlugin.COMPACT_TREE_KEY));
+    conf.setProfiler(profiler);
+    conf.setParseLimits(parseLimits);
+    conf.setGeneratedCodeDetector(generatedCodeDetector);
+    return conf;
   }
 
-  private void saveFunctionsComplexityDistribution(InputFile sonarFile, SourceFile squidFile) {
-    Collection<SourceCode> squidFunctionsInFile = scanner.getIndex().search(new QueryByParent(squidFile), new QueryByType(SourceFunction.class));
+  private void save(InputFile inputFile, PythonFileResult result) {
+    saveLines(inputFile, result);
+    saveFilesComplexityDistribution(inputFile, result);
+    saveFunctionsComplexityDistribution(inputFile, result);
+    saveMeasures(inputFile, result);
+    saveIssues(inputFile, result);
+  }
+
+  private void saveMeasures(InputFile sonarFile, PythonFileResult result) {
+    context.saveMeasure(sonarFile, CoreMetrics.FILES, result.getMeasure(PythonMetric.FILES));
+    context.saveMeasure(sonarFile, CoreMetrics.LINES, result.getMeasure(PythonMetric.LINES));
+    context.saveMeasure(sonarFile, CoreMetrics.NCLOC, result.getMeasure(PythonMetric.LINES_OF_CODE));
+    context.saveMeasure(sonarFile, CoreMetrics.STATEMENTS, result.getMeasure(PythonMetric.STATEMENTS));
+    context.saveMeasure(sonarFile, CoreMetrics.FUNCTIONS, result.getMeasure(PythonMetric.FUNCTIONS));
+    context.saveMeasure(sonarFile, CoreMetrics.CLASSES, result.getMeasure(PythonMetric.CLASSES));
+    context.saveMeasure(sonarFile, CoreMetrics.COMPLEXITY, result.getMeasure(PythonMetric.COMPLEXITY));
+    context.saveMeasure(sonarFile, CoreMetrics.COMMENT_LINES, result.getMeasure(PythonMetric.COMMENT_LINES));
+  }
+
+  private void saveFunctionsComplexityDistribution(InputFile sonarFile, PythonFileResult result) {
     RangeDistributionBuilder complexityDistribution = new RangeDistributionBuilder(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION, FUNCTIONS_DISTRIB_BOTTOM_LIMITS);
-    for (SourceCode squidFunction : squidFunctionsInFile) {
-      complexityDistribution.add(squidFunction.getDouble(PythonMetric.COMPLEXITY));
+    for (Double functionComplexity : result.getFunctionComplexities()) {
+      complexityDistribution.add(functionComplexity);
     }
     context.saveMeasure(sonarFile, complexityDistribution.build().setPersistenceMode(PersistenceMode.MEMORY));
   }
 
-  private void saveFilesComplexityDistribution(InputFile sonarFile, SourceFile squidFile) {
+  private void saveFilesComplexityDistribution(InputFile sonarFile, PythonFileResult result) {
     RangeDistributionBuilder complexityDistribution = new RangeDistributionBuilder(CoreMetrics.FILE_COMPLEXITY_DISTRIBUTION, FILES_DISTRIB_BOTTOM_LIMITS);
-    complexityDistribution.add(squidFile.getDouble(PythonMetric.COMPLEXITY));
+    complexityDistribution.add(result.getMeasure(PythonMetric.COMPLEXITY));
     context.saveMeasure(sonarFile, complexityDistribution.build().setPersistenceMode(PersistenceMode.MEMORY));
   }
 
-  private void saveIssues(InputFile sonarFile, SourceFile squidFile) {
-    Collection<CheckMessage> messages = squidFile.getCheckMessages();
-    for (CheckMessage message : messages) {
-      RuleKey ruleKey = checks.ruleKey((SquidAstVisitor<Grammar>) message.getCheck());
+  private void saveIssues(InputFile sonarFile, PythonFileResult result) {
+    for (PythonFileResult.Message message : result.getMessages()) {
       Issuable issuable = resourcePerspectives.as(Issuable.class, sonarFile);
 
       if (issuable != null) {
         Issue issue = issuable.newIssueBuilder()
-            .ruleKey(ruleKey)
+            .ruleKey(message.getRuleKey())
             .line(message.getLine())
-            .message(message.getText(Locale.ENGLISH))
+            .message(message.getText())
             .build();
         issuable.addIssue(issue);
       }
     }
   }
 
+  private void saveLines(InputFile sonarFile, PythonFileResult result) {
+    FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(sonarFile);
+    int fileLength = (int) result.getMeasure(PythonMetric.LINES);
+    for (int line = 1; line <= fileLength; line++) {
+      fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, result.getLinesOfCode().get(line) ? 1 : 0);
+      fileLinesContext.setIntValue(CoreMetrics.COMMENT_LINES_DATA_KEY, line, result.getLinesOfComments().get(line) ? 1 : 0);
+    }
+    fileLinesContext.save();
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName();
   }
 
+  /**
+   * Hands out the files in the order of the queue, but only while fewer than a given number of them are being scanned
+   * or waiting to be saved: otherwise, when a big file holds back the saving, the results of all the files behind it
+   * would pile up in memory. As the files are saved in the same order, the file holding back the others is always
+   * among the files handed out.
+   */
+  private static class InFlightFiles extends ForwardingQueue<File> {
+
+    private final Queue<File> files;
+    private final Semaphore permits;
+
+    InFlightFiles(Queue<File> files, Semaphore permits) {
+      this.files = files;
+      this.permits = permits;
+    }
+
+    @Override
+    protected Queue<File> delegate() {
+      return files;
+    }
+
+    @Override
+    public File poll() {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        // the analysis is over
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      File file = files.poll();
+      if (file == null) {
+        permits.release();
+      }
+      return file;
+    }
+
+  }
+
 }
@@ -24,7 +24,6 @@ import org.codehaus.staxmate.in.SMHierarchicCursor;
 import org.codehaus.staxmate.in.SMInputCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonar.api.measures.CoverageMeasuresBuilder;
 import org.sonar.api.utils.StaxParser;
 import org.sonar.plugins.python.EmptyReportException;
 
@@ -37,7 +36,7 @@ public class CoberturaParser {
 
   private static final Logger LOG = LoggerFactory.getLogger(CoberturaParser.class);
 
-  public void parseReport(File xmlFile, final Map<String, CoverageMeasuresBuilder> coverageData) throws XMLStreamException {
+  public void parseReport(File xmlFile, final Map<String, FileCoverage> coverageData) throws XMLStreamException {
     LOG.info("Parsing report '{}'", xmlFile);
 
     StaxParser parser = new StaxParser(new StaxParser.XmlStreamHandler() {
@@ -55,35 +54,35 @@ public class CoberturaParser {
     parser.parse(xmlFile);
   }
 
-  private void collectPackageMeasures(SMInputCursor pack, Map<String, CoverageMeasuresBuilder> coverageData) throws XMLStreamException {
+  private void collectPackageMeasures(SMInputCursor pack, Map<String, FileCoverage> coverageData) throws XMLStreamException {
     while (pack.getNext() != null) {
       collectFileMeasures(pack.descendantElementCursor("class"), coverageData);
     }
   }
 
-  private void collectFileMeasures(SMInputCursor clazz, Map<String, CoverageMeasuresBuilder> coverageData) throws XMLStreamException {
+  private void collectFileMeasures(SMInputCursor clazz, Map<String, FileCoverage> coverageData) throws XMLStreamException {
     while (clazz.getNext() != null) {
       String fileName = clazz.getAttrValue("filename");
-      CoverageMeasuresBuilder builder = coverageData.get(fileName);
-      if (builder == null) {
-        builder = CoverageMeasuresBuilder.create();
-        coverageData.put(fileName, builder);
+      FileCoverage fileCoverage = coverageData.get(fileName);
+      if (fileCoverage == null) {
+        fileCoverage = new FileCoverage();
+        coverageData.put(fileName, fileCoverage);
       }
-      collectFileData(clazz, builder);
+      collectFileData(clazz, fileCoverage);
     }
   }
 
-  private void collectFileData(SMInputCursor clazz, CoverageMeasuresBuilder builder) throws XMLStreamException {
+  private void collectFileData(SMInputCursor clazz, FileCoverage fileCoverage) throws XMLStreamException {
     SMInputCursor line = clazz.childElementCursor("lines").advance().childElementCursor("line");
     while (line.getNext() != null) {
       int lineId = Integer.parseInt(line.getAttrValue("number"));
-      builder.setHits(lineId, Integer.parseInt(line.getAttrValue("hits")));
+      fileCoverage.setHits(lineId, Integer.parseInt(line.getAttrValue("hits")));
 
       String isBranch = line.getAttrValue("branch");
       String text = line.getAttrValue("condition-coverage");
       if (StringUtils.equals(isBranch, "true") && StringUtils.isNotBlank(text)) {
         String[] conditions = StringUtils.split(StringUtils.substringBetween(text, "(", ")"), "/");
-        builder.setConditions(lineId,  Integer.parseInt(conditions[1]), Integer.parseInt(conditions[0]));
+        fileCoverage.setConditions(lineId, Integer.parseInt(conditions[1]), Integer.parseInt(conditions[0]));
       }
     }
   }
@@ -0,0 +1,135 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import com.google.common.base.Charsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.plugins.python.EmptyReportException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * Reads the reports written by {@code coverage json}:
+ * <pre>
+ * {"files": {"pkg/module.py": {"executed_lines": [1, 2], "missing_lines": [4],
+ *                              "executed_branches": [[2, 3]], "missing_branches": [[2, 4]], ...}, ...}, ...}
+ * </pre>
+ * Each branch is an arc between two lines: the arcs leaving a line are the conditions of this line.
+ */
+public class CoverageJsonParser {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CoverageJsonParser.class);
+
+  public static final String EXTENSION = ".json";
+
+  public static boolean accepts(File report) {
+    return report.getName().endsWith(EXTENSION);
+  }
+
+  public void parseReport(File jsonFile, Map<String, FileCoverage> coverageData) throws IOException {
+    LOG.info("Parsing report '{}'", jsonFile);
+
+    try (JsonReader reader = new JsonReader(Files.newBufferedReader(jsonFile.toPath(), Charsets.UTF_8))) {
+      if (!reader.hasContent()) {
+        throw new EmptyReportException();
+      }
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if ("files".equals(reader.nextName())) {
+          collectFiles(reader, coverageData);
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+  }
+
+  private static void collectFiles(JsonReader reader, Map<String, FileCoverage> coverageData) throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String fileName = reader.nextName();
+      FileCoverage fileCoverage = coverageData.get(fileName);
+      if (fileCoverage == null) {
+        fileCoverage = new FileCoverage();
+        coverageData.put(fileName, fileCoverage);
+      }
+      collectFileData(reader, fileCoverage);
+    }
+    reader.endObject();
+  }
+
+  private static void collectFileData(JsonReader reader, FileCoverage fileCoverage) throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "executed_lines":
+          collectLines(reader, fileCoverage, 1);
+          break;
+        case "missing_lines":
+          collectLines(reader, fileCoverage, 0);
+          break;
+        case "executed_branches":
+          collectBranches(reader, fileCoverage, true);
+          break;
+        case "missing_branches":
+          collectBranches(reader, fileCoverage, false);
+          break;
+        default:
+          reader.skipValue();
+          break;
+      }
+    }
+    reader.endObject();
+  }
+
+  private static void collectLines(JsonReader reader, FileCoverage fileCoverage, int hits) throws IOException {
+    reader.beginArray();
+    while (reader.hasNext()) {
+      fileCoverage.setHits(reader.nextInt(), hits);
+    }
+    reader.endArray();
+  }
+
+  private static void collectBranches(JsonReader reader, FileCoverage fileCoverage, boolean covered) throws IOException {
+    reader.beginArray();
+    while (reader.hasNext()) {
+      reader.beginArray();
+      int from = reader.nextInt();
+      // negative when leaving the code object
+      int to = reader.nextInt();
+      reader.endArray();
+      if (from > 0) {
+        fileCoverage.addArc(from, to, covered);
+      }
+    }
+    reader.endArray();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName();
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import org.sonar.api.measures.CoverageMeasuresBuilder;
+import org.sonar.api.measures.Measure;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coverage of one file, gathered from one or several reports, stored in arrays indexed by line number.
+ * <p>
+ * Several reports on the same file, such as the reports of tests run in shards, are merged line by line: a line
+ * is covered as soon as it is covered by one of the reports. The merge does not depend on the order of the reports.
+ * <p>
+ * The branches of a line are known either as counts, as in Cobertura reports, or as arcs to other lines, as in
+ * {@code coverage json} reports. Counts cannot tell which branches are covered, so they are merged by keeping the
+ * highest ones, whereas the covered arcs of the reports add up: a line is fully covered when each of its arcs is
+ * covered by one report or another.
+ * <p>
+ * Not thread-safe.
+ */
+public class FileCoverage {
+
+  private static final int NOT_A_LINE_TO_COVER = -1;
+  private static final int INITIAL_CAPACITY = 64;
+
+  private int[] hits = newHits(INITIAL_CAPACITY);
+  private int[] conditions = new int[INITIAL_CAPACITY];
+  private int[] coveredConditions = new int[INITIAL_CAPACITY];
+  // line -> destinations of the arcs leaving it
+  private final Map<Integer, Set<Integer>> arcs = new HashMap<>();
+  private final Map<Integer, Set<Integer>> coveredArcs = new HashMap<>();
+  private int lastLine = 0;
+
+  public void setHits(int line, int lineHits) {
+    ensureCapacity(line);
+    hits[line] = Math.max(hits[line], lineHits);
+  }
+
+  public void setConditions(int line, int lineConditions, int lineCoveredConditions) {
+    ensureCapacity(line);
+    conditions[line] = Math.max(conditions[line], lineConditions);
+    coveredConditions[line] = Math.max(coveredConditions[line], lineCoveredConditions);
+  }
+
+  public void addArc(int line, int destination, boolean covered) {
+    ensureCapacity(line);
+    addArc(arcs, line, destination);
+    if (covered) {
+      addArc(coveredArcs, line, destination);
+    }
+  }
+
+  public void merge(FileCoverage other) {
+    ensureCapacity(other.lastLine);
+    for (int line = 1; line <= other.lastLine; line++) {
+      hits[line] = Math.max(hits[line], other.hits[line]);
+      conditions[line] = Math.max(conditions[line], other.conditions[line]);
+      coveredConditions[line] = Math.max(coveredConditions[line], other.coveredConditions[line]);
+    }
+    mergeArcs(arcs, other.arcs);
+    mergeArcs(coveredArcs, other.coveredArcs);
+  }
+
+  public Collection<Measure> createMeasures() {
+    CoverageMeasuresBuilder builder = CoverageMeasuresBuilder.create();
+    for (int line = 1; line <= lastLine; line++) {
+      if (hits[line] != NOT_A_LINE_TO_COVER) {
+        builder.setHits(line, hits[line]);
+      }
+      builder.setConditions(line,
+        Math.max(conditions[line], arcCount(arcs, line)),
+        Math.max(coveredConditions[line], arcCount(coveredArcs, line)));
+    }
+    return builder.createMeasures();
+  }
+
+  private void ensureCapacity(int line) {
+    if (line >= hits.length) {
+      int capacity = Math.max(line + 1, hits.length * 2);
+      int previousCapacity = hits.length;
+      hits = Arrays.copyOf(hits, capacity);
+      Arrays.fill(hits, previousCapacity, capacity, NOT_A_LINE_TO_COVER);
+      conditions = Arrays.copyOf(conditions, capacity);
+      coveredConditions = Arrays.copyOf(coveredConditions, capacity);
+    }
+    lastLine = Math.max(lastLine, line);
+  }
+
+  private static void addArc(Map<Integer, Set<Integer>> arcsByLine, int line, int destination) {
+    Set<Integer> destinations = arcsByLine.get(line);
+    if (destinations == null) {
+      destinations = new HashSet<>();
+      arcsByLine.put(line, destinations);
+    }
+    destinations.add(destination);
+  }
+
+  private static void mergeArcs(Map<Integer, Set<Integer>> arcsByLine, Map<Integer, Set<Integer>> otherArcsByLine) {
+    for (Map.Entry<Integer, Set<Integer>> entry : otherArcsByLine.entrySet()) {
+      for (Integer destination : entry.getValue()) {
+        addArc(arcsByLine, entry.getKey(), destination);
+      }
+    }
+  }
+
+  private static int arcCount(Map<Integer, Set<Integer>> arcsByLine, int line) {
+    Set<Integer> destinations = arcsByLine.get(line);
+    return destinations == null ? 0 : destinations.size();
+  }
+
+  private static int[] newHits(int capacity) {
+    int[] newHits = new int[capacity];
+    Arrays.fill(newHits, NOT_A_LINE_TO_COVER);
+    return newHits;
+  }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull parser of JSON, which reads values one after another without building them in memory.
+ * Values which are not of interest are skipped without being decoded.
+ * <p>
+ * Separators are not validated: this reader is meant for reports written by tools, not for user input.
+ */
+class JsonReader implements Closeable {
+
+  private static final int EOF = -1;
+
+  private final Reader reader;
+  private int next;
+  private boolean peeked = false;
+
+  JsonReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * @return false if the input only contains whitespace
+   */
+  boolean hasContent() throws IOException {
+    return peekSignificant() != EOF;
+  }
+
+  void beginObject() throws IOException {
+    expect('{');
+  }
+
+  void endObject() throws IOException {
+    expect('}');
+  }
+
+  void beginArray() throws IOException {
+    expect('[');
+  }
+
+  void endArray() throws IOException {
+    expect(']');
+  }
+
+  /**
+   * @return true if the current object or array has another member
+   */
+  boolean hasNext() throws IOException {
+    int c = peekSignificant();
+    return c != '}' && c != ']' && c != EOF;
+  }
+
+  String nextName() throws IOException {
+    String name = nextString();
+    expect(':');
+    return name;
+  }
+
+  String nextString() throws IOException {
+    expect('"');
+    StringBuilder sb = new StringBuilder();
+    int c = read();
+    while (c != '"') {
+      if (c == EOF) {
+        throw new IOException("Unterminated string");
+      }
+      sb.append(c == '\\' ? readEscaped() : (char) c);
+      c = read();
+    }
+    return sb.toString();
+  }
+
+  int nextInt() throws IOException {
+    peekSignificant();
+    boolean negative = false;
+    if (peek() == '-') {
+      negative = true;
+      read();
+    }
+    if (!isDigit(peek())) {
+      throw new IOException("Expected a number but was '" + (char) peek() + "'");
+    }
+    int value = 0;
+    while (isDigit(peek())) {
+      value = value * 10 + read() - '0';
+    }
+    return negative ? -value : value;
+  }
+
+  void skipValue() throws IOException {
+    int c = peekSignificant();
+    if (c == '"') {
+      nextString();
+    } else if (c == '{' || c == '[') {
+      read();
+      while (hasNext()) {
+        skipValue();
+        if (peekSignificant() == ':') {
+          read();
+        }
+      }
+      read();
+    } else if (c == EOF) {
+      throw new IOException("Unexpected end of input");
+    } else {
+      // number, true, false or null
+      while (isLiteralPart(peek())) {
+        read();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private char readEscaped() throws IOException {
+    int c = read();
+    switch (c) {
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u':
+        char[] hex = new char[4];
+        for (int i = 0; i < hex.length; i++) {
+          hex[i] = (char) read();
+        }
+        try {
+          return (char) Integer.parseInt(new String(hex), 16);
+        } catch (NumberFormatException e) {
+          throw new IOException("Invalid escape sequence: \\u" + new String(hex), e);
+        }
+      case EOF:
+        throw new IOException("Unterminated string");
+      default:
+        // \" \\ and \/
+        return (char) c;
+    }
+  }
+
+  private void expect(char expected) throws IOException {
+    int c = peekSignificant();
+    if (c != expected) {
+      throw new IOException("Expected '" + expected + "' but was " + (c == EOF ? "the end of input" : ("'" + (char) c + "'")));
+    }
+    read();
+  }
+
+  /**
+   * Skips whitespace, as well as the commas between values.
+   */
+  private int peekSignificant() throws IOException {
+    int c = peek();
+    while (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',') {
+      read();
+      c = peek();
+    }
+    return c;
+  }
+
+  private int peek() throws IOException {
+    if (!peeked) {
+      next = reader.read();
+      peeked = true;
+    }
+    return next;
+  }
+
+  private int read() throws IOException {
+    int c = peek();
+    peeked = false;
+    return c;
+  }
+
+  private static boolean isDigit(int c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isLiteralPart(int c) {
+    return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-' || c == '+' || c == '.';
+  }
+
+}
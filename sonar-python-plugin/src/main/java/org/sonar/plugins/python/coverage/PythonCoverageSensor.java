@@ -30,29 +30,41 @@ import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.config.Settings;
 import org.sonar.api.measures.CoreMetrics;
-import org.sonar.api.measures.CoverageMeasuresBuilder;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.PropertiesBuilder;
 import org.sonar.api.resources.Project;
+import org.sonar.plugins.python.DirectoryScannerCache;
 import org.sonar.plugins.python.EmptyReportException;
+import org.sonar.plugins.python.InputFileIndex;
 import org.sonar.plugins.python.Python;
 import org.sonar.plugins.python.PythonReportSensor;
 
 import javax.annotation.Nullable;
 import javax.xml.stream.XMLStreamException;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Properties({
     @Property(
         key = PythonCoverageSensor.REPORT_PATH_KEY,
         defaultValue = PythonCoverageSensor.DEFAULT_REPORT_PATH,
         name = "Path to coverage report(s)",
-        description = "Path to coverage reports, relative to project's root. Ant patterns are accepted. The reports have to conform to the Cobertura XML format.",
+        description = "Path to coverage reports, relative to project's root. Ant patterns are accepted. The reports have to conform to the Cobertura XML format, " +
+            "or to the JSON format of coverage.py for files with the .json extension.",
         global = false,
         project = true),
     @Property(
@@ -60,7 +72,7 @@ import java.util.HashSet;
         defaultValue = PythonCoverageSensor.IT_DEFAULT_REPORT_PATH,
         name = "Path to coverage report(s) for integration tests",
         description = "Path to coverage reports for integration tests, relative to project's root. Ant patterns are accepted. " +
-            "The reports have to conform to the Cobertura XML format.",
+            "The reports have to conform to the Cobertura XML format, or to the JSON format of coverage.py for files with the .json extension.",
         global = false,
         project = true),
     @Property(
@@ -68,7 +80,16 @@ import java.util.HashSet;
         defaultValue = PythonCoverageSensor.OVERALL_DEFAULT_REPORT_PATH,
         name = "Path to overall (combined UT+IT) coverage report(s)",
         description = "Path to a report containing overall test coverage data (i.e. test coverage gained by all tests of all kinds), relative to projects root. " +
-            "Ant patterns are accepted. The reports have to conform to the Cobertura XML format.",
+            "Ant patterns are accepted. The reports have to conform to the Cobertura XML format, or to the JSON format of coverage.py for files with the .json extension.",
+        global = false,
+        project = true),
+    @Property(
+        key = PythonCoverageSensor.COMPUTE_OVERALL_KEY,
+        type = PropertyType.BOOLEAN,
+        defaultValue = "false",
+        name = "Compute overall coverage from unit and integration test coverage",
+        description = "If 'True', the overall coverage is computed by merging the unit test and integration test coverage reports, " +
+            "instead of being read from the overall coverage reports.",
         global = false,
         project = true),
     @Property(
@@ -94,12 +115,16 @@ public class PythonCoverageSensor extends PythonReportSensor {
   public static final String DEFAULT_REPORT_PATH = "coverage-reports/coverage-*.xml";
   public static final String IT_DEFAULT_REPORT_PATH = "coverage-reports/it-coverage-*.xml";
   public static final String OVERALL_DEFAULT_REPORT_PATH = "coverage-reports/overall-coverage-*.xml";
+  public static final String COMPUTE_OVERALL_KEY = "sonar.python.coverage.computeOverall";
   public static final String FORCE_ZERO_COVERAGE_KEY = "sonar.python.coverage.forceZeroCoverage";
 
   private CoberturaParser parser = new CoberturaParser();
+  private CoverageJsonParser jsonParser = new CoverageJsonParser();
+  private InputFileIndex inputFileIndex;
 
-  public PythonCoverageSensor(Settings conf, FileSystem fileSystem) {
-    super(conf, fileSystem);
+  public PythonCoverageSensor(Settings conf, FileSystem fileSystem, InputFileIndex inputFileIndex, DirectoryScannerCache directoryScannerCache) {
+    super(conf, fileSystem, directoryScannerCache);
+    this.inputFileIndex = inputFileIndex;
   }
 
   @Override
@@ -108,19 +133,25 @@ public class PythonCoverageSensor extends PythonReportSensor {
 
     List<File> reports = getReports(conf, baseDir, REPORT_PATH_KEY, DEFAULT_REPORT_PATH);
     LOG.debug("Parsing coverage reports");
-    Map<String, CoverageMeasuresBuilder> coverageMeasures = parseReports(reports);
+    Map<String, FileCoverage> coverageMeasures = parseReports(reports);
     HashSet filesCoveredByUT = new HashSet();
     saveMeasures(context, coverageMeasures, filesCoveredByUT, CoverageType.UT_COVERAGE);
 
     LOG.debug("Parsing integration test coverage reports");
     List<File> itReports = getReports(conf, baseDir, IT_REPORT_PATH_KEY, IT_DEFAULT_REPORT_PATH);
-    Map<String, CoverageMeasuresBuilder> itCoverageMeasures = parseReports(itReports);
+    Map<String, FileCoverage> itCoverageMeasures = parseReports(itReports);
     HashSet filesCoveredByIT = new HashSet();
     saveMeasures(context, itCoverageMeasures, filesCoveredByIT, CoverageType.IT_COVERAGE);
 
-    LOG.debug("Parsing overall test coverage reports");
-    List<File> overallReports = getReports(conf, baseDir, OVERALL_REPORT_PATH_KEY, OVERALL_DEFAULT_REPORT_PATH);
-    Map<String, CoverageMeasuresBuilder> overallCoverageMeasures = parseReports(overallReports);
+    Map<String, FileCoverage> overallCoverageMeasures;
+    if (conf.getBoolean(COMPUTE_OVERALL_KEY)) {
+      LOG.debug("Merging unit and integration test coverage");
+      overallCoverageMeasures = merge(coverageMeasures, itCoverageMeasures);
+    } else {
+      LOG.debug("Parsing overall test coverage reports");
+      List<File> overallReports = getReports(conf, baseDir, OVERALL_REPORT_PATH_KEY, OVERALL_DEFAULT_REPORT_PATH);
+      overallCoverageMeasures = parseReports(overallReports);
+    }
     HashSet filesCoveredOverall = new HashSet();
     saveMeasures(context, overallCoverageMeasures, filesCoveredOverall, CoverageType.OVERALL_COVERAGE);
 
@@ -195,27 +226,95 @@ public class PythonCoverageSensor extends PythonReportSensor {
   }
 
 
-  private Map<String, CoverageMeasuresBuilder> parseReports(List<File> reports) {
-    Map<String, CoverageMeasuresBuilder> coverageMeasures = new HashMap<String, CoverageMeasuresBuilder>();
-    for (File report : reports) {
-      try {
-        parser.parseReport(report, coverageMeasures);
-      } catch (EmptyReportException e) {
-        LOG.warn("The report '{}' seems to be empty, ignoring. '{}'", report, e);
-      } catch (XMLStreamException e) {
-        throw new IllegalStateException("Error parsing the report '" + report + "'", e);
+  /**
+   * Reports are parsed concurrently. Each report is parsed into its own map, which is then merged into the shared one:
+   * only the merge of a file covered by several reports is synchronized, on the coverage of this file.
+   */
+  private Map<String, FileCoverage> parseReports(List<File> reports) {
+    final ConcurrentMap<String, FileCoverage> coverageMeasures = new ConcurrentHashMap<>();
+    int threads = Math.min(reports.size(), Runtime.getRuntime().availableProcessors());
+    if (threads <= 1) {
+      for (File report : reports) {
+        parseReport(report, coverageMeasures);
       }
+      return coverageMeasures;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> results = new ArrayList<>();
+      for (final File report : reports) {
+        results.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            parseReport(report, coverageMeasures);
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> result : results) {
+        result.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while parsing the coverage reports", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
     }
     return coverageMeasures;
   }
 
+  private void parseReport(File report, ConcurrentMap<String, FileCoverage> coverageMeasures) {
+    Map<String, FileCoverage> reportMeasures = new HashMap<>();
+    try {
+      if (CoverageJsonParser.accepts(report)) {
+        jsonParser.parseReport(report, reportMeasures);
+      } else {
+        parser.parseReport(report, reportMeasures);
+      }
+    } catch (EmptyReportException e) {
+      LOG.warn("The report '{}' seems to be empty, ignoring. '{}'", report, e);
+      return;
+    } catch (XMLStreamException | IOException e) {
+      throw new IllegalStateException("Error parsing the report '" + report + "'", e);
+    }
+    for (Map.Entry<String, FileCoverage> entry : reportMeasures.entrySet()) {
+      FileCoverage fileCoverage = coverageMeasures.putIfAbsent(entry.getKey(), entry.getValue());
+      if (fileCoverage != null) {
+        synchronized (fileCoverage) {
+          fileCoverage.merge(entry.getValue());
+        }
+      }
+    }
+  }
+
+  private static Map<String, FileCoverage> merge(Map<String, FileCoverage> utCoverage, Map<String, FileCoverage> itCoverage) {
+    Map<String, FileCoverage> overallCoverage = new HashMap<>();
+    for (Map<String, FileCoverage> coverage : Arrays.asList(utCoverage, itCoverage)) {
+      for (Map.Entry<String, FileCoverage> entry : coverage.entrySet()) {
+        FileCoverage fileCoverage = overallCoverage.get(entry.getKey());
+        if (fileCoverage == null) {
+          fileCoverage = new FileCoverage();
+          overallCoverage.put(entry.getKey(), fileCoverage);
+        }
+        fileCoverage.merge(entry.getValue());
+      }
+    }
+    return overallCoverage;
+  }
+
   private void saveMeasures(SensorContext context,
-                            Map<String, CoverageMeasuresBuilder> coverageMeasures,
+                            Map<String, FileCoverage> coverageMeasures,
                             HashSet coveredFiles,
                             CoverageType coverageType) {
-    for (Map.Entry<String, CoverageMeasuresBuilder> entry : coverageMeasures.entrySet()) {
+    for (Map.Entry<String, FileCoverage> entry : coverageMeasures.entrySet()) {
       String filePath = entry.getKey();
-      InputFile pythonFile = fileSystem.inputFile(fileSystem.predicates().hasPath(filePath));
+      InputFile pythonFile = inputFileIndex.inputFile(filePath);
       if (pythonFile != null) {
         coveredFiles.add(pythonFile.relativePath());
 
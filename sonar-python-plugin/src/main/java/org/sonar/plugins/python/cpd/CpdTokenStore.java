@@ -0,0 +1,202 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.cpd;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Closeables;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokens;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.fs.FileSystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tokens of the files scanned by the squid sensor, kept until they are handed over to CPD so that files are not lexed twice.
+ * <p>
+ * Each file is stored as an array of token images, shared between files, and an array of lines. Once too many tokens
+ * are held in memory, the tokens of the next files are appended to a spill file of the working directory, which is
+ * deleted once all the files spilled to it have been read, or at the end of the analysis.
+ * The tokens of a file are released as soon as they have been read.
+ */
+public class CpdTokenStore implements BatchExtension {
+
+  private static final int MAX_TOKENS_IN_MEMORY = 2000000;
+  private static final String SPILL_FILE_NAME = "python-cpd-tokens.bin";
+
+  private final FileSystem fileSystem;
+  private final int maxTokensInMemory;
+  private final Map<String, String> images = new HashMap<>();
+  private final Map<String, FileTokens> tokensInMemory = new HashMap<>();
+  private final Map<String, Long> spilledTokens = new HashMap<>();
+  private int tokenCountInMemory = 0;
+  private File spillFile;
+  private DataOutputStream spillOutput;
+  private long spillFileLength = 0;
+
+  public CpdTokenStore(FileSystem fileSystem) {
+    this(fileSystem, MAX_TOKENS_IN_MEMORY);
+  }
+
+  CpdTokenStore(FileSystem fileSystem, int maxTokensInMemory) {
+    this.fileSystem = fileSystem;
+    this.maxTokensInMemory = maxTokensInMemory;
+  }
+
+  /**
+   * @param images images of the tokens, in order
+   * @param lines lines of the tokens
+   */
+  public synchronized void put(File file, List<String> images, int[] lines) {
+    String key = file.getAbsolutePath();
+    if (tokenCountInMemory + lines.length <= maxTokensInMemory) {
+      String[] internedImages = new String[images.size()];
+      for (int i = 0; i < internedImages.length; i++) {
+        internedImages[i] = intern(images.get(i));
+      }
+      tokensInMemory.put(key, new FileTokens(internedImages, lines));
+      tokenCountInMemory += lines.length;
+    } else {
+      spill(key, images, lines);
+    }
+  }
+
+  /**
+   * Adds the tokens of a file to CPD, followed by {@link TokenEntry#getEOF()}, and forgets them.
+   *
+   * @return false if the tokens of this file are not known
+   */
+  public synchronized boolean transferTo(String fileName, Tokens cpdTokens) {
+    String key = new File(fileName).getAbsolutePath();
+    FileTokens fileTokens = tokensInMemory.remove(key);
+    if (fileTokens == null) {
+      Long offset = spilledTokens.remove(key);
+      if (offset == null) {
+        return false;
+      }
+      fileTokens = readSpilled(offset);
+      if (spilledTokens.isEmpty()) {
+        deleteSpillFile();
+      }
+    } else {
+      tokenCountInMemory -= fileTokens.lines.length;
+    }
+    for (int i = 0; i < fileTokens.lines.length; i++) {
+      cpdTokens.add(new TokenEntry(fileTokens.images[i], fileName, fileTokens.lines[i]));
+    }
+    cpdTokens.add(TokenEntry.getEOF());
+    return true;
+  }
+
+  /**
+   * Called at the end of the analysis, for the files whose tokens were never read.
+   */
+  public synchronized void stop() {
+    deleteSpillFile();
+  }
+
+  private String intern(String image) {
+    String interned = images.get(image);
+    if (interned == null) {
+      images.put(image, image);
+      interned = image;
+    }
+    return interned;
+  }
+
+  /**
+   * The spill file stays open until it is deleted, as each file spilled to it only adds a few writes.
+   */
+  private void spill(String key, List<String> images, int[] lines) {
+    try {
+      if (spillOutput == null) {
+        spillFile = new File(fileSystem.workDir(), SPILL_FILE_NAME);
+        spillOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+        spillFileLength = 0;
+      }
+      spilledTokens.put(key, spillFileLength);
+      spillOutput.writeInt(lines.length);
+      spillFileLength += 4;
+      for (int i = 0; i < lines.length; i++) {
+        byte[] image = images.get(i).getBytes(Charsets.UTF_8);
+        spillOutput.writeInt(image.length);
+        spillOutput.write(image);
+        spillOutput.writeInt(lines[i]);
+        spillFileLength += 8 + image.length;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot write the CPD tokens to " + spillFile, e);
+    }
+  }
+
+  private FileTokens readSpilled(long offset) {
+    DataInputStream in = null;
+    try {
+      spillOutput.flush();
+      FileInputStream fileInputStream = new FileInputStream(spillFile);
+      in = new DataInputStream(new BufferedInputStream(fileInputStream));
+      fileInputStream.getChannel().position(offset);
+      int count = in.readInt();
+      String[] fileImages = new String[count];
+      int[] lines = new int[count];
+      for (int i = 0; i < count; i++) {
+        byte[] image = new byte[in.readInt()];
+        in.readFully(image);
+        fileImages[i] = intern(new String(image, Charsets.UTF_8));
+        lines[i] = in.readInt();
+      }
+      return new FileTokens(fileImages, lines);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot read the CPD tokens from " + spillFile, e);
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  private void deleteSpillFile() {
+    if (spillFile != null) {
+      Closeables.closeQuietly(spillOutput);
+      spillOutput = null;
+      spillFile.delete();
+      spillFile = null;
+    }
+  }
+
+  private static class FileTokens {
+    private final String[] images;
+    private final int[] lines;
+
+    FileTokens(String[] images, int[] lines) {
+      this.images = images;
+      this.lines = lines;
+    }
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.cpd;
+
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import org.sonar.python.api.PythonTokenType;
+import org.sonar.squidbridge.SquidAstVisitor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the tokens seen by the squid scan, in the form expected by CPD, see {@link PythonTokenizer}.
+ * Nothing is recorded for a file which cannot be parsed: CPD then lexes it again.
+ */
+public class CpdTokenVisitor extends SquidAstVisitor<Grammar> implements AstAndTokenVisitor {
+
+  private final CpdTokenStore store;
+  private final List<String> images = new ArrayList<>();
+  private int[] lines = new int[1024];
+
+  public CpdTokenVisitor(CpdTokenStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public void visitFile(@Nullable AstNode astNode) {
+    images.clear();
+  }
+
+  @Override
+  public void visitToken(Token token) {
+    if (!isIgnored(token.getType())) {
+      int index = images.size();
+      if (index == lines.length) {
+        lines = Arrays.copyOf(lines, lines.length * 2);
+      }
+      images.add(token.getValue());
+      lines[index] = token.getLine();
+    }
+  }
+
+  @Override
+  public void leaveFile(@Nullable AstNode astNode) {
+    if (astNode != null) {
+      store.put(getContext().getFile(), images, Arrays.copyOf(lines, images.size()));
+    }
+    images.clear();
+  }
+
+  static boolean isIgnored(TokenType type) {
+    return type.equals(PythonTokenType.NEWLINE) || type.equals(PythonTokenType.DEDENT) || type.equals(PythonTokenType.INDENT);
+  }
+
+}
@@ -31,15 +31,17 @@ public class PythonCpdMapping extends AbstractCpdMapping {
 
   private final Python language;
   private final Charset charset;
+  private final CpdTokenStore tokenStore;
 
-  public PythonCpdMapping(Python language, FileSystem fs) {
+  public PythonCpdMapping(Python language, FileSystem fs, CpdTokenStore tokenStore) {
     this.language = language;
     this.charset = fs.encoding();
+    this.tokenStore = tokenStore;
   }
 
   @Override
   public Tokenizer getTokenizer() {
-    return new PythonTokenizer(charset);
+    return new PythonTokenizer(charset, tokenStore);
   }
 
   @Override
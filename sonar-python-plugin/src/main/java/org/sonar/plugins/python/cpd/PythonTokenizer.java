@@ -26,9 +26,9 @@ import net.sourceforge.pmd.cpd.TokenEntry;
 import net.sourceforge.pmd.cpd.Tokenizer;
 import net.sourceforge.pmd.cpd.Tokens;
 import org.sonar.python.PythonConfiguration;
-import org.sonar.python.api.PythonTokenType;
 import org.sonar.python.lexer.PythonLexer;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.util.List;
@@ -36,18 +36,30 @@ import java.util.List;
 public class PythonTokenizer implements Tokenizer {
 
   private final Charset charset;
+  private final CpdTokenStore tokenStore;
 
   public PythonTokenizer(Charset charset) {
+    this(charset, null);
+  }
+
+  /**
+   * @param tokenStore tokens recorded by the squid scan, used instead of lexing the files again
+   */
+  public PythonTokenizer(Charset charset, @Nullable CpdTokenStore tokenStore) {
     this.charset = charset;
+    this.tokenStore = tokenStore;
   }
 
   @Override
   public final void tokenize(SourceCode source, Tokens cpdTokens) {
-    Lexer lexer = PythonLexer.create(new PythonConfiguration(charset));
     String fileName = source.getFileName();
+    if (tokenStore != null && tokenStore.transferTo(fileName, cpdTokens)) {
+      return;
+    }
+    Lexer lexer = PythonLexer.create(new PythonConfiguration(charset));
     List<Token> tokens = lexer.lex(new File(fileName));
     for (Token token : tokens) {
-      if (!token.getType().equals(PythonTokenType.NEWLINE) && !token.getType().equals(PythonTokenType.DEDENT) && !token.getType().equals(PythonTokenType.INDENT)) {
+      if (!CpdTokenVisitor.isIgnored(token.getType())) {
         TokenEntry cpdToken = new TokenEntry(getTokenImage(token), fileName, token.getLine());
         cpdTokens.add(cpdToken);
       }
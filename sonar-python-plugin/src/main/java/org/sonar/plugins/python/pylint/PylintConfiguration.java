@@ -23,6 +23,7 @@ import org.apache.commons.lang.StringUtils;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
+import org.sonar.api.PropertyType;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.config.Settings;
 
@@ -42,12 +43,33 @@ import java.io.File;
     name = "pylint executable",
     description = "Path to the pylint executable to use in pylint analysis. Set to empty to use the default one.",
     global = true,
-    project = false)
+    project = false),
+  @Property(
+    key = PylintConfiguration.PYLINT_BATCH_SIZE_KEY,
+    defaultValue = "" + PylintConfiguration.DEFAULT_BATCH_SIZE,
+    name = "pylint files per process",
+    description = "Number of files given to each pylint process.",
+    type = PropertyType.INTEGER,
+    global = true,
+    project = true),
+  @Property(
+    key = PylintConfiguration.PYLINT_PROCESSES_KEY,
+    defaultValue = "" + PylintConfiguration.DEFAULT_PROCESSES,
+    name = "pylint processes",
+    description = "Maximum number of pylint processes running at the same time.",
+    type = PropertyType.INTEGER,
+    global = true,
+    project = true)
 })
 public class PylintConfiguration implements BatchExtension {
 
   public static final String PYLINT_CONFIG_KEY = "sonar.python.pylint_config";
   public static final String PYLINT_KEY = "sonar.python.pylint";
+  public static final String PYLINT_BATCH_SIZE_KEY = "sonar.python.pylint.batch_size";
+  public static final String PYLINT_PROCESSES_KEY = "sonar.python.pylint.processes";
+
+  static final int DEFAULT_BATCH_SIZE = 50;
+  static final int DEFAULT_PROCESSES = 1;
 
   private final Settings conf;
 
@@ -72,4 +94,16 @@ public class PylintConfiguration implements BatchExtension {
     return conf.getString(PylintConfiguration.PYLINT_KEY);
   }
 
+  public int getBatchSize() {
+    return positiveOrDefault(conf.getInt(PylintConfiguration.PYLINT_BATCH_SIZE_KEY), DEFAULT_BATCH_SIZE);
+  }
+
+  public int getProcesses() {
+    return positiveOrDefault(conf.getInt(PylintConfiguration.PYLINT_PROCESSES_KEY), DEFAULT_PROCESSES);
+  }
+
+  private static int positiveOrDefault(int value, int defaultValue) {
+    return value > 0 ? value : defaultValue;
+  }
+
 }
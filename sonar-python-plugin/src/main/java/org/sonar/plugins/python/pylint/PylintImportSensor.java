@@ -34,6 +34,8 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.issue.Issuable;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.python.DirectoryScannerCache;
+import org.sonar.plugins.python.InputFileIndex;
 import org.sonar.plugins.python.Python;
 import org.sonar.plugins.python.PythonReportSensor;
 
@@ -61,12 +63,15 @@ public class PylintImportSensor extends PythonReportSensor {
 
   private ActiveRules activeRules;
   private ResourcePerspectives resourcePerspectives;
+  private InputFileIndex inputFileIndex;
 
-  public PylintImportSensor(Settings conf, ActiveRules activeRules, FileSystem fileSystem, ResourcePerspectives resourcePerspectives) {
-    super(conf, fileSystem);
+  public PylintImportSensor(Settings conf, ActiveRules activeRules, FileSystem fileSystem, ResourcePerspectives resourcePerspectives,
+    InputFileIndex inputFileIndex, DirectoryScannerCache directoryScannerCache) {
+    super(conf, fileSystem, directoryScannerCache);
 
     this.activeRules = activeRules;
     this.resourcePerspectives = resourcePerspectives;
+    this.inputFileIndex = inputFileIndex;
   }
 
   @Override
@@ -123,7 +128,7 @@ public class PylintImportSensor extends PythonReportSensor {
   private void saveIssues(List<Issue> issues) {
     for (Issue pylintIssue : issues) {
       String filepath = pylintIssue.getFilename();
-      InputFile pyfile = fileSystem.inputFile(fileSystem.predicates().hasPath(filepath));
+      InputFile pyfile = inputFileIndex.inputFile(filepath);
       if (pyfile != null) {
         ActiveRule rule = activeRules.find(RuleKey.of(PylintRuleRepository.REPOSITORY_KEY, pylintIssue.getRuleId()));
         processRule(pylintIssue, pyfile, rule);
@@ -19,6 +19,7 @@
  */
 package org.sonar.plugins.python.pylint;
 
+import com.google.common.io.Closeables;
 import com.google.common.io.Files;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -28,12 +29,18 @@ import org.sonar.api.utils.command.CommandExecutor;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.Charset;
-import java.util.LinkedList;
 import java.util.List;
 
 public class PylintIssuesAnalyzer {
 
+  interface IssueHandler {
+
+    void handle(Issue issue);
+
+  }
+
   private static final Logger LOG = LoggerFactory.getLogger(PylintSensor.class);
 
   private static final String FALLBACK_PYLINT = "pylint";
@@ -69,8 +76,14 @@ public class PylintIssuesAnalyzer {
     return FALLBACK_PYLINT;
   }
 
-  public List<Issue> analyze(String path, Charset charset, File out) throws IOException {
-    Command command = Command.create(pylint).addArguments(pylintArguments.arguments()).addArgument(path);
+  /**
+   * Runs one pylint process on all the given files: the issues tell which file they are on with {@link Issue#getFilename()}.
+   * Issues are given to the handler as soon as pylint reports them, by the thread reading the output of pylint.
+   *
+   * @param directory working directory of pylint, against which the relative paths of its messages are resolved
+   */
+  public void analyze(List<String> paths, Charset charset, File directory, File out, IssueHandler issueHandler) throws IOException {
+    Command command = Command.create(pylint).addArguments(pylintArguments.arguments()).addArguments(paths).setDirectory(directory);
 
     if (pylintConfigParam != null) {
       command.addArgument(pylintConfigParam);
@@ -78,10 +91,18 @@ public class PylintIssuesAnalyzer {
 
     LOG.debug("Calling command: '{}'", command.toString());
 
-    long timeoutMS = 300000; // =5min
-    CommandStreamConsumer stdOut = new CommandStreamConsumer();
+    // =5min per file
+    long timeoutMS = 300000L * paths.size();
     CommandStreamConsumer stdErr = new CommandStreamConsumer();
-    CommandExecutor.create().execute(command, stdOut, stdErr, timeoutMS);
+    Writer writer = Files.newWriter(out, charset);
+    try {
+      PylintOutputConsumer stdOut = new PylintOutputConsumer(writer, issueHandler);
+      CommandExecutor.create().execute(command, stdOut, stdErr, timeoutMS);
+      stdOut.checkWritten();
+      writer.close();
+    } finally {
+      Closeables.closeQuietly(writer);
+    }
 
     // the error stream can contain a line like 'no custom config found, using default'
     // any bigger output on the error stream is likely a pylint malfunction
@@ -89,25 +110,5 @@ public class PylintIssuesAnalyzer {
       LOG.warn("Output on the error channel detected: this is probably due to a problem on pylint's side.");
       LOG.warn("Content of the error stream: \n\"{}\"", StringUtils.join(stdErr.getData(), "\n"));
     }
-
-    Files.write(StringUtils.join(stdOut.getData(), "\n"), out, charset);
-
-    return parseOutput(stdOut.getData());
-  }
-
-  protected List<Issue> parseOutput(List<String> lines) {
-    List<Issue> issues = new LinkedList<Issue>();
-
-    PylintReportParser parser = new PylintReportParser();
-    if (!lines.isEmpty()) {
-      for (String line : lines) {
-        Issue issue = parser.parseLine(line);
-        if (issue != null){
-          issues.add(issue);
-        }
-      }
-    }
-
-    return issues;
   }
 }
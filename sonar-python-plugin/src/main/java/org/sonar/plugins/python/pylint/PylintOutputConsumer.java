@@ -0,0 +1,69 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.pylint;
+
+import org.sonar.api.utils.command.StreamConsumer;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Handles the output of pylint line by line, as it is produced: each line is copied to the given writer,
+ * and the issue it describes, if any, is given to the handler. Nothing is kept in memory.
+ */
+class PylintOutputConsumer implements StreamConsumer {
+
+  private final Writer out;
+  private final PylintIssuesAnalyzer.IssueHandler issueHandler;
+  private final PylintReportParser parser = new PylintReportParser();
+  private IOException writeFailure;
+
+  PylintOutputConsumer(Writer out, PylintIssuesAnalyzer.IssueHandler issueHandler) {
+    this.out = out;
+    this.issueHandler = issueHandler;
+  }
+
+  @Override
+  public void consumeLine(String line) {
+    if (writeFailure == null) {
+      try {
+        out.write(line);
+        out.write('\n');
+      } catch (IOException e) {
+        // the stream of the process still has to be consumed: the failure is reported once the process is over
+        writeFailure = e;
+      }
+    }
+    Issue issue = parser.parseLine(line);
+    if (issue != null) {
+      issueHandler.handle(issue);
+    }
+  }
+
+  /**
+   * @throws IOException if the output could not be copied
+   */
+  void checkWritten() throws IOException {
+    if (writeFailure != null) {
+      throw writeFailure;
+    }
+  }
+
+}
@@ -19,7 +19,11 @@
  */
 package org.sonar.plugins.python.pylint;
 
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.Sensor;
@@ -39,6 +43,12 @@ import org.sonar.plugins.python.Python;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class PylintSensor implements Sensor {
   public static final String REPORT_PATH_KEY = "sonar.python.pylint.reportPath";
@@ -72,55 +82,116 @@ public class PylintSensor implements Sensor {
   public void analyse(Project project, SensorContext sensorContext) {
     File workDir = new File(fileSystem.workDir(), "/pylint/");
     prepareWorkDir(workDir);
-    int i = 0;
     FilePredicates p = fileSystem.predicates();
-    Iterable<File> files = fileSystem.files(p.and(p.hasType(InputFile.Type.MAIN), p.hasLanguage(Python.KEY)));
-    for (File file : files) {
-      try {
-        File out = new File(workDir, i + ".out");
-        analyzeFile(file, out);
-        i++;
-      } catch (Exception e) {
-        String msg = new StringBuilder()
-            .append("Cannot analyse the file '")
-            .append(file.getAbsolutePath())
-            .append("', details: '")
-            .append(e)
-            .append("'")
-            .toString();
-        throw new IllegalStateException(msg, e);
+    List<File> files = Lists.newArrayList(fileSystem.files(p.and(p.hasType(InputFile.Type.MAIN), p.hasLanguage(Python.KEY))));
+    List<List<File>> batches = Lists.partition(files, conf.getBatchSize());
+    if (batches.isEmpty()) {
+      return;
+    }
+
+    // the pylint version is checked once for all the processes
+    final PylintIssuesAnalyzer analyzer = createAnalyzer();
+    final File baseDir = fileSystem.baseDir();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(conf.getProcesses(), batches.size()));
+    try {
+      List<Future<List<Issue>>> results = Lists.newArrayList();
+      for (int i = 0; i < batches.size(); i++) {
+        final List<String> paths = absolutePaths(batches.get(i));
+        final File out = new File(workDir, i + ".out");
+        results.add(executor.submit(new Callable<List<Issue>>() {
+          @Override
+          public List<Issue> call() throws IOException {
+            final List<Issue> issues = Lists.newArrayList();
+            analyzer.analyze(paths, fileSystem.encoding(), baseDir, out, new PylintIssuesAnalyzer.IssueHandler() {
+              @Override
+              public void handle(Issue issue) {
+                issues.add(issue);
+              }
+            });
+            return issues;
+          }
+        }));
+      }
+      // the issues of each batch are saved by this thread, as the SonarQube index cannot be written from several threads
+      for (int i = 0; i < batches.size(); i++) {
+        Map<String, InputFile> inputFilesByPath = inputFilesByPath(batches.get(i));
+        for (Issue issue : waitFor(results.get(i), batches.get(i))) {
+          saveIssue(inputFilesByPath, baseDir, issue);
+        }
       }
+    } finally {
+      executor.shutdownNow();
     }
   }
 
-  protected void analyzeFile(File file, File out) throws IOException {
-    InputFile pyFile = fileSystem.inputFile(fileSystem.predicates().is(file));
+  protected PylintIssuesAnalyzer createAnalyzer() {
+    return new PylintIssuesAnalyzer(conf.getPylintPath(), conf.getPylintConfigPath(fileSystem));
+  }
 
-    String pylintConfigPath = conf.getPylintConfigPath(fileSystem);
-    String pylintPath = conf.getPylintPath();
+  private static List<String> absolutePaths(List<File> files) {
+    List<String> paths = Lists.newArrayList();
+    for (File file : files) {
+      paths.add(file.getAbsolutePath());
+    }
+    return paths;
+  }
 
-    PylintIssuesAnalyzer analyzer = new PylintIssuesAnalyzer(pylintPath, pylintConfigPath);
-    List<Issue> issues = analyzer.analyze(file.getAbsolutePath(), fileSystem.encoding(), out);
+  private static List<Issue> waitFor(Future<List<Issue>> result, List<File> batch) {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while running pylint", e);
+    } catch (ExecutionException e) {
+      String msg = new StringBuilder()
+          .append("Cannot analyse the files '")
+          .append(Joiner.on("', '").join(batch))
+          .append("', details: '")
+          .append(e.getCause())
+          .append("'")
+          .toString();
+      throw new IllegalStateException(msg, e.getCause());
+    }
+  }
 
-    for (Issue pylintIssue : issues) {
-      ActiveRule rule = activeRules.find(RuleKey.of(PylintRuleRepository.REPOSITORY_KEY, pylintIssue.getRuleId()));
+  private Map<String, InputFile> inputFilesByPath(List<File> batch) {
+    Map<String, InputFile> inputFilesByPath = Maps.newHashMap();
+    for (File file : batch) {
+      inputFilesByPath.put(normalizedPath(file), fileSystem.inputFile(fileSystem.predicates().is(file)));
+    }
+    return inputFilesByPath;
+  }
 
-      if (rule != null) {
-        Issuable issuable = resourcePerspectives.as(Issuable.class, pyFile);
-        if (issuable != null) {
-          org.sonar.api.issue.Issue issue = issuable.newIssueBuilder()
-              .ruleKey(rule.ruleKey())
-              .line(pylintIssue.getLine())
-              .message(pylintIssue.getDescription())
-              .build();
-          issuable.addIssue(issue);
-        }
-      } else {
-        LOG.warn("Pylint rule '{}' is unknown in Sonar", pylintIssue.getRuleId());
+  private void saveIssue(Map<String, InputFile> inputFilesByPath, File baseDir, Issue pylintIssue) {
+    // {path} of the messages is the path given to pylint, or a path relative to its working directory, the base directory
+    File file = new File(pylintIssue.getFilename());
+    if (!file.isAbsolute()) {
+      file = new File(baseDir, pylintIssue.getFilename());
+    }
+    InputFile pyFile = inputFilesByPath.get(normalizedPath(file));
+    ActiveRule rule = activeRules.find(RuleKey.of(PylintRuleRepository.REPOSITORY_KEY, pylintIssue.getRuleId()));
+
+    if (pyFile == null) {
+      LOG.warn("Pylint issue on the file '{}', which is not part of the analysed files", pylintIssue.getFilename());
+    } else if (rule != null) {
+      Issuable issuable = resourcePerspectives.as(Issuable.class, pyFile);
+      if (issuable != null) {
+        org.sonar.api.issue.Issue issue = issuable.newIssueBuilder()
+            .ruleKey(rule.ruleKey())
+            .line(pylintIssue.getLine())
+            .message(pylintIssue.getDescription())
+            .build();
+        issuable.addIssue(issue);
       }
+    } else {
+      LOG.warn("Pylint rule '{}' is unknown in Sonar", pylintIssue.getRuleId());
     }
   }
 
+  private static String normalizedPath(File file) {
+    return FilenameUtils.normalize(file.getAbsolutePath());
+  }
+
   private static void prepareWorkDir(File dir) {
     try {
       FileUtils.forceMkdir(dir);
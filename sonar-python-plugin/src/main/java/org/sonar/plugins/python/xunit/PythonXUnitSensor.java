@@ -35,6 +35,8 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.utils.ParsingUtils;
 import org.sonar.api.utils.StaxParser;
+import org.sonar.plugins.python.DirectoryScannerCache;
+import org.sonar.plugins.python.InputFileIndex;
 import org.sonar.plugins.python.PythonReportSensor;
 
 import javax.xml.stream.XMLStreamException;
@@ -67,8 +69,11 @@ public class PythonXUnitSensor extends PythonReportSensor {
   public static final String SKIP_DETAILS = "sonar.python.xunit.skipDetails";
   private static final double PERCENT_BASE = 100d;
 
-  public PythonXUnitSensor(Settings conf, FileSystem fileSystem) {
-    super(conf, fileSystem);
+  private InputFileIndex inputFileIndex;
+
+  public PythonXUnitSensor(Settings conf, FileSystem fileSystem, InputFileIndex inputFileIndex, DirectoryScannerCache directoryScannerCache) {
+    super(conf, fileSystem, directoryScannerCache);
+    this.inputFileIndex = inputFileIndex;
   }
 
   @DependsUpon
@@ -169,15 +174,13 @@ public class PythonXUnitSensor extends PythonReportSensor {
 
   private InputFile findResourceUsingNoseTestsStrategy(String fileKey) {
     // a) check assuming the key doesnt contain the class name
-    String candidateKey = StringUtils.replace(fileKey, ".", "/") + ".py";
-
-    InputFile unitTestFile = getSonarTestFile(new File(candidateKey));
+    InputFile unitTestFile = getSonarTestFile(fileKey);
 
     if (unitTestFile == null) {
       // b) check assuming the key *does* contain the class name
-      String candidateKey2 = StringUtils.replace(StringUtils.substringBeforeLast(fileKey, "."), ".", "/") + ".py";
-      if ( !(candidateKey2.equals(candidateKey))) {
-        unitTestFile = getSonarTestFile(new File(candidateKey2));
+      String candidateKey2 = StringUtils.substringBeforeLast(fileKey, ".");
+      if ( !(candidateKey2.equals(fileKey))) {
+        unitTestFile = getSonarTestFile(candidateKey2);
       }
     }
 
@@ -210,8 +213,8 @@ public class PythonXUnitSensor extends PythonReportSensor {
     return locatedReports.values();
   }
 
-  private InputFile getSonarTestFile(File file) {
-    LOG.debug("Using the key '{}' to lookup the resource in SonarQube", file.getPath());
-    return fileSystem.inputFile(fileSystem.predicates().is(file));
+  private InputFile getSonarTestFile(String moduleName) {
+    LOG.debug("Using the key '{}' to lookup the resource in SonarQube", moduleName);
+    return inputFileIndex.module(moduleName);
   }
 }
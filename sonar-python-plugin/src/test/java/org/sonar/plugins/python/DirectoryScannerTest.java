@@ -19,22 +19,21 @@
  */
 package org.sonar.plugins.python;
 
+import org.junit.Rule;
 import org.junit.Test;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.WildcardPattern;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
-import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 public class DirectoryScannerTest {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private final File baseDir = new File("src/test/resources/org/sonar/plugins/python/scanner").getAbsoluteFile();
 
   @Test
@@ -54,20 +53,30 @@ public class DirectoryScannerTest {
   }
 
   @Test
-  public void shouldNotFailWhenChildPathIsUnexpectedlyShorterThanBaseDirPath() throws Exception {
-    File dir = mock(File.class);
-    final File matchingFile = new File("/matching/file");
-    when(dir.getAbsolutePath()).thenReturn("/a/somewhat/long/path");
-    when(dir.isDirectory()).thenReturn(true);
-    when(dir.listFiles(any(FileFilter.class))).thenAnswer(new Answer<File[]>() {
-      @Override
-      public File[] answer(InvocationOnMock invocation) throws Throwable {
-        FileFilter filter = (FileFilter) invocation.getArguments()[0];
-        filter.accept(new File("/short/path"));
-        return new File[] {matchingFile};
-      }
-    });
-    assertThat(scan("xxx", dir)).containsOnly(matchingFile);
+  public void startOfPatternDoesNotExist() throws Exception {
+    assertThat(scan("xxx/*.txt")).isEmpty();
+    assertThat(scan("dir/xxx/**/f1.txt")).isEmpty();
+  }
+
+  @Test
+  public void trailingWildCard() throws Exception {
+    assertThat(scan("dir/**")).containsOnly(new File(baseDir, "dir/f1.txt"), new File(baseDir, "dir/subdir/f1.txt"));
+    assertThat(scan("d?r/*")).containsOnly(new File(baseDir, "dir/f1.txt"));
+    assertThat(scan("dir/")).isEmpty();
+  }
+
+  @Test
+  public void walksAreShared() throws Exception {
+    File dir = temporaryFolder.newFolder("reports");
+    temporaryFolder.newFile("reports/a-1.xml");
+    DirectoryScannerCache cache = new DirectoryScannerCache();
+    assertThat(new DirectoryScanner(temporaryFolder.getRoot(), WildcardPattern.create("reports/a-*.xml"), cache).getIncludedFiles())
+      .containsOnly(new File(dir, "a-1.xml"));
+
+    temporaryFolder.newFile("reports/b-1.xml");
+    assertThat(new DirectoryScanner(temporaryFolder.getRoot(), WildcardPattern.create("reports/b-*.xml"), cache).getIncludedFiles()).isEmpty();
+    assertThat(new DirectoryScanner(temporaryFolder.getRoot(), WildcardPattern.create("reports/b-*.xml")).getIncludedFiles())
+      .containsOnly(new File(dir, "b-1.xml"));
   }
 
   private List<File> scan(String pattern) {
@@ -0,0 +1,80 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import org.junit.Test;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class InputFileIndexTest {
+
+  private final File baseDir = new File("src/test/resources/org/sonar/plugins/python").getAbsoluteFile();
+
+  @Test
+  public void lookups() {
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.setBaseDir(baseDir);
+    InputFile file1 = addFile(fileSystem, "sources/file1.py");
+    InputFile test = addFile(fileSystem, "tests/dir/test_sample.py");
+    InputFileIndex index = new InputFileIndex(fileSystem);
+
+    assertThat(index.inputFile("sources/file1.py")).isSameAs(file1);
+    assertThat(index.inputFile("sources/../sources/file1.py")).isSameAs(file1);
+    assertThat(index.inputFile(new File(baseDir, "sources/file1.py").getAbsolutePath())).isSameAs(file1);
+    assertThat(index.inputFile(new File(baseDir, "sources/file1.py"))).isSameAs(file1);
+    assertThat(index.inputFile("file1.py")).isNull();
+    assertThat(index.inputFile("../../file1.py")).isNull();
+
+    assertThat(index.module("tests.dir.test_sample")).isSameAs(test);
+    assertThat(index.module("tests.dir")).isNull();
+  }
+
+  @Test
+  public void index_is_built_once() {
+    DefaultFileSystem fileSystem = spy(new DefaultFileSystem());
+    fileSystem.setBaseDir(baseDir);
+    addFile(fileSystem, "sources/file1.py");
+    addFile(fileSystem, "sources/file2.py");
+    InputFileIndex index = new InputFileIndex(fileSystem);
+
+    assertThat(index.inputFile("sources/file1.py")).isNotNull();
+    assertThat(index.inputFile("sources/file2.py")).isNotNull();
+    assertThat(index.module("sources.file3")).isNull();
+    verify(fileSystem, times(1)).inputFiles(any(FilePredicate.class));
+  }
+
+  private InputFile addFile(DefaultFileSystem fileSystem, String relativePath) {
+    DefaultInputFile inputFile = new DefaultInputFile(relativePath).setLanguage(Python.KEY);
+    inputFile.setAbsolutePath(new File(baseDir, relativePath).getAbsolutePath());
+    fileSystem.add(inputFile);
+    return inputFile;
+  }
+
+}
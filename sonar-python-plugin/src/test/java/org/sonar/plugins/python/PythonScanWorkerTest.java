@@ -0,0 +1,91 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.sonar.sslr.api.Grammar;
+import org.junit.Test;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.python.PythonConfiguration;
+import org.sonar.python.api.PythonMetric;
+import org.sonar.python.checks.CheckList;
+import org.sonar.squidbridge.SquidAstVisitor;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PythonScanWorkerTest {
+
+  private static final File CODE_CHUNKS_2 = new File("src/test/resources/org/sonar/plugins/python/code_chunks_2.py");
+  private static final File CODE_CHUNKS_3 = new File("src/test/resources/org/sonar/plugins/python/code_chunks_3.py");
+
+  @Test
+  public void should_hand_over_results_file_by_file() {
+    final Map<File, PythonFileResult> results = Maps.newLinkedHashMap();
+    Queue<File> files = new ConcurrentLinkedQueue<>(ImmutableList.of(CODE_CHUNKS_2, CODE_CHUNKS_3));
+    PythonScanWorker worker = new PythonScanWorker(new PythonConfiguration(Charsets.UTF_8), checks(), ImmutableList.<SquidAstVisitor<Grammar>>of(), files,
+      new PythonScanWorker.ResultHandler() {
+        @Override
+        public void handle(File file, PythonFileResult result) {
+          results.put(file, result);
+        }
+      });
+
+    worker.call();
+
+    assertThat(files).isEmpty();
+    assertThat(results.keySet()).containsOnly(CODE_CHUNKS_2, CODE_CHUNKS_3);
+
+    PythonFileResult first = results.get(CODE_CHUNKS_2);
+    assertThat(first.getMeasure(PythonMetric.LINES)).isEqualTo(29.0);
+    assertThat(first.getMeasure(PythonMetric.FUNCTIONS)).isEqualTo(4.0);
+    assertThat(first.getMeasure(PythonMetric.COMPLEXITY)).isEqualTo(4.0);
+    assertThat(first.getFunctionComplexities()).hasSize(4);
+    assertThat(first.getMessages()).hasSize(1);
+
+    PythonFileResult second = results.get(CODE_CHUNKS_3);
+    assertThat(second.getMeasure(PythonMetric.FUNCTIONS)).isEqualTo(2.0);
+    assertThat(second.getFunctionComplexities()).containsOnly(1.0, 2.0);
+    assertThat(second.getMessages()).hasSize(1);
+    assertThat(second.getMessages().get(0).getRuleKey()).isEqualTo(RuleKey.of(CheckList.REPOSITORY_KEY, "PrintStatementUsage"));
+    assertThat(second.getMessages().get(0).getLine()).isEqualTo(2);
+  }
+
+  private static Checks<SquidAstVisitor<Grammar>> checks() {
+    ActiveRules activeRules = (new ActiveRulesBuilder())
+        .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PrintStatementUsage"))
+        .activate()
+        .build();
+    return new CheckFactory(activeRules)
+        .<SquidAstVisitor<Grammar>>create(CheckList.REPOSITORY_KEY)
+        .addAnnotatedChecks(CheckList.getChecks());
+  }
+
+}
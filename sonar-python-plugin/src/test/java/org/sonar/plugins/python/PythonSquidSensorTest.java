@@ -19,9 +19,18 @@
  */
 package org.sonar.plugins.python;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
@@ -30,19 +39,29 @@ import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.CheckFactory;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.component.ResourcePerspectives;
+import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.api.config.Settings;
 import org.sonar.api.issue.Issuable;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.python.cpd.CpdTokenStore;
 import org.sonar.python.checks.CheckList;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Set;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -51,21 +70,28 @@ public class PythonSquidSensorTest {
 
   private PythonSquidSensor sensor;
   private DefaultFileSystem fs = new DefaultFileSystem();
+  private Settings settings = new Settings(new PropertyDefinitions(new PythonPlugin().getExtensions()));
+  private FileLinesContextFactory fileLinesContextFactory;
+  private FileLinesContext fileLinesContext;
+  private CheckFactory checkFactory;
   ResourcePerspectives perspectives;
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Before
   public void setUp() {
-    FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
-    FileLinesContext fileLinesContext = mock(FileLinesContext.class);
+    fileLinesContextFactory = mock(FileLinesContextFactory.class);
+    fileLinesContext = mock(FileLinesContext.class);
     when(fileLinesContextFactory.createFor(Mockito.any(InputFile.class))).thenReturn(fileLinesContext);
     ActiveRules activeRules = (new ActiveRulesBuilder())
         .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PrintStatementUsage"))
         .setName("Print Statement Usage")
         .activate()
         .build();
-    CheckFactory checkFactory = new CheckFactory(activeRules);
+    checkFactory = new CheckFactory(activeRules);
     perspectives = mock(ResourcePerspectives.class);
-    sensor = new PythonSquidSensor(fileLinesContextFactory, fs, perspectives, checkFactory);
+    sensor = new PythonSquidSensor(fileLinesContextFactory, fs, perspectives, checkFactory, settings, new CpdTokenStore(fs));
   }
 
   @Test
@@ -79,18 +105,8 @@ public class PythonSquidSensorTest {
 
   @Test
   public void should_analyse() {
-    String relativePath = "src/test/resources/org/sonar/plugins/python/code_chunks_2.py";
-    DefaultInputFile inputFile = new DefaultInputFile(relativePath).setLanguage(Python.KEY);
-    inputFile.setAbsolutePath((new File(relativePath)).getAbsolutePath());
-    fs.add(inputFile);
-
-    Issuable issuable = mock(Issuable.class);
-    Issuable.IssueBuilder issueBuilder = mock(Issuable.IssueBuilder.class);
-    when(perspectives.as(Mockito.eq(Issuable.class), Mockito.any(InputFile.class))).thenReturn(issuable);
-    when(issuable.newIssueBuilder()).thenReturn(issueBuilder);
-    when(issueBuilder.ruleKey(Mockito.any(RuleKey.class))).thenReturn(issueBuilder);
-    when(issueBuilder.line(Mockito.any(Integer.class))).thenReturn(issueBuilder);
-    when(issueBuilder.message(Mockito.any(String.class))).thenReturn(issueBuilder);
+    addFile("src/test/resources/org/sonar/plugins/python/code_chunks_2.py");
+    Issuable issuable = mockIssuable();
 
     Project project = new Project("key");
     SensorContext context = mock(SensorContext.class);
@@ -108,4 +124,194 @@ public class PythonSquidSensorTest {
 
   }
 
+  @Test
+  public void should_analyse_with_several_threads() {
+    settings.setProperty(PythonPlugin.ANALYSIS_THREADS_KEY, 2);
+    addFile("src/test/resources/org/sonar/plugins/python/code_chunks_2.py");
+    addFile("src/test/resources/org/sonar/plugins/python/code_chunks_3.py");
+    Issuable issuable = mockIssuable();
+
+    SensorContext context = mock(SensorContext.class);
+    sensor.analyse(new Project("key"), context);
+
+    verify(context, times(2)).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.FILES), Mockito.eq(1.0));
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.LINES), Mockito.eq(29.0));
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.NCLOC), Mockito.eq(25.0));
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.LINES), Mockito.eq(7.0));
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(2.0));
+    verify(issuable, times(2)).addIssue(Mockito.any(Issue.class));
+  }
+
+  @Test
+  public void should_analyse_more_files_than_can_wait_to_be_saved() throws Exception {
+    settings.setProperty(PythonPlugin.ANALYSIS_THREADS_KEY, 2);
+    for (int i = 0; i < 20; i++) {
+      File file = temporaryFolder.newFile("code_chunks_" + i + ".py");
+      Files.copy(new File("src/test/resources/org/sonar/plugins/python/code_chunks_3.py"), file);
+      DefaultInputFile inputFile = new DefaultInputFile(file.getName()).setLanguage(Python.KEY);
+      inputFile.setAbsolutePath(file.getAbsolutePath());
+      fs.add(inputFile);
+    }
+    mockIssuable();
+
+    SensorContext context = mock(SensorContext.class);
+    sensor.analyse(new Project("key"), context);
+
+    verify(context, times(20)).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(2.0));
+  }
+
+  @Test
+  public void should_save_results_on_sensor_thread_in_input_order() {
+    settings.setProperty(PythonPlugin.ANALYSIS_THREADS_KEY, 3);
+    addFile("src/test/resources/org/sonar/plugins/python/code_chunks_2.py");
+    addFile("src/test/resources/org/sonar/plugins/python/code_chunks_3.py");
+    addFile("src/test/resources/org/sonar/plugins/python/generated_pb2.py");
+    mockIssuable();
+    final Set<Thread> savingThreads = Collections.synchronizedSet(Sets.<Thread>newHashSet());
+    SensorContext context = mock(SensorContext.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        savingThreads.add(Thread.currentThread());
+        return null;
+      }
+    }).when(context).saveMeasure(Mockito.any(InputFile.class), Mockito.any(Metric.class), Mockito.anyDouble());
+
+    sensor.analyse(new Project("key"), context);
+
+    assertThat(savingThreads).containsOnly(Thread.currentThread());
+    InOrder inOrder = inOrder(context);
+    for (InputFile inputFile : Lists.newArrayList(fs.inputFiles(fs.predicates().all()))) {
+      inOrder.verify(context).saveMeasure(Mockito.eq(inputFile), Mockito.eq(CoreMetrics.LINES), Mockito.anyDouble());
+    }
+  }
+
+  @Test
+  public void should_only_measure_lines_of_files_over_limits() {
+    settings.setProperty(PythonPlugin.MAX_LINES_KEY, 10);
+    addFile("src/test/resources/org/sonar/plugins/python/code_chunks_2.py");
+    mockIssuable();
+
+    SensorContext context = mock(SensorContext.class);
+    sensor.analyse(new Project("key"), context);
+
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.LINES), Mockito.eq(29.0));
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.NCLOC), Mockito.eq(25.0));
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.COMMENT_LINES), Mockito.eq(9.0));
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(0.0));
+  }
+
+  @Test
+  public void should_not_check_generated_files() {
+    settings.setProperty(PythonPlugin.GENERATED_CODE_DETECTION_KEY, true);
+    settings.setProperty(PythonPlugin.GENERATED_CODE_PATTERNS_KEY, new String[] {"^# Generated by the protocol buffer compiler\\.\\s{1,2}DO NOT EDIT!", "Django"});
+    addFile("src/test/resources/org/sonar/plugins/python/generated_pb2.py");
+    Issuable issuable = mockIssuable();
+
+    SensorContext context = mock(SensorContext.class);
+    sensor.analyse(new Project("key"), context);
+
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.LINES), Mockito.eq(6.0));
+    verify(context).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.NCLOC), Mockito.eq(3.0));
+    verify(issuable, never()).addIssue(Mockito.any(Issue.class));
+  }
+
+  @Test
+  public void should_check_generated_files_by_default() {
+    addFile("src/test/resources/org/sonar/plugins/python/generated_pb2.py");
+    Issuable issuable = mockIssuable();
+
+    sensor.analyse(new Project("key"), mock(SensorContext.class));
+
+    verify(issuable, times(2)).addIssue(Mockito.any(Issue.class));
+  }
+
+  @Test
+  public void should_profile_rules_and_files() throws Exception {
+    settings.setProperty(PythonPlugin.PROFILING_KEY, true);
+    fs.setWorkDir(temporaryFolder.newFolder("work"));
+    addFile("src/test/resources/org/sonar/plugins/python/code_chunks_2.py");
+    Issuable issuable = mockIssuable();
+
+    sensor.analyse(new Project("key"), mock(SensorContext.class));
+
+    verify(issuable).addIssue(Mockito.any(Issue.class));
+    File profile = new File(fs.workDir(), "python-profile.json");
+    assertThat(profile).exists();
+    String json = Files.toString(profile, Charsets.UTF_8);
+    assertThat(json).contains("\"name\": \"python:PrintStatementUsage\"");
+    assertThat(json).contains("code_chunks_2.py");
+  }
+
+  @Test
+  public void should_restore_unchanged_files_from_cache() throws Exception {
+    settings.setProperty(PythonPlugin.ANALYSIS_CACHE_KEY, true);
+    fs.setWorkDir(temporaryFolder.newFolder("work"));
+    File file = temporaryFolder.newFile("cached.py");
+    Files.copy(new File("src/test/resources/org/sonar/plugins/python/code_chunks_3.py"), file);
+    DefaultInputFile inputFile = new DefaultInputFile("cached.py").setLanguage(Python.KEY);
+    inputFile.setAbsolutePath(file.getAbsolutePath());
+    fs.add(inputFile);
+    Issuable issuable = mockIssuable();
+
+    SensorContext firstContext = mock(SensorContext.class);
+    sensor.analyse(new Project("key"), firstContext);
+    assertThat(new File(fs.workDir(), "python-analysis.cache")).exists();
+
+    SensorContext secondContext = mock(SensorContext.class);
+    sensor = new PythonSquidSensor(fileLinesContextFactory, fs, perspectives, checkFactory, settings, new CpdTokenStore(fs));
+    sensor.analyse(new Project("key"), secondContext);
+    verify(secondContext).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.LINES), Mockito.eq(7.0));
+    verify(secondContext).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(2.0));
+    verify(secondContext).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.COMMENT_LINES), Mockito.eq(1.0));
+    verify(fileLinesContext, times(2)).setIntValue(CoreMetrics.COMMENT_LINES_DATA_KEY, 4, 1);
+    verify(issuable, times(2)).addIssue(Mockito.any(Issue.class));
+
+    Files.append("\ndef third(c):\n    return c\n", file, Charsets.UTF_8);
+    SensorContext thirdContext = mock(SensorContext.class);
+    sensor = new PythonSquidSensor(fileLinesContextFactory, fs, perspectives, checkFactory, settings, new CpdTokenStore(fs));
+    sensor.analyse(new Project("key"), thirdContext);
+    verify(thirdContext).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(3.0));
+  }
+
+  @Test
+  public void should_not_cache_degraded_files() throws Exception {
+    settings.setProperty(PythonPlugin.ANALYSIS_CACHE_KEY, true);
+    settings.setProperty(PythonPlugin.MAX_LINES_KEY, 2);
+    fs.setWorkDir(temporaryFolder.newFolder("work"));
+    File file = temporaryFolder.newFile("degraded.py");
+    Files.copy(new File("src/test/resources/org/sonar/plugins/python/code_chunks_3.py"), file);
+    DefaultInputFile inputFile = new DefaultInputFile("degraded.py").setLanguage(Python.KEY);
+    inputFile.setAbsolutePath(file.getAbsolutePath());
+    fs.add(inputFile);
+    mockIssuable();
+
+    SensorContext firstContext = mock(SensorContext.class);
+    sensor.analyse(new Project("key"), firstContext);
+    verify(firstContext).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(0.0));
+
+    settings.removeProperty(PythonPlugin.MAX_LINES_KEY);
+    SensorContext secondContext = mock(SensorContext.class);
+    sensor = new PythonSquidSensor(fileLinesContextFactory, fs, perspectives, checkFactory, settings, new CpdTokenStore(fs));
+    sensor.analyse(new Project("key"), secondContext);
+    verify(secondContext).saveMeasure(Mockito.any(InputFile.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(2.0));
+  }
+
+  private void addFile(String relativePath) {
+    DefaultInputFile inputFile = new DefaultInputFile(relativePath).setLanguage(Python.KEY);
+    inputFile.setAbsolutePath((new File(relativePath)).getAbsolutePath());
+    fs.add(inputFile);
+  }
+
+  private Issuable mockIssuable() {
+    Issuable issuable = mock(Issuable.class);
+    Issuable.IssueBuilder issueBuilder = mock(Issuable.IssueBuilder.class);
+    when(perspectives.as(Mockito.eq(Issuable.class), Mockito.any(InputFile.class))).thenReturn(issuable);
+    when(issuable.newIssueBuilder()).thenReturn(issueBuilder);
+    when(issueBuilder.ruleKey(Mockito.any(RuleKey.class))).thenReturn(issueBuilder);
+    when(issueBuilder.line(Mockito.any(Integer.class))).thenReturn(issueBuilder);
+    when(issueBuilder.message(Mockito.any(String.class))).thenReturn(issueBuilder);
+    return issuable;
+  }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import org.junit.Test;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.measures.Metric;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class FileCoverageTest {
+
+  @Test
+  public void measures() {
+    FileCoverage coverage = new FileCoverage();
+    coverage.setHits(1, 2);
+    coverage.setHits(3, 0);
+    coverage.setHits(1000, 1);
+    coverage.setConditions(3, 4, 1);
+
+    Map<Metric, Measure> measures = measuresByMetric(coverage);
+    assertThat(measures.get(CoreMetrics.LINES_TO_COVER).getValue()).isEqualTo(3);
+    assertThat(measures.get(CoreMetrics.UNCOVERED_LINES).getValue()).isEqualTo(1);
+    assertThat(measures.get(CoreMetrics.CONDITIONS_TO_COVER).getValue()).isEqualTo(4);
+    assertThat(measures.get(CoreMetrics.UNCOVERED_CONDITIONS).getValue()).isEqualTo(3);
+    assertThat(measures.get(CoreMetrics.COVERAGE_LINE_HITS_DATA).getData()).isEqualTo("1=2;3=0;1000=1");
+  }
+
+  @Test
+  public void merge_does_not_depend_on_order() {
+    FileCoverage first = new FileCoverage();
+    first.setHits(1, 0);
+    first.setHits(2, 3);
+    first.setConditions(2, 2, 1);
+    FileCoverage second = new FileCoverage();
+    second.setHits(1, 1);
+    second.setHits(2, 0);
+    second.setHits(200, 0);
+    second.setConditions(2, 2, 0);
+
+    FileCoverage merged = new FileCoverage();
+    merged.merge(second);
+    merged.merge(first);
+    first.merge(second);
+
+    assertThat(measuresByMetric(first)).isEqualTo(measuresByMetric(merged));
+    Map<Metric, Measure> measures = measuresByMetric(first);
+    assertThat(measures.get(CoreMetrics.LINES_TO_COVER).getValue()).isEqualTo(3);
+    assertThat(measures.get(CoreMetrics.UNCOVERED_LINES).getValue()).isEqualTo(1);
+    assertThat(measures.get(CoreMetrics.UNCOVERED_CONDITIONS).getValue()).isEqualTo(1);
+    assertThat(measures.get(CoreMetrics.COVERAGE_LINE_HITS_DATA).getData()).isEqualTo("1=1;2=3;200=0");
+  }
+
+  @Test
+  public void merge_adds_up_covered_arcs() {
+    FileCoverage first = new FileCoverage();
+    first.setHits(2, 1);
+    first.addArc(2, 3, true);
+    first.addArc(2, 5, false);
+    FileCoverage second = new FileCoverage();
+    second.setHits(2, 1);
+    second.addArc(2, 3, false);
+    second.addArc(2, 5, true);
+
+    first.merge(second);
+
+    Map<Metric, Measure> measures = measuresByMetric(first);
+    assertThat(measures.get(CoreMetrics.CONDITIONS_TO_COVER).getValue()).isEqualTo(2);
+    assertThat(measures.get(CoreMetrics.UNCOVERED_CONDITIONS).getValue()).isEqualTo(0);
+  }
+
+  private static Map<Metric, Measure> measuresByMetric(FileCoverage coverage) {
+    Map<Metric, Measure> measures = new HashMap<>();
+    for (Measure measure : coverage.createMeasures()) {
+      measures.put(measure.getMetric(), measure);
+    }
+    return measures;
+  }
+
+}
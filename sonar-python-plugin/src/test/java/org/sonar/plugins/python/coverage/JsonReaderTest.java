@@ -0,0 +1,67 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JsonReaderTest {
+
+  @Test
+  public void read_values() throws Exception {
+    JsonReader reader = reader("{\"a\\\"b\\u00e9\\n\": [1, -23], \"skipped\": {\"x\": [true, null, {\"y\": -1.5e+3}], \"z\": \"]}\"}, \"c\": \"d\"}");
+    reader.beginObject();
+    assertThat(reader.nextName()).isEqualTo("a\"bé\n");
+    reader.beginArray();
+    assertThat(reader.nextInt()).isEqualTo(1);
+    assertThat(reader.hasNext()).isTrue();
+    assertThat(reader.nextInt()).isEqualTo(-23);
+    assertThat(reader.hasNext()).isFalse();
+    reader.endArray();
+    assertThat(reader.nextName()).isEqualTo("skipped");
+    reader.skipValue();
+    assertThat(reader.nextName()).isEqualTo("c");
+    assertThat(reader.nextString()).isEqualTo("d");
+    assertThat(reader.hasNext()).isFalse();
+    reader.endObject();
+    assertThat(reader.hasContent()).isFalse();
+  }
+
+  @Test(expected = IOException.class)
+  public void unexpected_value() throws Exception {
+    JsonReader reader = reader("[\"1\"]");
+    reader.beginArray();
+    reader.nextInt();
+  }
+
+  @Test(expected = IOException.class)
+  public void unterminated_string() throws Exception {
+    reader("\"abc").nextString();
+  }
+
+  private static JsonReader reader(String json) {
+    return new JsonReader(new StringReader(json));
+  }
+
+}
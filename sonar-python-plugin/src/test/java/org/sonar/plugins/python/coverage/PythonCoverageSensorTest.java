@@ -26,12 +26,19 @@ import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.config.Settings;
 import org.sonar.api.measures.Measure;
+import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Project;
+import org.sonar.plugins.python.DirectoryScannerCache;
+import org.sonar.plugins.python.InputFileIndex;
 import org.sonar.plugins.python.Python;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.measures.CoreMetrics;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -39,6 +46,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class PythonCoverageSensorTest {
@@ -72,7 +80,7 @@ public class PythonCoverageSensorTest {
   @Test
   public void should_parse_ut_coverage_report() {
     settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/ut-coverage.xml");
-    sensor = new PythonCoverageSensor(settings, fs);
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
     verify(context, times(7)).saveMeasure(Mockito.eq(fileWithConditionCoverage), any(Measure.class));
     verify(context, times(3)).saveMeasure(Mockito.eq(fileWithoutConditionCoverage), any(Measure.class));
@@ -83,7 +91,7 @@ public class PythonCoverageSensorTest {
   public void should_parse_coverage_report_with_zeroing() {
     settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/ut-coverage.xml");
     settings.setProperty(PythonCoverageSensor.FORCE_ZERO_COVERAGE_KEY, true);
-    sensor = new PythonCoverageSensor(settings, fs);
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
     // count lineHitsData
     verify(context, times(9)).saveMeasure(Mockito.eq(fileWithConditionCoverage), any(Measure.class));
@@ -94,7 +102,7 @@ public class PythonCoverageSensorTest {
   @Test
   public void should_parse_it_coverage_report() {
     settings.setProperty(PythonCoverageSensor.IT_REPORT_PATH_KEY, "coverage-reports/it-coverage.xml");
-    sensor = new PythonCoverageSensor(settings, fs);
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
     verify(context, times(7)).saveMeasure(Mockito.eq(fileWithConditionCoverage), any(Measure.class));
     verify(context, times(3)).saveMeasure(Mockito.eq(fileWithoutConditionCoverage), any(Measure.class));
@@ -104,24 +112,89 @@ public class PythonCoverageSensorTest {
   @Test
   public void should_parse_overall_coverage_report() {
     settings.setProperty(PythonCoverageSensor.OVERALL_REPORT_PATH_KEY, "coverage-reports/overall-coverage.xml");
-    sensor = new PythonCoverageSensor(settings, fs);
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
     verify(context, times(7)).saveMeasure(Mockito.eq(fileWithConditionCoverage), any(Measure.class));
     verify(context, times(3)).saveMeasure(Mockito.eq(fileWithoutConditionCoverage), any(Measure.class));
     verify(context, times(0)).saveMeasure(Mockito.eq(fileWithoutCoverageInfo), any(Measure.class));
   }
 
+  @Test
+  public void should_merge_reports_of_shards() {
+    settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/shard-*-coverage.xml");
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
+    sensor.analyse(project, context);
+    Map<Metric, Measure> measuresByMetric = savedMeasures(fileWithoutConditionCoverage, 7);
+    assertThat(measuresByMetric.get(CoreMetrics.LINES_TO_COVER).getValue()).isEqualTo(3);
+    assertThat(measuresByMetric.get(CoreMetrics.UNCOVERED_LINES).getValue()).isEqualTo(1);
+    assertThat(measuresByMetric.get(CoreMetrics.CONDITIONS_TO_COVER).getValue()).isEqualTo(2);
+    assertThat(measuresByMetric.get(CoreMetrics.UNCOVERED_CONDITIONS).getValue()).isEqualTo(1);
+    assertThat(measuresByMetric.get(CoreMetrics.COVERAGE_LINE_HITS_DATA).getData()).isEqualTo("17=3;20=5;22=0");
+  }
+
+  @Test
+  public void should_compute_overall_coverage() {
+    settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/shard-1-coverage.xml");
+    settings.setProperty(PythonCoverageSensor.IT_REPORT_PATH_KEY, "coverage-reports/shard-2-coverage.xml");
+    settings.setProperty(PythonCoverageSensor.OVERALL_REPORT_PATH_KEY, "coverage-reports/overall-coverage.xml");
+    settings.setProperty(PythonCoverageSensor.COMPUTE_OVERALL_KEY, true);
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
+    sensor.analyse(project, context);
+    verify(context, times(0)).saveMeasure(Mockito.eq(fileWithConditionCoverage), any(Measure.class));
+
+    Map<Metric, Measure> measuresByMetric = savedMeasures(fileWithoutConditionCoverage, 21);
+    assertThat(measuresByMetric.get(CoreMetrics.UNCOVERED_LINES).getValue()).isEqualTo(2);
+    assertThat(measuresByMetric.get(CoreMetrics.IT_UNCOVERED_LINES).getValue()).isEqualTo(2);
+    assertThat(measuresByMetric.get(CoreMetrics.OVERALL_LINES_TO_COVER).getValue()).isEqualTo(3);
+    assertThat(measuresByMetric.get(CoreMetrics.OVERALL_UNCOVERED_LINES).getValue()).isEqualTo(1);
+    assertThat(measuresByMetric.get(CoreMetrics.OVERALL_UNCOVERED_CONDITIONS).getValue()).isEqualTo(1);
+    assertThat(measuresByMetric.get(CoreMetrics.OVERALL_COVERAGE_LINE_HITS_DATA).getData()).isEqualTo("17=3;20=5;22=0");
+  }
+
+  @Test
+  public void should_parse_json_report() {
+    settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/coverage.json");
+    settings.setProperty(PythonCoverageSensor.OVERALL_REPORT_PATH_KEY, "coverage-reports/coverage.json");
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
+    sensor.analyse(project, context);
+    verify(context, times(6)).saveMeasure(Mockito.eq(fileWithoutConditionCoverage), any(Measure.class));
+    verify(context, times(0)).saveMeasure(Mockito.eq(fileWithoutCoverageInfo), any(Measure.class));
+
+    Map<Metric, Measure> measuresByMetric = savedMeasures(fileWithConditionCoverage, 14);
+    assertThat(measuresByMetric.get(CoreMetrics.LINES_TO_COVER).getValue()).isEqualTo(16);
+    assertThat(measuresByMetric.get(CoreMetrics.UNCOVERED_LINES).getValue()).isEqualTo(6);
+    assertThat(measuresByMetric.get(CoreMetrics.CONDITIONS_TO_COVER).getValue()).isEqualTo(8);
+    assertThat(measuresByMetric.get(CoreMetrics.UNCOVERED_CONDITIONS).getValue()).isEqualTo(4);
+    assertThat(measuresByMetric.get(CoreMetrics.CONDITIONS_BY_LINE).getData()).isEqualTo("54=2;68=2;70=2;71=2");
+    assertThat(measuresByMetric.get(CoreMetrics.OVERALL_UNCOVERED_LINES).getValue()).isEqualTo(6);
+  }
+
+  @Test
+  public void should_do_nothing_on_empty_json_report() {
+    settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/empty-coverage-result.json");
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
+    sensor.analyse(project, context);
+    verify(context, times(0)).saveMeasure(Mockito.eq(fileWithoutConditionCoverage), any(Measure.class));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_json_report() {
+    settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/invalid-coverage-result.json");
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
+    sensor.analyse(project, context);
+  }
+
   @Test(expected = IllegalStateException.class)
   public void shouldFailOnInvalidReport() {
     settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/invalid-coverage-result.xml");
-    sensor = new PythonCoverageSensor(settings, fs);
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
   }
 
   @Test(expected = IllegalStateException.class)
   public void shouldFailOnInvalidIntegrationReport() {
     settings.setProperty(PythonCoverageSensor.IT_REPORT_PATH_KEY, "coverage-reports/invalid-coverage-result.xml");
-    sensor = new PythonCoverageSensor(settings, fs);
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
   }
 
@@ -129,13 +202,23 @@ public class PythonCoverageSensorTest {
   public void should_do_nothing_on_empty_report() {
     settings.setProperty(PythonCoverageSensor.REPORT_PATH_KEY, "coverage-reports/empty-coverage-result.xml");
     settings.setProperty(PythonCoverageSensor.IT_REPORT_PATH_KEY, "coverage-reports/this-file-does-not-exist.xml");
-    sensor = new PythonCoverageSensor(settings, fs);
+    sensor = new PythonCoverageSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
     verify(context, times(0)).saveMeasure(Mockito.eq(fileWithConditionCoverage), any(Measure.class));
     verify(context, times(0)).saveMeasure(Mockito.eq(fileWithoutConditionCoverage), any(Measure.class));
     verify(context, times(0)).saveMeasure(Mockito.eq(fileWithoutCoverageInfo), any(Measure.class));
   }
 
+  private Map<Metric, Measure> savedMeasures(DefaultInputFile inputFile, int count) {
+    ArgumentCaptor<Measure> measures = ArgumentCaptor.forClass(Measure.class);
+    verify(context, times(count)).saveMeasure(Mockito.eq(inputFile), measures.capture());
+    Map<Metric, Measure> measuresByMetric = new HashMap<>();
+    for (Measure measure : measures.getAllValues()) {
+      measuresByMetric.put(measure.getMetric(), measure);
+    }
+    return measuresByMetric;
+  }
+
   private DefaultInputFile getInputFile(String path) {
     DefaultInputFile file = new DefaultInputFile(path);
     file.setLanguage(Python.KEY).setLines(1);
@@ -0,0 +1,118 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.cpd;
+
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokens;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.python.PythonAstScanner;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CpdTokenStoreTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void tokens_of_the_scan_are_the_lexed_tokens() throws Exception {
+    File file = new File(getClass().getResource("/org/sonar/plugins/python/code_chunks_2.py").toURI());
+    CpdTokenStore store = newStore(Integer.MAX_VALUE);
+    PythonAstScanner.scanSingleFile(file, new CpdTokenVisitor(store));
+
+    Tokens fromStore = new Tokens();
+    new PythonTokenizer(UTF_8, store).tokenize(sourceCode(file), fromStore);
+    Tokens lexed = new Tokens();
+    new PythonTokenizer(UTF_8).tokenize(sourceCode(file), lexed);
+
+    assertThat(fromStore.size()).isEqualTo(88);
+    assertSameTokens(fromStore.getTokens(), lexed.getTokens());
+    assertThat(store.transferTo(file.getPath(), new Tokens())).isFalse();
+  }
+
+  @Test
+  public void spilled_tokens() throws Exception {
+    CpdTokenStore store = newStore(3);
+    store.put(new File("a.py"), ImmutableList.of("x", "=", "1"), new int[] {1, 1, 1});
+    store.put(new File("b.py"), ImmutableList.of("y", "=", "\"é\""), new int[] {2, 2, 3});
+    store.put(new File("c.py"), ImmutableList.of("pass"), new int[] {5});
+
+    File spillFile = new File(temporaryFolder.getRoot(), "python-cpd-tokens.bin");
+    assertThat(spillFile).exists();
+
+    Tokens tokens = new Tokens();
+    assertThat(store.transferTo("c.py", tokens)).isTrue();
+    assertThat(spillFile).exists();
+    assertThat(store.transferTo("b.py", tokens)).isTrue();
+    assertThat(spillFile).doesNotExist();
+    assertThat(store.transferTo("a.py", tokens)).isTrue();
+    assertThat(store.transferTo("d.py", tokens)).isFalse();
+
+    List<TokenEntry> entries = tokens.getTokens();
+    assertThat(entries).hasSize(10);
+    assertThat(entries.get(0).getBeginLine()).isEqualTo(5);
+    assertThat(entries.get(1)).isEqualTo(TokenEntry.getEOF());
+    assertThat(entries.get(4).getBeginLine()).isEqualTo(3);
+    assertThat(entries.get(4).getIdentifier()).isEqualTo(new TokenEntry("\"é\"", "b.py", 3).getIdentifier());
+    assertThat(entries.get(7).getIdentifier()).isEqualTo(entries.get(3).getIdentifier());
+  }
+
+  @Test
+  public void spill_file_is_deleted_at_the_end_of_the_analysis() throws Exception {
+    CpdTokenStore store = newStore(1);
+    store.put(new File("a.py"), ImmutableList.of("pass"), new int[] {1});
+    store.put(new File("b.py"), ImmutableList.of("pass"), new int[] {1});
+    File spillFile = new File(temporaryFolder.getRoot(), "python-cpd-tokens.bin");
+    assertThat(spillFile).exists();
+
+    store.stop();
+    assertThat(spillFile).doesNotExist();
+  }
+
+  private CpdTokenStore newStore(int maxTokensInMemory) {
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.setWorkDir(temporaryFolder.getRoot());
+    return new CpdTokenStore(fileSystem, maxTokensInMemory);
+  }
+
+  private static SourceCode sourceCode(File file) {
+    return new SourceCode(new SourceCode.FileCodeLoader(file, "key"));
+  }
+
+  private static void assertSameTokens(List<TokenEntry> actual, List<TokenEntry> expected) {
+    assertThat(actual).hasSize(expected.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertThat(actual.get(i).getIdentifier()).isEqualTo(expected.get(i).getIdentifier());
+      assertThat(actual.get(i).getBeginLine()).isEqualTo(expected.get(i).getBeginLine());
+    }
+  }
+
+}
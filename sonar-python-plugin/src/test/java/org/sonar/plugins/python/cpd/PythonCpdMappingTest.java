@@ -32,7 +32,7 @@ public class PythonCpdMappingTest {
   public void test() {
     Python language = mock(Python.class);
     FileSystem fs = mock(FileSystem.class);
-    PythonCpdMapping mapping = new PythonCpdMapping(language, fs);
+    PythonCpdMapping mapping = new PythonCpdMapping(language, fs, new CpdTokenStore(fs));
     assertThat(mapping.getLanguage()).isSameAs(language);
     assertThat(mapping.getTokenizer()).isInstanceOf(PythonTokenizer.class);
   }
@@ -64,4 +64,15 @@ public class PylintConfigurationTest {
 
     assertThat(pylintConfiguration.getPylintPath()).isEqualTo(path);
   }
+
+  @Test
+  public void batches() {
+    assertThat(pylintConfiguration.getBatchSize()).isEqualTo(50);
+    assertThat(pylintConfiguration.getProcesses()).isEqualTo(1);
+
+    settings.setProperty(PylintConfiguration.PYLINT_BATCH_SIZE_KEY, "10");
+    settings.setProperty(PylintConfiguration.PYLINT_PROCESSES_KEY, "4");
+    assertThat(pylintConfiguration.getBatchSize()).isEqualTo(10);
+    assertThat(pylintConfiguration.getProcesses()).isEqualTo(4);
+  }
 }
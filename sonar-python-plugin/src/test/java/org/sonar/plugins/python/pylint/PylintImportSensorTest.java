@@ -33,6 +33,8 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.issue.*;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.python.DirectoryScannerCache;
+import org.sonar.plugins.python.InputFileIndex;
 import org.sonar.plugins.python.Python;
 
 import java.io.File;
@@ -72,7 +74,7 @@ public class PylintImportSensorTest {
 
   @Test
   public void shouldNotThrowWhenInstantiating() {
-    new PylintImportSensor(settings, activeRules, fileSystem, mock(ResourcePerspectives.class));
+    new PylintImportSensor(settings, activeRules, fileSystem, mock(ResourcePerspectives.class), new InputFileIndex(fileSystem), new DirectoryScannerCache());
   }
 
   @Test
@@ -101,7 +103,7 @@ public class PylintImportSensorTest {
     when(issueBuilder.line(Mockito.any(Integer.class))).thenReturn(issueBuilder);
     when(issueBuilder.message(Mockito.any(String.class))).thenReturn(issueBuilder);
 
-    PylintImportSensor sensor = new PylintImportSensor(settings, activeRules, fileSystem, perspectives);
+    PylintImportSensor sensor = new PylintImportSensor(settings, activeRules, fileSystem, perspectives, new InputFileIndex(fileSystem), new DirectoryScannerCache());
     sensor.analyse(mock(Project.class), context);
 
     verify(issuable, times(3)).addIssue(any(org.sonar.api.issue.Issue.class));
@@ -110,7 +112,7 @@ public class PylintImportSensorTest {
 
 
   private void checkNecessityOfExecution(Project project, ActiveRules currentActiveRules, DefaultFileSystem fileSystem, boolean shouldExecute) {
-    PylintImportSensor sensor = new PylintImportSensor(settings, currentActiveRules, fileSystem, mock(ResourcePerspectives.class));
+    PylintImportSensor sensor = new PylintImportSensor(settings, currentActiveRules, fileSystem, mock(ResourcePerspectives.class), new InputFileIndex(fileSystem), new DirectoryScannerCache());
     assertThat(sensor.shouldExecuteOnProject(project)).isEqualTo(shouldExecute);
   }
 
@@ -20,11 +20,13 @@
 package org.sonar.plugins.python.pylint;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
@@ -43,7 +45,13 @@ public class PylintIssuesAnalyzerIT {
     String pylintPath = null;
     File out = tempFolder.newFile();
 
-    List<Issue> issues = new PylintIssuesAnalyzer(pylintPath, pylintConfigPath).analyze(codeChunksPathName, Charsets.UTF_8, out);
+    final List<Issue> issues = new ArrayList<>();
+    new PylintIssuesAnalyzer(pylintPath, pylintConfigPath).analyze(ImmutableList.of(codeChunksPathName), Charsets.UTF_8, null, out, new PylintIssuesAnalyzer.IssueHandler() {
+      @Override
+      public void handle(Issue issue) {
+        issues.add(issue);
+      }
+    });
     assertThat(issues).isNotEmpty();
   }
 
@@ -19,12 +19,12 @@
  */
 package org.sonar.plugins.python.pylint;
 
-import org.apache.commons.io.IOUtils;
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
 import org.junit.Test;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -34,51 +34,33 @@ import static org.mockito.Mockito.mock;
 public class PylintIssuesAnalyzerTest {
 
   @Test
-  public void shouldParseCorrectly() {
+  public void shouldParseCorrectly() throws IOException {
     String resourceName = "/org/sonar/plugins/python/pylint/sample_pylint_output.txt";
-    String pathName = getClass().getResource(resourceName).getPath();
-    String pylintConfigPath = null;
-    String pylintPath = null;
-    List<String> lines = readFile(pathName);
-    List<Issue> issues = analyzer(pylintPath, pylintConfigPath).parseOutput(lines);
+    List<Issue> issues = parse(resourceName);
     assertThat(issues.size()).isEqualTo(21);
   }
 
   @Test
-  public void shouldParseCorrectlyNewFormat() {
+  public void shouldParseCorrectlyNewFormat() throws IOException {
     String resourceName = "/org/sonar/plugins/python/pylint/sample_pylint_output_new_format.txt";
-    String pathName = getClass().getResource(resourceName).getPath();
-    String pylintConfigPath = null;
-    String pylintPath = null;
-    List<String> lines = readFile(pathName);
-    List<Issue> issues = analyzer(pylintPath, pylintConfigPath).parseOutput(lines);
+    List<Issue> issues = parse(resourceName);
     assertThat(issues.size()).isEqualTo(1);
     assertThat(issues.get(0).getRuleId()).isEqualTo("C0111");
   }
 
   @Test
-  public void shouldParseCorrectlyOutputWithWindowsPaths() {
+  public void shouldParseCorrectlyOutputWithWindowsPaths() throws IOException {
     String resourceName = "/org/sonar/plugins/python/pylint/sample_pylint_output_with_win_paths.txt";
-    String pathName = getClass().getResource(resourceName).getPath();
-    String pylintConfigPath = null;
-    String pylintPath = null;
-    List<String> lines = readFile(pathName);
-    List<Issue> issues = analyzer(pylintPath, pylintConfigPath).parseOutput(lines);
+    List<Issue> issues = parse(resourceName);
     assertThat(issues.size()).isEqualTo(1);
   }
 
   @Test
-  public void shouldMapIssuesIdsCorrectly() {
+  public void shouldMapIssuesIdsCorrectly() throws IOException {
     String resourceOld = "/org/sonar/plugins/python/pylint/sample_pylint_output_oldids.txt";
     String resourceNew = "/org/sonar/plugins/python/pylint/sample_pylint_output_newids.txt";
-    String pathNameOld = getClass().getResource(resourceOld).getPath();
-    String pathNameNew = getClass().getResource(resourceNew).getPath();
-    String pylintConfigPath = null;
-    String pylintPath = null;
-    List<String> linesOld = readFile(pathNameOld);
-    List<String> linesNew = readFile(pathNameNew);
-    List<Issue> issuesOld = analyzer(pylintPath, pylintConfigPath).parseOutput(linesOld);
-    List<Issue> issuesNew = analyzer(pylintPath, pylintConfigPath).parseOutput(linesNew);
+    List<Issue> issuesOld = parse(resourceOld);
+    List<Issue> issuesNew = parse(resourceNew);
     assertThat(getIds(issuesOld)).isEqualTo(getIds(issuesNew));
   }
 
@@ -141,24 +123,22 @@ public class PylintIssuesAnalyzerTest {
     }
   }
 
-  private List<String> readFile(String path) {
-    List<String> lines = new LinkedList<String>();
-
-    BufferedReader reader = null;
-    try {
-      reader = new BufferedReader(new FileReader(path));
-      String s = null;
-
-      while ((s = reader.readLine()) != null) {
-        lines.add(s);
+  /**
+   * Streams the lines of the given pylint output to the consumer, as pylint would.
+   */
+  private List<Issue> parse(String resourceName) throws IOException {
+    final List<Issue> issues = new LinkedList<Issue>();
+    PylintOutputConsumer consumer = new PylintOutputConsumer(new StringWriter(), new PylintIssuesAnalyzer.IssueHandler() {
+      @Override
+      public void handle(Issue issue) {
+        issues.add(issue);
       }
-    } catch (IOException e) {
-      System.err.println("Cannot read the file '" + path + "'");
-    } finally {
-    	IOUtils.closeQuietly(reader);
+    });
+    for (String line : Resources.readLines(getClass().getResource(resourceName), Charsets.UTF_8)) {
+      consumer.consumeLine(line);
     }
-
-    return lines;
+    consumer.checkWritten();
+    return issues;
   }
 
   private List<String> getIds(List<Issue> issues){
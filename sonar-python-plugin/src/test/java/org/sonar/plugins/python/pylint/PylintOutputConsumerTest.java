@@ -0,0 +1,91 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.pylint;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PylintOutputConsumerTest {
+
+  private final List<Issue> issues = new ArrayList<>();
+  private final PylintIssuesAnalyzer.IssueHandler issueHandler = new PylintIssuesAnalyzer.IssueHandler() {
+    @Override
+    public void handle(Issue issue) {
+      issues.add(issue);
+    }
+  };
+
+  @Test
+  public void issues_are_handled_as_lines_are_consumed() throws Exception {
+    StringWriter out = new StringWriter();
+    PylintOutputConsumer consumer = new PylintOutputConsumer(out, issueHandler);
+
+    consumer.consumeLine("************* Module code_chunks");
+    consumer.consumeLine("src/code_chunks.py:1: [C0111(missing-docstring)] Missing docstring");
+    assertThat(issues).hasSize(1);
+    consumer.consumeLine("  detail of the previous message");
+    consumer.consumeLine("src/other.py:12: [W0104(pointless-statement), f] Statement seems to have no effect");
+    consumer.checkWritten();
+
+    assertThat(issues).hasSize(2);
+    assertThat(issues.get(0).getFilename()).isEqualTo("src/code_chunks.py");
+    assertThat(issues.get(0).getRuleId()).isEqualTo("C0111");
+    assertThat(issues.get(1).getFilename()).isEqualTo("src/other.py");
+    assertThat(issues.get(1).getLine()).isEqualTo(12);
+    assertThat(out.toString()).isEqualTo("************* Module code_chunks\n"
+      + "src/code_chunks.py:1: [C0111(missing-docstring)] Missing docstring\n"
+      + "  detail of the previous message\n"
+      + "src/other.py:12: [W0104(pointless-statement), f] Statement seems to have no effect\n");
+  }
+
+  @Test(expected = IOException.class)
+  public void write_failure_is_reported_after_the_output_is_consumed() throws Exception {
+    PylintOutputConsumer consumer = new PylintOutputConsumer(new FailingWriter(), issueHandler);
+    consumer.consumeLine("src/code_chunks.py:1: [C0111(missing-docstring)] Missing docstring");
+    consumer.consumeLine("src/code_chunks.py:2: [C0111(missing-docstring)] Missing docstring");
+    assertThat(issues).hasSize(2);
+    consumer.checkWritten();
+  }
+
+  private static class FailingWriter extends Writer {
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      throw new IOException("disk full");
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+  }
+
+}
@@ -19,22 +19,42 @@
  */
 package org.sonar.plugins.python.pylint;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.component.ResourcePerspectives;
 import org.sonar.api.config.Settings;
+import org.sonar.api.issue.Issuable;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.plugins.python.Python;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class PylintSensorTest {
   private PylintConfiguration conf;
@@ -71,6 +91,99 @@ public class PylintSensorTest {
     checkNecessityOfExecution(project, emptyActiveRules, fileSystemForeign, false);
   }
 
+  @Test
+  public void analyse_files_in_batches() throws Exception {
+    File baseDir = new File("src/test/resources/org/sonar/plugins/python").getAbsoluteFile();
+    DefaultFileSystem projectFileSystem = new DefaultFileSystem();
+    projectFileSystem.setBaseDir(baseDir);
+    projectFileSystem.setWorkDir(new File("target/"));
+    File file1 = addFile(projectFileSystem, "code_chunks_2.py");
+    File file2 = addFile(projectFileSystem, "code_chunks_3.py");
+    when(conf.getBatchSize()).thenReturn(1);
+    when(conf.getProcesses()).thenReturn(2);
+
+    final PylintIssuesAnalyzer analyzer = mock(PylintIssuesAnalyzer.class);
+    doAnswer(reportIssues(
+      new Issue(file1.getAbsolutePath(), 1, "C0103", "", "Invalid name"),
+      new Issue(file1.getAbsolutePath(), 2, "C0111", "", "Rule not activated")))
+      .when(analyzer).analyze(eq(ImmutableList.of(file1.getAbsolutePath())), any(Charset.class), any(File.class), any(File.class), any(PylintIssuesAnalyzer.IssueHandler.class));
+    doAnswer(reportIssues(
+      new Issue(file2.getAbsolutePath(), 3, "C0103", "", "Invalid name"),
+      new Issue("code_chunks_3.py", 5, "C0103", "", "Relative to the base directory"),
+      new Issue(new File("unknown.py").getAbsolutePath(), 4, "C0103", "", "Not on an analysed file")))
+      .when(analyzer).analyze(eq(ImmutableList.of(file2.getAbsolutePath())), any(Charset.class), any(File.class), any(File.class), any(PylintIssuesAnalyzer.IssueHandler.class));
+
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    Issuable issuable = mock(Issuable.class, RETURNS_DEEP_STUBS);
+    when(perspectives.as(eq(Issuable.class), any(InputFile.class))).thenReturn(issuable);
+    final Set<Thread> savingThreads = Collections.synchronizedSet(Sets.<Thread>newHashSet());
+    doAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) {
+        savingThreads.add(Thread.currentThread());
+        return true;
+      }
+    }).when(issuable).addIssue(any(org.sonar.api.issue.Issue.class));
+
+    PylintSensor sensor = new PylintSensor(conf, activeRules, projectFileSystem, perspectives, new Settings()) {
+      @Override
+      protected PylintIssuesAnalyzer createAnalyzer() {
+        return analyzer;
+      }
+    };
+    sensor.analyse(mock(Project.class), mock(SensorContext.class));
+
+    verify(analyzer).analyze(eq(ImmutableList.of(file1.getAbsolutePath())), any(Charset.class), eq(baseDir), eq(new File(projectFileSystem.workDir(), "pylint/0.out")),
+      any(PylintIssuesAnalyzer.IssueHandler.class));
+    verify(analyzer).analyze(eq(ImmutableList.of(file2.getAbsolutePath())), any(Charset.class), eq(baseDir), eq(new File(projectFileSystem.workDir(), "pylint/1.out")),
+      any(PylintIssuesAnalyzer.IssueHandler.class));
+    verify(perspectives, times(3)).as(eq(Issuable.class), any(InputFile.class));
+    verify(issuable, times(3)).addIssue(any(org.sonar.api.issue.Issue.class));
+    assertThat(savingThreads).containsOnly(Thread.currentThread());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void fail_when_pylint_fails() throws Exception {
+    DefaultFileSystem projectFileSystem = new DefaultFileSystem();
+    projectFileSystem.setWorkDir(new File("target/"));
+    addFile(projectFileSystem, "code_chunks_2.py");
+    when(conf.getBatchSize()).thenReturn(10);
+    when(conf.getProcesses()).thenReturn(1);
+
+    final PylintIssuesAnalyzer analyzer = mock(PylintIssuesAnalyzer.class);
+    doThrow(new IOException("pylint failure"))
+      .when(analyzer).analyze(anyListOf(String.class), any(Charset.class), any(File.class), any(File.class), any(PylintIssuesAnalyzer.IssueHandler.class));
+
+    PylintSensor sensor = new PylintSensor(conf, activeRules, projectFileSystem, mock(ResourcePerspectives.class), new Settings()) {
+      @Override
+      protected PylintIssuesAnalyzer createAnalyzer() {
+        return analyzer;
+      }
+    };
+    sensor.analyse(mock(Project.class), mock(SensorContext.class));
+  }
+
+  private static Answer<Void> reportIssues(final Issue... issues) {
+    return new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        PylintIssuesAnalyzer.IssueHandler handler = (PylintIssuesAnalyzer.IssueHandler) invocation.getArguments()[4];
+        for (Issue issue : issues) {
+          handler.handle(issue);
+        }
+        return null;
+      }
+    };
+  }
+
+  private static File addFile(DefaultFileSystem fileSystem, String name) {
+    File file = new File("src/test/resources/org/sonar/plugins/python/" + name);
+    DefaultInputFile inputFile = new DefaultInputFile(name).setLanguage(Python.KEY).setType(InputFile.Type.MAIN);
+    inputFile.setAbsolutePath(file.getAbsolutePath());
+    fileSystem.add(inputFile);
+    return file;
+  }
+
   private void checkNecessityOfExecution(Project project, ActiveRules currentActiveRules, DefaultFileSystem currentFileSystem, boolean shouldExecute) {
     PylintSensor sensor = new PylintSensor(conf, currentActiveRules, currentFileSystem, mock(ResourcePerspectives.class), new Settings());
     assertThat(sensor.shouldExecuteOnProject(project)).isEqualTo(shouldExecute);
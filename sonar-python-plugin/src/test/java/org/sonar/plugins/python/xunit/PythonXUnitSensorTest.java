@@ -29,6 +29,8 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.resources.Project;
+import org.sonar.plugins.python.DirectoryScannerCache;
+import org.sonar.plugins.python.InputFileIndex;
 
 import java.io.File;
 
@@ -55,7 +57,7 @@ public class PythonXUnitSensorTest {
     fs = new DefaultFileSystem();
     fs.setBaseDir(new File("src/test/resources/org/sonar/plugins/python"));
     context = mock(SensorContext.class);
-    sensor = new PythonXUnitSensor(settings, fs);
+    sensor = new PythonXUnitSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
   }
 
   @Test
@@ -115,7 +117,7 @@ public class PythonXUnitSensorTest {
   @Test
   public void shouldReportNothingWhenNoReportFound() {
     settings.setProperty(PythonXUnitSensor.REPORT_PATH_KEY, "notexistingpath");
-    sensor = new PythonXUnitSensor(settings, fs);
+    sensor = new PythonXUnitSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
 
     verifyNoMoreInteractions(context);
@@ -124,7 +126,7 @@ public class PythonXUnitSensorTest {
   @Test(expected = IllegalStateException.class)
   public void shouldThrowWhenGivenInvalidTime() {
     settings.setProperty(PythonXUnitSensor.REPORT_PATH_KEY, "xunit-reports/invalid-time-xunit-report.xml");
-    sensor = new PythonXUnitSensor(settings, fs);
+    sensor = new PythonXUnitSensor(settings, fs, new InputFileIndex(fs), new DirectoryScannerCache());
     sensor.analyse(project, context);
   }
 }
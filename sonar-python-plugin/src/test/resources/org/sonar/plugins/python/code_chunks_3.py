@@ -0,0 +1,6 @@
+def first(a):
+    print a
+
+# comment
+def second(b):
+    return b